@@ -0,0 +1,128 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Decoding of the weights and costs from the bytes of the input, with {@link AsciiNumbers} and
+ * {@link Packer#parseLine(byte[], int, int, List)}, compared to the JDK parser on Strings that the Packer used
+ * before, with a decimal point and with the decimal comma of the EU feeds.
+ *
+ * @author Hector Blanco
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecimalParsingBenchmark {
+	
+	private static final int N_OF_LINES = 1000;
+	private static final Pattern THING = Pattern.compile("\\(([^)]+)\\)");
+	
+	@Param({"false", "true"})
+	public boolean decimalComma;
+	
+	private Packer packer;
+	private byte[][] decimals;
+	private byte[][] lines;
+	
+	
+	@Setup
+	public void setUp() {
+		packer = new Packer(new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.decimalComma = decimalComma;
+		}).build());
+		char decimalSeparator = decimalComma ? ',' : '.';
+		char attributeSeparator = decimalComma ? ';' : ',';
+		
+		// lines like the assignment input, with the currency symbol before or after the costs
+		Random random = new Random(21);
+		decimals = new byte[N_OF_LINES * 16][];
+		lines = new byte[N_OF_LINES][];
+		int nOfDecimals = 0;
+		for(int i = 0; i < N_OF_LINES; i++) {
+			StringBuilder line = new StringBuilder().append(random.nextInt(100)).append(" :");
+			for(int index = 1; index <= 15; index++) {
+				String weight = random.nextInt(100) + String.valueOf(decimalSeparator) + random.nextInt(100);
+				String cost = random.nextInt(100) + String.valueOf(decimalSeparator) + random.nextInt(10);
+				decimals[nOfDecimals++] = weight.getBytes(StandardCharsets.US_ASCII);
+				line.append(" (").append(index).append(attributeSeparator).append(weight).append(attributeSeparator)
+						.append(random.nextBoolean() ? "€" + cost : cost + "€").append(')');
+			}
+			lines[i] = line.toString().getBytes(StandardCharsets.UTF_8);
+		}
+		decimals = Arrays.copyOf(decimals, nOfDecimals);
+	}
+	
+	
+	@Benchmark
+	public void asciiDecimals(Blackhole blackhole) {
+		byte decimalSeparator = decimalComma ? (byte) ',' : (byte) '.';
+		for(byte[] decimal : decimals) {
+			blackhole.consume(AsciiNumbers.parseDecimal(decimal, 0, decimal.length, decimalSeparator));
+		}
+	}
+	
+	
+	@Benchmark
+	public void jdkDecimals(Blackhole blackhole) {
+		for(byte[] decimal : decimals) {
+			String value = new String(decimal, StandardCharsets.US_ASCII);
+			blackhole.consume(Double.parseDouble(decimalComma ? value.replace(',', '.') : value));
+		}
+	}
+	
+	
+	@Benchmark
+	public void byteLines(Blackhole blackhole) throws APIException {
+		List<Thing> things = new ArrayList<>();
+		for(byte[] line : lines) {
+			things.clear();
+			blackhole.consume(packer.parseLine(line, 0, line.length, things));
+			blackhole.consume(things);
+		}
+	}
+	
+	
+	@Benchmark
+	public void stringLines(Blackhole blackhole) throws APIException {
+		List<Thing> things = new ArrayList<>();
+		for(byte[] line : lines) {
+			// like the Packer parsed the lines before decoding their bytes
+			things.clear();
+			String text = new String(line, StandardCharsets.UTF_8);
+			blackhole.consume(packer.extractPackageWeightFromInput(text.split(":")[0]));
+			Matcher matcher = THING.matcher(text);
+			while(matcher.find()) {
+				things.add(packer.extractThingFromInput(matcher.group(1)));
+			}
+			blackhole.consume(things);
+		}
+	}
+	
+}
@@ -0,0 +1,95 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.exception.APIException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Throughput of many callers packing files at the same time with the {@link PipelinedPacker}, with a platform thread
+ * for each stage of each caller, and with {@link PackerOpts#isVirtualThreads() virtual threads} and the parsing and
+ * solving in the pool shared by all the callers. The virtual threads need Java 21 and the classes of the multi-release
+ * jar, that the <code>benchmark</code> profile puts in the classpath instead of the classes directory: the virtual
+ * mode fails at the setup when {@link PipelineThreads#isVirtualAvailable()} is false, instead of measuring the
+ * platform-thread pipeline again.
+ *
+ * @author Hector Blanco
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class PipelineThreadsBenchmark {
+	
+	private static final int N_OF_LINES = 2000;
+	
+	@Param({"false", "true"})
+	public boolean virtualThreads;
+	
+	private Path input;
+	private PackerOpts opts;
+	
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if(virtualThreads && !PipelineThreads.isVirtualAvailable()) {
+			throw new IllegalStateException("Virtual threads need Java 21 and the multi-release jar in the classpath");
+		}
+		opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.pipelineParserThreads = 2;
+			obj.pipelineSolverThreads = 4;
+			obj.virtualThreads = virtualThreads;
+		}).build();
+		
+		// lines like the assignment input
+		Random random = new Random(25);
+		StringBuilder content = new StringBuilder();
+		for(int line = 0; line < N_OF_LINES; line++) {
+			content.append(random.nextInt(100)).append(" :");
+			int nOfThings = 1 + random.nextInt(15);
+			for(int i = 1; i <= nOfThings; i++) {
+				content.append(" (").append(i).append(',').append(random.nextInt(10000) / 100D)
+						.append(",€").append(random.nextInt(100)).append(')');
+			}
+			content.append('\n');
+		}
+		input = Files.createTempFile("pipeline-threads", ".txt");
+		Files.write(input, content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(input);
+	}
+	
+	
+	@Benchmark
+	public String pack() throws APIException {
+		return Packer.pack(input.toString(), opts);
+	}
+	
+}
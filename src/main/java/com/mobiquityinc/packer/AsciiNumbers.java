@@ -0,0 +1,205 @@
+package com.mobiquityinc.packer;
+
+import java.util.regex.Pattern;
+
+
+/**
+ * Decoding of the plain numbers of the input directly from its bytes, without creating Strings.
+ * <p>
+ * Only the common formats are decoded: digits for the indexes, and digits with an optional decimal point for weights
+ * and costs. Anything else (signs, exponents, too many digits...) is not decoded, and the caller should fall back to
+ * {@link Integer#parseInt(String)} and {@link Double#parseDouble(String)}. The Strings are checked first with
+ * {@link #isInt(String)} and {@link #isDecimal(String)}, so a wrong number never creates a NumberFormatException.
+ *
+ * @author Hector Blanco
+ */
+class AsciiNumbers {
+	
+	/**
+	 * Value returned by {@link #parseIndex(byte[], int, int)} when the bytes are not decoded
+	 */
+	static final int NOT_DECODED = -1;
+	
+	// max significant digits of a decimal, a long can take them all
+	private static final int MAX_DIGITS = 18;
+	
+	// up to 2^53 all the integers are exact doubles
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	
+	// powers of ten that are exact doubles
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	
+	
+	// the Strings accepted by Double.parseDouble, the regular expression of the documentation of Double.valueOf
+	private static final Pattern JAVA_DECIMAL = javaDecimal();
+	
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private AsciiNumbers() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Decode a non negative integer made only of ASCII digits, without spaces or sign.
+	 *
+	 * @param bytes the bytes to decode
+	 * @param from  the first byte of the number
+	 * @param to    the byte after the last one of the number
+	 * @return the number, or {@link #NOT_DECODED} if the bytes are not only digits or the number is too big
+	 */
+	static int parseIndex(byte[] bytes, int from, int to) {
+		// 9 digits always fit in an int
+		if(from == to || to - from > 9) {
+			return NOT_DECODED;
+		}
+		int value = 0;
+		for(int i = from; i < to; i++) {
+			int digit = bytes[i] - '0';
+			if(digit < 0 || digit > 9) {
+				return NOT_DECODED;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+	
+	
+	/**
+	 * Decode a non negative decimal made of ASCII digits and an optional decimal point, like "53.38", "7" or ".5".
+	 * <p>
+	 * The digits are read as an integer and divided by a power of ten: when both are exact doubles, the only rounding
+	 * is the one of the division, so the result is the same double of {@link Double#parseDouble(String)}.
+	 *
+	 * @param bytes the bytes to decode
+	 * @param from  the first byte of the number
+	 * @param to    the byte after the last one of the number
+	 * @return the number, or {@link Double#NaN} if the bytes are not in the expected format or the number can't be
+	 * decoded exactly
+	 */
+	static double parseDecimal(byte[] bytes, int from, int to) {
+		return parseDecimal(bytes, from, to, (byte) '.');
+	}
+	
+	
+	/**
+	 * Decode a non negative decimal like {@link #parseDecimal(byte[], int, int)}, with the given decimal separator,
+	 * like "53,38" with a decimal comma.
+	 *
+	 * @param bytes            the bytes to decode
+	 * @param from             the first byte of the number
+	 * @param to               the byte after the last one of the number
+	 * @param decimalSeparator the ASCII byte between the integer part and the decimals
+	 * @return the number, or {@link Double#NaN} if the bytes are not in the expected format or the number can't be
+	 * decoded exactly
+	 */
+	static double parseDecimal(byte[] bytes, int from, int to, byte decimalSeparator) {
+		long mantissa = 0L;
+		int nOfDigits = 0;
+		int significantDigits = 0;
+		int decimals = 0;
+		boolean afterPoint = false;
+		for(int i = from; i < to; i++) {
+			byte b = bytes[i];
+			if(b == decimalSeparator && !afterPoint) {
+				afterPoint = true;
+				continue;
+			}
+			int digit = b - '0';
+			if(digit < 0 || digit > 9) {
+				return Double.NaN;
+			}
+			nOfDigits++;
+			if(afterPoint) {
+				decimals++;
+			}
+			if(mantissa != 0L || digit != 0) {
+				significantDigits++;
+			}
+			mantissa = mantissa * 10L + digit;
+			if(significantDigits > MAX_DIGITS) {
+				return Double.NaN;
+			}
+		}
+		if(nOfDigits == 0 || mantissa > MAX_EXACT_MANTISSA || decimals >= POWERS_OF_TEN.length) {
+			return Double.NaN;
+		}
+		return mantissa / POWERS_OF_TEN[decimals];
+	}
+	
+	
+	/**
+	 * @return the first byte from the given one that is not a space or a control character, like {@link String#trim()}
+	 */
+	static int skipSpaces(byte[] bytes, int from, int to) {
+		while(from < to && (bytes[from] & 0xFF) <= ' ') {
+			from++;
+		}
+		return from;
+	}
+	
+	
+	/**
+	 * @return the byte after the last one before the given one that is not a space or a control character, like
+	 * {@link String#trim()}
+	 */
+	static int skipTrailingSpaces(byte[] bytes, int from, int to) {
+		while(to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+			to--;
+		}
+		return to;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if {@link Integer#parseInt(String)} decodes the String without throwing an exception
+	 */
+	static boolean isInt(String value) {
+		int length = value.length();
+		int from = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+		if(from == length) {
+			return false;
+		}
+		for(int i = from; i < length; i++) {
+			// the digits of any script, like Integer.parseInt
+			if(Character.digit(value.charAt(i), 10) < 0) {
+				return false;
+			}
+		}
+		// without the leading zeros, up to 10 digits fit in a long to compare it with the range of an int
+		while(from < length - 1 && Character.digit(value.charAt(from), 10) == 0) {
+			from++;
+		}
+		if(length - from > 10) {
+			return false;
+		}
+		long number = Long.parseLong(value.substring(from));
+		return value.charAt(0) == '-' ? -number >= Integer.MIN_VALUE : number <= Integer.MAX_VALUE;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if {@link Double#parseDouble(String)} decodes the String without throwing an exception
+	 */
+	static boolean isDecimal(String value) {
+		return JAVA_DECIMAL.matcher(value).matches();
+	}
+	
+	
+	private static Pattern javaDecimal() {
+		String digits = "(\\p{Digit}+)";
+		String hexDigits = "(\\p{XDigit}+)";
+		// an exponent is 'e' or 'E' followed by an optionally signed decimal integer
+		String exp = "[eE][+-]?" + digits;
+		String number = "(" + digits + "(\\.)?(" + digits + "?)(" + exp + ")?)|"
+				+ "(\\.(" + digits + ")(" + exp + ")?)|"
+				+ "((" + "(0[xX]" + hexDigits + "(\\.)?)|(0[xX]" + hexDigits + "?(\\.)" + hexDigits + ")"
+				+ ")[pP][+-]?" + digits + ")";
+		return Pattern.compile("[\\x00-\\x20]*[+-]?(NaN|Infinity|((" + number + ")[fFdD]?))[\\x00-\\x20]*");
+	}
+	
+}
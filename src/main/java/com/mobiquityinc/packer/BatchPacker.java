@@ -0,0 +1,315 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.BatchSummary;
+import com.mobiquityinc.packer.entities.FileSummary;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Packs a batch of input files concurrently, writing the packages of each input file in its own output file. The
+ * files are packed by {@link PackerOpts#getBatchThreads() a bounded number of threads}, the biggest files first so a
+ * big file doesn't start when the others are finished. A file that fails doesn't stop the others, its error is in
+ * the {@link BatchSummary summary}.
+ * <p>
+ * It can be used from the command line:
+ * <pre>
+ * java -cp packer.jar com.mobiquityinc.packer.BatchPacker &lt;input directory or glob&gt; &lt;output directory&gt; [threads]
+ * </pre>
+ *
+ * @author Hector Blanco
+ */
+public final class BatchPacker {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchPacker.class);
+	
+	/**
+	 * Extension added to the name of an input file to name its output file
+	 */
+	public static final String OUTPUT_EXTENSION = ".out";
+	
+	// extension of the compressed output files
+	private static final String GZIP_EXTENSION = ".gz";
+	
+	// the characters that start the patterns of a glob
+	private static final String GLOB_CHARACTERS = "*?[{";
+	
+	// the files written by the packers next to their inputs and outputs, that are never inputs of a batch
+	private static final List<String> OWN_EXTENSIONS = Arrays.asList(OUTPUT_EXTENSION, OUTPUT_EXTENSION + GZIP_EXTENSION,
+			LineIndex.EXTENSION, CheckpointedPacker.CHECKPOINT_EXTENSION, ".tmp");
+	
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private BatchPacker() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Pack the input files found in a directory or by a glob, see {@link #packAll(List, Path, PackerOpts)}.
+	 *
+	 * @param dirOrGlob the directory with the input files, or a glob like <code>/data/in/**.txt</code>
+	 * @param outputDir the directory where the output files are written
+	 * @param options   the {@link PackerOpts options} of the packers, with the number of threads of the batch
+	 * @return the summary of the batch
+	 * @throws APIException if the input files can't be listed or the output directory can't be created
+	 */
+	public static BatchSummary packAll(String dirOrGlob, Path outputDir, PackerOpts options) throws APIException {
+		return packAll(findInputs(dirOrGlob), outputDir, options);
+	}
+	
+	
+	/**
+	 * Pack the input files concurrently, writing the packages of each one to the file of the output directory with
+	 * its name and the {@link #OUTPUT_EXTENSION} (and ".gz" if {@link PackerOpts#isGzipOutput()}). The output files
+	 * keep the directories of the inputs below the directory that contains all of them, so the files with the same
+	 * name in different directories (found by a recursive glob) don't share their output file. The output file of a
+	 * file that fails is removed.
+	 *
+	 * @param inputs    the input files
+	 * @param outputDir the directory where the output files are written
+	 * @param options   the {@link PackerOpts options} of the packers, with the number of threads of the batch
+	 * @return the summary of the batch, with the files in the same order of the inputs
+	 * @throws APIException if the output directories can't be created, or an input file is repeated
+	 */
+	public static BatchSummary packAll(List<Path> inputs, Path outputDir, PackerOpts options) throws APIException {
+		List<Path> outputs = outputFiles(inputs, outputDir, options);
+		
+		// the biggest files first
+		List<Integer> bySize = new ArrayList<>();
+		List<Long> sizes = new ArrayList<>();
+		for(int i = 0; i < inputs.size(); i++) {
+			bySize.add(i);
+			sizes.add(sizeOf(inputs.get(i)));
+		}
+		bySize.sort(Comparator.comparing(sizes::get, Comparator.reverseOrder()));
+		
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(options.getBatchThreads());
+		try {
+			List<Future<FileSummary>> futures = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+			for(int i : bySize) {
+				Path input = inputs.get(i);
+				Path output = outputs.get(i);
+				futures.set(i, executor.submit(() -> packFile(input, output, options)));
+			}
+			
+			List<FileSummary> byInput = new ArrayList<>();
+			for(Future<FileSummary> future : futures) {
+				byInput.add(future.get());
+			}
+			BatchSummary summary = new BatchSummary(byInput, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			LOGGER.debug("Batch of {} files packed in {} ms", inputs.size(), summary.getElapsedMillis());
+			return summary;
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Interrupted while packing the files", e);
+		} catch(ExecutionException e) {
+			// packFile doesn't throw, the errors of the files are in their summaries
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	/**
+	 * Find the input files: the regular files of a directory, or the regular files that match a glob. The files
+	 * written by the packers (outputs, line indexes, checkpoints and their temporary files) are skipped, so a batch
+	 * that writes its outputs in the input directory doesn't pack them in the next run.
+	 *
+	 * @param dirOrGlob the directory with the input files, or a glob like <code>/data/in/**.txt</code>
+	 * @return the input files, sorted by path
+	 * @throws APIException if the input files can't be listed
+	 */
+	public static List<Path> findInputs(String dirOrGlob) throws APIException {
+		Path dir = Paths.get(dirOrGlob);
+		boolean isDir = Files.isDirectory(dir);
+		PathMatcher matcher = isDir ? path -> true : FileSystems.getDefault().getPathMatcher("glob:" + dirOrGlob);
+		Path root = isDir ? dir : globRoot(dirOrGlob);
+		
+		try(Stream<Path> paths = isDir ? Files.list(root) : Files.walk(root)) {
+			return paths.filter(Files::isRegularFile).filter(matcher::matches).filter(path -> !isOwnFile(path))
+					.sorted().collect(Collectors.toList());
+		} catch(IOException e) {
+			throw new APIException(String.format("Input files of %s can't be listed", dirOrGlob), e);
+		}
+	}
+	
+	
+	/**
+	 * Command line interface: packs the files of a directory or a glob, prints the summary, and ends with status 1 if
+	 * any file failed.
+	 *
+	 * @param args input directory or glob, output directory and optionally the number of threads
+	 */
+	public static void main(String[] args) {
+		if(args.length < 2 || args.length > 3) {
+			System.err.println("Usage: BatchPacker <input directory or glob> <output directory> [threads]");
+			System.exit(2);
+		}
+		try {
+			PackerOpts options = new PackerOpts.Builder().with(obj -> {
+				obj.currencySymbol = "€";
+				if(args.length == 3) {
+					obj.batchThreads = Integer.parseInt(args[2]);
+				}
+			}).build();
+			
+			BatchSummary summary = packAll(args[0], Paths.get(args[1]), options);
+			System.out.println(summary);
+			System.exit(summary.getFailures().isEmpty() ? 0 : 1);
+		} catch(APIException | IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+	}
+	
+	
+	/**
+	 * Pack a file, the errors are in its summary.
+	 */
+	private static FileSummary packFile(Path input, Path output, PackerOpts options) {
+		long start = System.nanoTime();
+		APIException error = null;
+		try(OutputStream stream = Files.newOutputStream(output)) {
+			Packer.pack(input, stream, options);
+		} catch(APIException e) {
+			error = e;
+		} catch(IOException e) {
+			error = new APIException(String.format("Output file %s can't be written", output), e);
+		} catch(RuntimeException e) {
+			error = new APIException("Error creating the packages", e);
+		}
+		
+		if(error != null) {
+			LOGGER.warn("File {} failed: {}", input, error.getMessage());
+			deleteQuietly(output);
+		}
+		return new FileSummary(input, output, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), error);
+	}
+	
+	
+	/**
+	 * @return the output file of each input, in the same order, with their directories already created
+	 */
+	private static List<Path> outputFiles(List<Path> inputs, Path outputDir, PackerOpts options) throws APIException {
+		Path root = commonDirectory(inputs);
+		Map<Path, Path> inputOfOutput = new HashMap<>();
+		List<Path> outputs = new ArrayList<>();
+		for(Path input : inputs) {
+			Path absolute = input.toAbsolutePath().normalize();
+			Path relative = root == null ? absolute.getFileName() : root.relativize(absolute);
+			Path output = outputDir.resolve(relative + OUTPUT_EXTENSION + (options.isGzipOutput() ? GZIP_EXTENSION : ""));
+			Path previous = inputOfOutput.put(output, input);
+			if(previous != null) {
+				throw new APIException(String.format("Input files %s and %s have the same output file %s", previous, input, output));
+			}
+			outputs.add(output);
+		}
+		
+		Set<Path> outputDirs = new LinkedHashSet<>();
+		outputDirs.add(outputDir);
+		outputs.forEach(output -> outputDirs.add(output.getParent()));
+		for(Path dir : outputDirs) {
+			try {
+				Files.createDirectories(dir);
+			} catch(IOException e) {
+				throw new APIException(String.format("Output directory %s can't be created", dir), e);
+			}
+		}
+		return outputs;
+	}
+	
+	
+	/**
+	 * @return the deepest directory that contains all the inputs, <code>null</code> if they don't have any (like the
+	 * files of different drives)
+	 */
+	private static Path commonDirectory(List<Path> inputs) {
+		Path common = null;
+		for(int i = 0; i < inputs.size(); i++) {
+			Path parent = inputs.get(i).toAbsolutePath().normalize().getParent();
+			if(i == 0) {
+				common = parent;
+			}
+			while(common != null && (parent == null || !parent.startsWith(common))) {
+				common = common.getParent();
+			}
+		}
+		return common;
+	}
+	
+	
+	private static boolean isOwnFile(Path path) {
+		String name = path.getFileName().toString();
+		return OWN_EXTENSIONS.stream().anyMatch(name::endsWith);
+	}
+	
+	
+	/**
+	 * @return the directory before the first path element with glob characters
+	 */
+	private static Path globRoot(String glob) {
+		int wildcard = glob.length();
+		for(char c : GLOB_CHARACTERS.toCharArray()) {
+			int index = glob.indexOf(c);
+			if(index >= 0 && index < wildcard) {
+				wildcard = index;
+			}
+		}
+		String prefix = glob.substring(0, wildcard);
+		int separator = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf(File.separatorChar));
+		// a relative glob without directories matches the files of the working directory, without "./"
+		return separator < 0 ? Paths.get("") : Paths.get(prefix.substring(0, separator + 1));
+	}
+	
+	
+	private static long sizeOf(Path input) {
+		try {
+			return Files.size(input);
+		} catch(IOException e) {
+			// it will fail when it's packed
+			return 0L;
+		}
+	}
+	
+	
+	private static void deleteQuietly(Path output) {
+		try {
+			Files.deleteIfExists(output);
+		} catch(IOException e) {
+			LOGGER.warn("Output file {} can't be removed", output, e);
+		}
+	}
+	
+}
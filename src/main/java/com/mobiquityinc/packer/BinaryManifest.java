@@ -0,0 +1,184 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import com.mobiquityinc.packer.exception.IncorrectThingDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * Binary format of the input, to parse the text only once for the inputs that are packed many times. All the fields
+ * are little-endian and have a fixed width:
+ * <pre>
+ * header:  magic "PKBM" (4 bytes), version (int32)
+ * package: capacity (float64), number of things (int32), and for each thing:
+ *          index (int32), weight (float64), cost (float64)
+ * </pre>
+ * The packages follow the header until the end of the input, in the same order of the lines of the text input.
+ *
+ * @author Hector Blanco
+ */
+public final class BinaryManifest {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinaryManifest.class);
+	
+	/**
+	 * The first bytes of a binary manifest
+	 */
+	public static final byte[] MAGIC = {'P', 'K', 'B', 'M'};
+	
+	/**
+	 * The version of the format written by {@link #convert(Path, Path, PackerOpts)}
+	 */
+	public static final int VERSION = 1;
+	
+	// bytes of the header, of a package without things, and of each thing
+	private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+	private static final int PACKAGE_SIZE = Double.BYTES + Integer.BYTES;
+	private static final int THING_SIZE = Integer.BYTES + 2 * Double.BYTES;
+	
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private BinaryManifest() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Convert a text input file to a binary manifest. The text is parsed with the same rules and errors of
+	 * {@link Packer#pack(String, PackerOpts)}.
+	 *
+	 * @param textInput      path of the text input file
+	 * @param binaryManifest path of the binary manifest to write, replaced if it exists
+	 * @param options        the {@link PackerOpts options} to parse the text
+	 * @return the number of packages written
+	 * @throws APIException in case of any error parsing the text or writing the manifest
+	 */
+	public static long convert(Path textInput, Path binaryManifest, PackerOpts options) throws APIException {
+		Packer packer = new Packer(options);
+		File input = packer.checkInputFile(textInput == null ? null : textInput.toString());
+		
+		long nOfPackages = 0L;
+		try(ByteLineIterator it = packer.getFileLineIterator(input);
+			OutputStream output = new BufferedOutputStream(Files.newOutputStream(binaryManifest))) {
+			writeHeader(output);
+			List<Thing> things = new ArrayList<>();
+			ByteBuffer record = ByteBuffer.allocate(PACKAGE_SIZE + options.getMaxThings() * THING_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			while(it.hasNext()) {
+				it.nextLine();
+				things.clear();
+				double packageWeight = packer.parseLine(it.getBuffer(), it.getLineStart(), it.getLineEnd(), things);
+				
+				record.clear();
+				record.putDouble(packageWeight).putInt(things.size());
+				for(Thing thing : things) {
+					record.putInt(thing.getIndex()).putDouble(thing.getWeight()).putDouble(thing.getCost());
+				}
+				output.write(record.array(), 0, record.position());
+				nOfPackages++;
+			}
+		} catch(IOException e) {
+			throw new APIException("Error converting input file to binary manifest", e);
+		}
+		LOGGER.debug("Converted {} packages from {} to {}", nOfPackages, textInput, binaryManifest);
+		return nOfPackages;
+	}
+	
+	
+	/**
+	 * Read the packages of a binary manifest, from the position to the limit of the buffer, and give the package
+	 * assembled for each one to the consumer, in the same order. The position of the buffer doesn't change.
+	 * <p>
+	 * The packages are checked with the same rules and errors of the text input, the values are written in the errors
+	 * as {@link Double#toString(double)} writes them.
+	 */
+	static void createAllPackages(Packer packer, ByteBuffer manifest, int maxThings, Consumer<PackageSolution> consumer)
+			throws APIException {
+		ByteBuffer input = manifest.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			readHeader(input);
+			List<Thing> things = new ArrayList<>();
+			while(input.hasRemaining()) {
+				double packageWeight = input.getDouble();
+				Packer.checkPackageWeight(packageWeight, Double.toString(packageWeight));
+				int nOfThings = input.getInt();
+				if(nOfThings < 0) {
+					throw new APIException(String.format("Package %s has a negative number of things: %d", packageWeight, nOfThings));
+				}
+				if(nOfThings > maxThings) {
+					throw new APIException(String.format("Package %s has more than %d things to be chosen.", packageWeight, maxThings));
+				}
+				if(input.remaining() < nOfThings * THING_SIZE) {
+					throw new BufferUnderflowException();
+				}
+				
+				things.clear();
+				for(int i = 0; i < nOfThings; i++) {
+					things.add(readThing(input));
+				}
+				consumer.accept(packer.assemblePackage(things, packageWeight));
+			}
+		} catch(BufferUnderflowException e) {
+			throw new APIException("Binary manifest is truncated", e);
+		}
+	}
+	
+	
+	/**
+	 * Read a thing and check its fields like {@link Packer#extractThingFromInput(String)} does
+	 */
+	private static Thing readThing(ByteBuffer input) throws IncorrectThingDefinition {
+		int index = input.getInt();
+		if(index < 0) {
+			throw new IncorrectThingDefinition("Thing's index is negative: \"" + index + "\"");
+		}
+		double weight = input.getDouble();
+		Packer.checkThingValue(weight, "weight", Double.toString(weight));
+		double cost = input.getDouble();
+		Packer.checkThingValue(cost, "cost", Double.toString(cost));
+		return new Thing(index, weight, cost);
+	}
+	
+	
+	private static void writeHeader(OutputStream output) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(MAGIC).putInt(VERSION);
+		output.write(header.array());
+	}
+	
+	
+	private static void readHeader(ByteBuffer input) throws APIException {
+		if(input.remaining() < HEADER_SIZE) {
+			throw new APIException("Input is not a binary manifest");
+		}
+		for(byte magic : MAGIC) {
+			if(input.get() != magic) {
+				throw new APIException("Input is not a binary manifest");
+			}
+		}
+		int version = input.getInt();
+		if(version != VERSION) {
+			throw new APIException(String.format("Unsupported binary manifest version %d", version));
+		}
+	}
+	
+}
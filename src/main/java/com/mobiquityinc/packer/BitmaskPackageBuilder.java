@@ -0,0 +1,241 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Builder of packages that works like {@link PackageBuilder}, but represents every combination of things as an
+ * <code>int</code> bitmask instead of a String. Bit <code>i</code> of a combination is set when the i-th thing of the
+ * input list is part of it.
+ * <p>
+ * Weight and cost of every combination are kept in primitive tables indexed by the bitmask, so no String, boxed
+ * Double or map entry is created while the combinations are evaluated. The winning bitmask is converted to the
+ * "1,3,7" representation only once, at the end.
+ * <p>
+ * An instance keeps its tables between calls and it's meant to be reused for all the packages of an input file.
+ * Instances are not thread safe.
+ *
+ * @author Hector Blanco
+ */
+class BitmaskPackageBuilder {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(BitmaskPackageBuilder.class);
+	
+	/**
+	 * Max number of things this builder accepts, the tables grow as 2^n so we must stop somewhere
+	 */
+	static final int MAX_THINGS = 20;
+	
+	// no combination is made of zero things, so the empty bitmask is used as "no package"
+	private static final int NO_PACKAGE = 0;
+	
+	// weight and cost of the combinations, indexed by the combination's bitmask
+	private double[] weightTable;
+	private double[] costTable;
+	
+	// the combinations that fit in the package, in the same order that PackageBuilder creates them
+	private int[] combinations;
+	private int nOfCombinations;
+	
+	
+	/**
+	 * Default constructor, tables are created on first usage.
+	 * Not intended to be used outside of this library.
+	 */
+	BitmaskPackageBuilder() {
+		weightTable = new double[0];
+		costTable = new double[0];
+		combinations = new int[0];
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException In case of any error during package assemble
+	 */
+	static Optional<String> assemblePackage(List<Thing> things, double packageWeight) throws APIException {
+		return new BitmaskPackageBuilder().resolveBetterPackage(things, packageWeight);
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 * <p>
+	 * The combinations are created and compared in the exact same order of {@link PackageBuilder#resolveBetterPackage},
+	 * so both builders choose the same package, even when two combinations have the same cost and weight.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException if there are more than {@link #MAX_THINGS} things
+	 */
+	Optional<String> resolveBetterPackage(List<Thing> things, double packageWeight) throws APIException {
+		int nOfThings = things.size();
+		if(nOfThings > MAX_THINGS) {
+			throw new APIException(String.format("Package %s has more than %d things to be combined.", packageWeight, MAX_THINGS));
+		}
+		ensureCapacity(nOfThings);
+		nOfCombinations = 0;
+		
+		// keep a reference to the better package created until now
+		int betterPackage = NO_PACKAGE;
+		
+		for(int i = 0; i < nOfThings; i++) {
+			Thing aThing = things.get(i);
+			int thingBit = 1 << i;
+			double thingWeight = aThing.getWeight();
+			double thingCost = aThing.getCost();
+			
+			// same as PackageBuilder: append the new thing to every combination made until now, and keep only
+			// the new combinations that fit in the package
+			int nOfCurrentCombinations = nOfCombinations;
+			for(int c = 0; c < nOfCurrentCombinations; c++) {
+				int aCombination = combinations[c];
+				double newWeight = weightTable[aCombination] + thingWeight;
+				if(newWeight <= packageWeight) {
+					int newCombination = aCombination | thingBit;
+					addCombination(newCombination, newWeight, costTable[aCombination] + thingCost);
+					betterPackage = chooseBetterPackageCombination(betterPackage, newCombination);
+				}
+			}
+			
+			// the thing by itself is a combination that should be evaluated
+			if(thingWeight <= packageWeight) {
+				addCombination(thingBit, thingWeight, thingCost);
+				betterPackage = chooseBetterPackageCombination(betterPackage, thingBit);
+			}
+		}
+		LOGGER.debug("Evaluated {} combinations, better package: {}", nOfCombinations, betterPackage);
+		
+		// It's possible that none of the things alone or in combination is a fit for the package
+		if(betterPackage == NO_PACKAGE) {
+			return Optional.empty();
+		}
+		return Optional.of(toIndexString(betterPackage, things));
+	}
+	
+	
+	/**
+	 * Choose between the current package and a new combination which one is the best composition, with the same
+	 * rules of {@link PackageBuilder}: higher cost wins, with the same cost the lighter wins, otherwise the current
+	 * package is kept.
+	 *
+	 * @param aPackage     the bitmask of the package already chosen, {@link #NO_PACKAGE} if none
+	 * @param aCombination the bitmask of the new combination
+	 * @return the bitmask of the better choice
+	 */
+	int chooseBetterPackageCombination(int aPackage, int aCombination) {
+		// no package combination can have a negative cost, so -1 is the cost of "no package"
+		double aPackageCost = aPackage == NO_PACKAGE ? -1D : costTable[aPackage];
+		double aCombinationCost = costTable[aCombination];
+		
+		if(aCombinationCost > aPackageCost) {
+			return aCombination;
+		}
+		
+		// PackageBuilder compares the costs with Double.equals, so we compare the bits to keep the same behaviour
+		if(aPackage != NO_PACKAGE
+				&& Double.doubleToLongBits(aCombinationCost) == Double.doubleToLongBits(aPackageCost)
+				&& weightTable[aCombination] < weightTable[aPackage]) {
+			return aCombination;
+		}
+		
+		return aPackage;
+	}
+	
+	
+	/**
+	 * Check if a combination is created before another one by {@link PackageBuilder}, which is the order used to
+	 * choose between two combinations with the same cost and weight.
+	 * <p>
+	 * PackageBuilder creates first all the combinations of the first k things, then each of them with the thing k+1
+	 * appended, and then the thing k+1 alone. So, looking at the highest thing where the two combinations differ,
+	 * the combination that has it comes first only if the other one has no thing below it.
+	 *
+	 * @param aCombination      a non empty combination's bitmask
+	 * @param anotherCombination another non empty combination's bitmask
+	 * @return <code>true</code> if aCombination is created before anotherCombination
+	 */
+	static boolean isCreatedBefore(long aCombination, long anotherCombination) {
+		long difference = aCombination ^ anotherCombination;
+		if(difference == 0L) {
+			return false;
+		}
+		long highestBit = Long.highestOneBit(difference);
+		long lowerBits = highestBit - 1;
+		if((aCombination & highestBit) != 0) {
+			return (anotherCombination & lowerBits) == 0;
+		}
+		return (aCombination & lowerBits) != 0;
+	}
+	
+	
+	/**
+	 * Convert a combination's bitmask to the indexes of its things separated by commas, like "1,3,7"
+	 *
+	 * @param aCombination the combination's bitmask
+	 * @param things       the things the bitmask refers to
+	 * @return the things' indexes separated by commas
+	 */
+	static String toIndexString(long aCombination, List<Thing> things) {
+		StringBuilder sb = new StringBuilder();
+		for(long bits = aCombination; bits != 0; bits &= bits - 1) {
+			if(sb.length() > 0) {
+				sb.append(',');
+			}
+			sb.append(things.get(Long.numberOfTrailingZeros(bits)).getIndex());
+		}
+		return sb.toString();
+	}
+	
+	
+	private void addCombination(int aCombination, double weight, double cost) {
+		weightTable[aCombination] = weight;
+		costTable[aCombination] = cost;
+		combinations[nOfCombinations++] = aCombination;
+	}
+	
+	
+	/**
+	 * Grow the tables, if needed, to hold every combination of the given number of things.
+	 * Old values are never read again, so there's no need to clear them.
+	 */
+	private void ensureCapacity(int nOfThings) {
+		int size = 1 << nOfThings;
+		if(weightTable.length < size) {
+			weightTable = new double[size];
+			costTable = new double[size];
+			// the empty combination is never stored
+			combinations = new int[size - 1];
+		}
+	}
+	
+	
+	//
+	// Getters with PACKAGE visibility to allow manipulation during tests
+	//
+	
+	
+	double[] getWeightTable() {
+		return weightTable;
+	}
+	
+	
+	double[] getCostTable() {
+		return costTable;
+	}
+	
+}
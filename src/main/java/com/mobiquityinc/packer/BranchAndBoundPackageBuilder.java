@@ -0,0 +1,273 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Builder of packages based on a depth-first "branch and bound" search.
+ * <p>
+ * The things are sorted by their cost/weight ratio, the most valuable first, and the search decides for each one of
+ * them if it goes inside the package or not. Before going down a branch, the builder calculates the best cost that the
+ * branch could reach if things could be split (the fractional knapsack relaxation, that is always an upper bound of
+ * the real one), and if it can not reach the cost of the better package found until now the whole branch is skipped.
+ * When a few heavy things don't fit together in the package, most of the branches are never visited.
+ * <p>
+ * The rules to choose a package are the same of {@link PackageBuilder}: higher cost wins, and with the same cost the
+ * lighter wins. When two combinations have the same cost and weight, the one found first is kept, which is not
+ * always the same combination chosen by {@link PackageBuilder}.
+ * <p>
+ * The search starts from the greedy package (the things by ratio, skipping the ones that don't fit), and with a
+ * deadline it stops when the time is over, giving the better package found so far.
+ *
+ * @author Hector Blanco
+ */
+class BranchAndBoundPackageBuilder {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(BranchAndBoundPackageBuilder.class);
+	
+	/**
+	 * Max number of things this builder accepts, the combinations are kept as bitmask of a long
+	 */
+	static final int MAX_THINGS = 63;
+	
+	// nodes visited between two checks of the deadline
+	private static final long DEADLINE_CHECK_MASK = 1023L;
+	
+	// relative tolerance of the bound, the costs are summed in a different order and could differ in the last bits
+	private static final double BOUND_TOLERANCE = 1e-9;
+	
+	// the things' weight and cost, sorted by cost/weight ratio
+	private double[] weights;
+	private double[] costs;
+	// position in the input list of each sorted thing
+	private int[] positions;
+	private double packageWeight;
+	
+	// the better package found until now, as bitmask of the positions in the input list
+	private long betterPackage;
+	private double betterCost;
+	private double betterWeight;
+	private long nOfVisitedNodes;
+	
+	// System.nanoTime after which the search stops, and if it stopped before visiting all the branches
+	private long deadline;
+	private boolean hasDeadline;
+	private boolean timedOut;
+	
+	
+	/**
+	 * Default constructor.
+	 * Not intended to be used outside of this library.
+	 */
+	BranchAndBoundPackageBuilder() {
+		// nothing to initialize, everything depends on the things of each package
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException In case of any error during package assemble
+	 */
+	static Optional<String> assemblePackage(List<Thing> things, double packageWeight) throws APIException {
+		return new BranchAndBoundPackageBuilder().resolveBetterPackage(things, packageWeight);
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException if there are more than {@link #MAX_THINGS} things
+	 */
+	Optional<String> resolveBetterPackage(List<Thing> things, double packageWeight) throws APIException {
+		hasDeadline = false;
+		return search(things, packageWeight);
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things that can be found before the deadline.
+	 * Use {@link #isOptimal()} to know if the search ended before the deadline.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @param deadline      the {@link System#nanoTime()} after which the search stops
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException if there are more than {@link #MAX_THINGS} things
+	 */
+	Optional<String> resolveBetterPackage(List<Thing> things, double packageWeight, long deadline) throws APIException {
+		this.hasDeadline = true;
+		this.deadline = deadline;
+		return search(things, packageWeight);
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the last package was assembled visiting all the branches that could beat it
+	 */
+	boolean isOptimal() {
+		return !timedOut;
+	}
+	
+	
+	private Optional<String> search(List<Thing> things, double packageWeight) throws APIException {
+		int nOfThings = things.size();
+		if(nOfThings > MAX_THINGS) {
+			throw new APIException(String.format("Package %s has more than %d things to be combined.", packageWeight, MAX_THINGS));
+		}
+		sortByRatio(things);
+		this.packageWeight = packageWeight;
+		betterPackage = 0L;
+		betterCost = -1D;
+		betterWeight = 0D;
+		nOfVisitedNodes = 0L;
+		timedOut = false;
+		
+		greedySeed();
+		search(0, 0D, 0D, 0L);
+		LOGGER.debug("Visited {} nodes, better package: {}, timed out: {}", nOfVisitedNodes, betterPackage, timedOut);
+		
+		// It's possible that none of the things alone or in combination is a fit for the package
+		if(betterPackage == 0L) {
+			return Optional.empty();
+		}
+		return Optional.of(BitmaskPackageBuilder.toIndexString(betterPackage, things));
+	}
+	
+	
+	/**
+	 * Decide if the k-th sorted thing goes inside the package, first trying to put it inside and then leaving it out.
+	 *
+	 * @param k           the sorted thing to decide
+	 * @param weight      the weight of the things already inside the package
+	 * @param cost        the cost of the things already inside the package
+	 * @param combination the things already inside the package, as bitmask of their positions in the input list
+	 */
+	private void search(int k, double weight, double cost, long combination) {
+		nOfVisitedNodes++;
+		if(k == weights.length || isTimedOut()) {
+			return;
+		}
+		
+		// this branch can't beat (or tie) the better package, no need to go down
+		if(cost + upperBound(k, packageWeight - weight) < betterCost - BOUND_TOLERANCE * Math.max(1D, betterCost)) {
+			return;
+		}
+		
+		double newWeight = weight + weights[k];
+		if(newWeight <= packageWeight) {
+			double newCost = cost + costs[k];
+			long newCombination = combination | (1L << positions[k]);
+			if(newCost > betterCost || (newCost == betterCost && newWeight < betterWeight)) {
+				betterPackage = newCombination;
+				betterCost = newCost;
+				betterWeight = newWeight;
+			}
+			search(k + 1, newWeight, newCost, newCombination);
+		}
+		search(k + 1, weight, cost, combination);
+	}
+	
+	
+	/**
+	 * The deadline is checked every {@link #DEADLINE_CHECK_MASK} nodes, System.nanoTime is too slow for every node.
+	 */
+	private boolean isTimedOut() {
+		if(!timedOut && hasDeadline && (nOfVisitedNodes & DEADLINE_CHECK_MASK) == 0L && System.nanoTime() - deadline >= 0L) {
+			timedOut = true;
+		}
+		return timedOut;
+	}
+	
+	
+	/**
+	 * Start from the greedy package: the sorted things that fit, in order. It's usually close to the better package,
+	 * so the bound cuts more branches from the beginning, and it's the package returned if there is no time for more.
+	 */
+	private void greedySeed() {
+		double weight = 0D;
+		double cost = 0D;
+		long combination = 0L;
+		for(int k = 0; k < weights.length; k++) {
+			if(weight + weights[k] <= packageWeight) {
+				weight += weights[k];
+				cost += costs[k];
+				combination |= 1L << positions[k];
+			}
+		}
+		if(combination != 0L) {
+			betterPackage = combination;
+			betterCost = cost;
+			betterWeight = weight;
+		}
+	}
+	
+	
+	/**
+	 * The fractional knapsack relaxation: the max cost that the sorted things from k onwards could add to the package
+	 * if they could be split. Because the things are sorted by ratio, it's enough to take them in order and split the
+	 * first one that doesn't fit.
+	 *
+	 * @param k         the first sorted thing that can be added
+	 * @param remaining the weight that the package can still take
+	 * @return the upper bound of the cost that can be added
+	 */
+	private double upperBound(int k, double remaining) {
+		double bound = 0D;
+		for(int i = k; i < weights.length; i++) {
+			if(weights[i] <= remaining) {
+				remaining -= weights[i];
+				bound += costs[i];
+			} else {
+				return bound + costs[i] * (remaining / weights[i]);
+			}
+		}
+		return bound;
+	}
+	
+	
+	/**
+	 * Sort the things by cost/weight ratio, highest first. Things that weigh nothing have an infinite ratio.
+	 */
+	private void sortByRatio(List<Thing> things) {
+		int nOfThings = things.size();
+		Integer[] order = new Integer[nOfThings];
+		for(int i = 0; i < nOfThings; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingDouble((Integer i) -> ratio(things.get(i))).reversed());
+		
+		weights = new double[nOfThings];
+		costs = new double[nOfThings];
+		positions = new int[nOfThings];
+		for(int k = 0; k < nOfThings; k++) {
+			Thing thing = things.get(order[k]);
+			weights[k] = thing.getWeight();
+			costs[k] = thing.getCost();
+			positions[k] = order[k];
+		}
+	}
+	
+	
+	private static double ratio(Thing thing) {
+		return thing.getWeight() == 0D ? Double.POSITIVE_INFINITY : thing.getCost() / thing.getWeight();
+	}
+	
+}
@@ -0,0 +1,220 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.PackageRequest;
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import com.mobiquityinc.packer.exception.IncorrectThingDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+
+/**
+ * Assembles the packages of requests already in memory in a {@link ForkJoinPool}, without writing them to an input
+ * file. The requests are split in two halves of about the same estimated cost, only while the pool doesn't have
+ * enough queued tasks to keep its threads busy: a few big packages get a thread each, and many small packages are
+ * solved in big ranges without the overhead of a task each. Idle threads steal the halves left by the others.
+ * <p>
+ * The engines can't be shared between threads, so each range takes an idle {@link Packer} of the call, or a new one
+ * when all of them are solving other ranges, and gives it back when it's solved: the packers belong to the call, not
+ * to the threads of the pool that outlive it. The packages are given in the order of the requests, and so are the
+ * errors.
+ *
+ * @author Hector Blanco
+ */
+class BulkPacker {
+	
+	// a range is split while the thread has less than this number of tasks queued that no other thread has stolen
+	private static final int MAX_SURPLUS_TASKS = 2;
+	
+	// the estimated cost of a package doubles with each thing, up to this number of things
+	private static final int MAX_COST_EXPONENT = 60;
+	
+	// the packer with the engine already checked, the first one to solve the requests
+	private final Packer packer;
+	
+	// the options of the packers
+	private final PackerOpts opts;
+	
+	
+	/**
+	 * Constructor with the first packer of the requests.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param packer the packer that solves the requests until other threads need their own
+	 * @param opts   the options of the packer, with the pool that solves the requests
+	 */
+	BulkPacker(Packer packer, PackerOpts opts) {
+		this.packer = packer;
+		this.opts = opts;
+	}
+	
+	
+	/**
+	 * Assemble the package of each request.
+	 *
+	 * @param requests the requests, that don't change while they are solved
+	 * @return the packages, in the order of the requests
+	 * @throws APIException the error of the first wrong request, when the options are not lenient
+	 */
+	List<PackageSolution> packAll(List<PackageRequest> requests) throws APIException {
+		int nOfRequests = requests.size();
+		double[] costs = new double[nOfRequests + 1];
+		for(int i = 0; i < nOfRequests; i++) {
+			PackageRequest request = requests.get(i);
+			int nOfThings = request == null || request.getThings() == null ? 0 : request.getThings().size();
+			costs[i + 1] = costs[i] + Math.scalb(1D, Math.min(nOfThings, MAX_COST_EXPONENT));
+		}
+		
+		Object[] results = new Object[nOfRequests];
+		Queue<Packer> idle = new ConcurrentLinkedQueue<>();
+		idle.add(packer);
+		ForkJoinPool pool = opts.getForkJoinPool() == null ? ForkJoinPool.commonPool() : opts.getForkJoinPool();
+		pool.invoke(new SolveTask(requests, costs, results, idle, 0, nOfRequests));
+		
+		// the errors are given by the calling thread, in the order of the requests
+		List<PackageSolution> solutions = new ArrayList<>(nOfRequests);
+		Consumer<LineError> errorSink = packer.getErrorSink();
+		for(int i = 0; i < nOfRequests; i++) {
+			if(results[i] instanceof APIException) {
+				if(!opts.isLenient()) {
+					throw (APIException) results[i];
+				}
+				errorSink.accept(new LineError(i + 1L, LineError.WHOLE_LINE, ((APIException) results[i]).getMessage()));
+				solutions.add(packer.errorPlaceholder());
+			} else {
+				solutions.add((PackageSolution) results[i]);
+			}
+		}
+		return solutions;
+	}
+	
+	
+	/**
+	 * Check a request like the lines of the input file are checked, with the same errors.
+	 */
+	private APIException checkRequest(PackageRequest request, int position) {
+		boolean writableStackTrace = !opts.isLenient();
+		if(request == null || request.getPackageWeight() == null || request.getThings() == null) {
+			return new APIException(String.format("Package request %d is incomplete", position + 1), null, writableStackTrace);
+		}
+		try {
+			Packer.checkPackageWeight(request.getPackageWeight(), request.getPackageWeight().toString(), writableStackTrace);
+			if(request.getThings().size() > opts.getMaxThings()) {
+				return new APIException(String.format("Package %s has more than %d things to be chosen.",
+						request.getPackageWeight(), opts.getMaxThings()), null, writableStackTrace);
+			}
+			for(Thing thing : request.getThings()) {
+				if(thing == null || thing.getIndex() == null || thing.getWeight() == null || thing.getCost() == null) {
+					return new IncorrectThingDefinition("Incorrect format for thing in input: " + thing, null, writableStackTrace);
+				}
+				if(thing.getIndex() < 0) {
+					return new IncorrectThingDefinition("Thing's index is negative: \"" + thing.getIndex() + "\"", null, writableStackTrace);
+				}
+				Packer.checkThingValue(thing.getWeight(), "weight", thing.getWeight().toString(), writableStackTrace);
+				Packer.checkThingValue(thing.getCost(), "cost", thing.getCost().toString(), writableStackTrace);
+			}
+		} catch(APIException e) {
+			return e;
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Solves a range of requests, splitting it while the pool needs more tasks.
+	 */
+	private final class SolveTask extends RecursiveAction {
+		
+		private final transient List<PackageRequest> requests;
+		private final double[] costs;
+		private final Object[] results;
+		private final transient Queue<Packer> idle;
+		private final int from;
+		private final int to;
+		
+		
+		SolveTask(List<PackageRequest> requests, double[] costs, Object[] results, Queue<Packer> idle, int from,
+		          int to) {
+			this.requests = requests;
+			this.costs = costs;
+			this.results = results;
+			this.idle = idle;
+			this.from = from;
+			this.to = to;
+		}
+		
+		
+		@Override
+		protected void compute() {
+			List<SolveTask> forked = new ArrayList<>();
+			int end = to;
+			while(end - from > 1 && getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS) {
+				int middle = costMiddle(from, end);
+				SolveTask secondHalf = new SolveTask(requests, costs, results, idle, middle, end);
+				secondHalf.fork();
+				forked.add(secondHalf);
+				end = middle;
+			}
+			
+			Packer rangePacker = idle.poll();
+			if(rangePacker == null) {
+				rangePacker = new Packer(opts);
+			}
+			try {
+				for(int i = from; i < end; i++) {
+					results[i] = solve(rangePacker, i);
+				}
+			} finally {
+				idle.add(rangePacker);
+			}
+			
+			// the last forked is the first to be popped back if no other thread stole it
+			for(int i = forked.size() - 1; i >= 0; i--) {
+				forked.get(i).join();
+			}
+		}
+		
+		
+		private Object solve(Packer packer, int position) {
+			PackageRequest request = requests.get(position);
+			APIException error = checkRequest(request, position);
+			if(error != null) {
+				return error;
+			}
+			try {
+				return packer.assemblePackage(request.getThings(), request.getPackageWeight());
+			} catch(APIException e) {
+				return e;
+			}
+		}
+		
+		
+		/**
+		 * @return the position that splits the range in two halves of about the same estimated cost, each one with
+		 * at least a request
+		 */
+		private int costMiddle(int start, int end) {
+			double half = (costs[start] + costs[end]) / 2D;
+			int low = start + 1;
+			int high = end - 1;
+			while(low < high) {
+				int middle = (low + high) >>> 1;
+				if(costs[middle] < half) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+	
+}
@@ -0,0 +1,53 @@
+package com.mobiquityinc.packer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+
+/**
+ * An InputStream over the remaining bytes of a ByteBuffer, like a memory-mapped chunk of a file.
+ *
+ * @author Hector Blanco
+ */
+class ByteBufferInputStream extends InputStream {
+	
+	private final ByteBuffer buffer;
+	
+	
+	/**
+	 * Constructor with the buffer to read, from its position to its limit.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param buffer the buffer to read
+	 */
+	ByteBufferInputStream(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+	
+	
+	@Override
+	public int read() {
+		return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+	}
+	
+	
+	@Override
+	public int read(byte[] bytes, int offset, int length) {
+		if(length == 0) {
+			return 0;
+		}
+		if(!buffer.hasRemaining()) {
+			return -1;
+		}
+		int read = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, read);
+		return read;
+	}
+	
+	
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+	
+}
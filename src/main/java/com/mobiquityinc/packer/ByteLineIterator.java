@@ -0,0 +1,206 @@
+package com.mobiquityinc.packer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Iterator over the lines of an UTF-8 input, without decoding them to Strings: each line is a range of bytes of a
+ * buffer reused for all the lines, valid until the next call to {@link #hasNext()} or {@link #nextLine()}.
+ * <p>
+ * Lines end like in {@link java.io.BufferedReader#readLine()}: with '\n', '\r' or "\r\n", and the last line can end
+ * without them. The buffer grows when a line is longer than the buffer.
+ *
+ * @author Hector Blanco
+ */
+class ByteLineIterator implements Closeable {
+	
+	// initial size of the buffer
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final InputStream input;
+	
+	// bytes read from the input, the ones from position to limit are not consumed yet
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private boolean endOfInput;
+	
+	// bytes of the input before the first byte of the buffer
+	private long bufferOffset;
+	
+	// the last line ended with '\r', if a '\n' follows it's part of the same line terminator
+	private boolean afterCarriageReturn;
+	
+	// the current line
+	private int lineStart;
+	private int lineEnd;
+	
+	
+	/**
+	 * Create an iterator over the lines of the input, that will be closed with this iterator.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param input the input to read
+	 */
+	ByteLineIterator(InputStream input) {
+		this.input = input;
+		this.buffer = new byte[BUFFER_SIZE];
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if there is another line
+	 * @throws IOException in case of an I/O error
+	 */
+	boolean hasNext() throws IOException {
+		if(position == limit) {
+			fill();
+		}
+		// "\r\n" is a single line terminator, the '\n' can be read only now
+		if(afterCarriageReturn && position < limit) {
+			afterCarriageReturn = false;
+			if(buffer[position] == '\n') {
+				position++;
+				return hasNext();
+			}
+		}
+		return position < limit;
+	}
+	
+	
+	/**
+	 * Move to the next line, available with {@link #getBuffer()}, {@link #getLineStart()} and {@link #getLineEnd()}.
+	 *
+	 * @throws IOException in case of an I/O error
+	 */
+	void nextLine() throws IOException {
+		if(!hasNext()) {
+			throw new NoSuchElementException("No more lines");
+		}
+		int scanned = position;
+		while(true) {
+			for(int i = scanned; i < limit; i++) {
+				byte b = buffer[i];
+				if(b == '\n' || b == '\r') {
+					lineStart = position;
+					lineEnd = i;
+					position = i + 1;
+					afterCarriageReturn = b == '\r';
+					return;
+				}
+			}
+			scanned = limit - position;
+			if(endOfInput || !fill()) {
+				// last line, without line terminator
+				lineStart = position;
+				lineEnd = limit;
+				position = limit;
+				return;
+			}
+			scanned += position;
+		}
+	}
+	
+	
+	/**
+	 * @return the buffer with the current line
+	 */
+	byte[] getBuffer() {
+		return buffer;
+	}
+	
+	
+	/**
+	 * @return the position in the buffer of the first byte of the current line
+	 */
+	int getLineStart() {
+		return lineStart;
+	}
+	
+	
+	/**
+	 * @return the position in the buffer after the last byte of the current line, without the line terminator
+	 */
+	int getLineEnd() {
+		return lineEnd;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if all the bytes read from the input are consumed, and the next line will wait for
+	 * the input (a socket or the standard input could block)
+	 */
+	boolean isDrained() {
+		return position == limit;
+	}
+	
+	
+	/**
+	 * @return the bytes of the input consumed by the lines read so far, and by the line terminator of the last one
+	 * once {@link #hasNext()} is called
+	 */
+	long getConsumedBytes() {
+		return bufferOffset + position;
+	}
+	
+	
+	/**
+	 * @return the byte of the input where the current line starts
+	 */
+	long getLineOffset() {
+		return bufferOffset + lineStart;
+	}
+	
+	
+	/**
+	 * @return the current line decoded to a String, for the logs and the errors
+	 */
+	String getLine() {
+		return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+	}
+	
+	
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+	
+	
+	/**
+	 * Read more bytes after the ones not consumed yet, moving them at the beginning of the buffer or growing it
+	 * when the buffer is full.
+	 *
+	 * @return <code>false</code> if the input has no more bytes
+	 */
+	private boolean fill() throws IOException {
+		if(endOfInput) {
+			return false;
+		}
+		int remaining = limit - position;
+		bufferOffset += position;
+		if(position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+		} else if(remaining == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		position = 0;
+		limit = remaining;
+		
+		int read = input.read(buffer, limit, buffer.length - limit);
+		while(read == 0) {
+			read = input.read(buffer, limit, buffer.length - limit);
+		}
+		if(read < 0) {
+			endOfInput = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+	
+}
@@ -0,0 +1,193 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+
+/**
+ * Writes the packages of an input file to an output file, saving a checkpoint next to the output every
+ * {@link PackerOpts#getCheckpointLines() some lines}: the bytes of the input and the lines already packed, and the
+ * bytes of the output already written. With {@link PackerOpts#isResume()} the packing starts again from the last
+ * checkpoint, and the output is the same of a packing that never stopped.
+ * <p>
+ * The checkpoint is removed when the whole input is packed. The input is read in the calling thread, and it can't be
+ * compressed.
+ *
+ * @author Hector Blanco
+ */
+class CheckpointedPacker {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointedPacker.class);
+	
+	/**
+	 * Extension added to the name of the output file to name its checkpoint
+	 */
+	static final String CHECKPOINT_EXTENSION = ".checkpoint";
+	
+	// the properties of a checkpoint
+	private static final String INPUT_SIZE = "inputSize";
+	private static final String BYTE_OFFSET = "byteOffset";
+	private static final String LINE_NUMBER = "lineNumber";
+	private static final String OUTPUT_OFFSET = "outputOffset";
+	
+	// the packer that parses and solves the lines
+	private final Packer packer;
+	
+	// the options with the checkpoint interval
+	private final PackerOpts opts;
+	
+	
+	/**
+	 * Constructor with the packer of the lines.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param packer the packer that parses and solves the lines
+	 * @param opts   the options of the packer, with the checkpoint interval
+	 */
+	CheckpointedPacker(Packer packer, PackerOpts opts) {
+		this.packer = packer;
+		this.opts = opts;
+	}
+	
+	
+	/**
+	 * Pack the input file to the output file, from the last checkpoint when resuming.
+	 *
+	 * @param input  the input file
+	 * @param output the output file
+	 * @throws APIException in case of any error during package creation, or reading and writing the files
+	 */
+	void pack(Path input, Path output) throws APIException {
+		Path checkpointFile = output.resolveSibling(output.getFileName() + CHECKPOINT_EXTENSION);
+		try(FileChannel inputChannel = FileChannel.open(input, StandardOpenOption.READ);
+			FileChannel outputChannel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			if(GzipStreams.isGzip(input.toFile())) {
+				throw new APIException("A compressed input file can't be packed with checkpoints");
+			}
+			Properties checkpoint = opts.isResume() ? readCheckpoint(checkpointFile, inputChannel.size()) : null;
+			long byteOffset = getLong(checkpoint, BYTE_OFFSET);
+			long lineNumber = getLong(checkpoint, LINE_NUMBER);
+			long outputOffset = getLong(checkpoint, OUTPUT_OFFSET);
+			if(lineNumber > 0) {
+				LOGGER.info("Resuming {} from line {}", input, lineNumber);
+			}
+			
+			// the packages written after the checkpoint are written again
+			inputChannel.position(byteOffset);
+			outputChannel.truncate(outputOffset);
+			outputChannel.position(outputOffset);
+			
+			InputStream inputStream = Channels.newInputStream(inputChannel);
+			OutputStream outputStream = Channels.newOutputStream(outputChannel);
+			ByteLineIterator it = new ByteLineIterator(inputStream);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+			List<Thing> things = new ArrayList<>();
+			Consumer<LineError> errorSink = packer.getErrorSink();
+			while(it.hasNext()) {
+				it.nextLine();
+				PackageSolution solution = packer.packLine(it.getBuffer(), it.getLineStart(), it.getLineEnd(),
+						lineNumber + 1, things, errorSink);
+				if(lineNumber > 0) {
+					writer.write(System.lineSeparator());
+				}
+				writer.write(solution.getCombination());
+				lineNumber++;
+				
+				// hasNext consumes the end of a "\r\n", the next line starts after it
+				if(opts.getCheckpointLines() > 0 && lineNumber % opts.getCheckpointLines() == 0 && it.hasNext()) {
+					writer.flush();
+					outputChannel.force(false);
+					writeCheckpoint(checkpointFile, inputChannel.size(), byteOffset + it.getConsumedBytes(),
+							lineNumber, outputChannel.position());
+				}
+			}
+			writer.flush();
+		} catch(IOException e) {
+			throw new APIException("Error packing with checkpoints", e);
+		}
+		
+		try {
+			Files.deleteIfExists(checkpointFile);
+		} catch(IOException e) {
+			throw new APIException(String.format("Checkpoint %s can't be removed", checkpointFile), e);
+		}
+	}
+	
+	
+	/**
+	 * @return the last checkpoint, or <code>null</code> to start from the beginning if there is no checkpoint
+	 */
+	private static Properties readCheckpoint(Path checkpointFile, long inputSize) throws IOException, APIException {
+		if(!Files.exists(checkpointFile)) {
+			return null;
+		}
+		Properties checkpoint = new Properties();
+		try(InputStream stream = Files.newInputStream(checkpointFile)) {
+			checkpoint.load(stream);
+		}
+		if(getLong(checkpoint, INPUT_SIZE) != inputSize) {
+			throw new APIException(String.format("Checkpoint %s is not of this input file", checkpointFile));
+		}
+		return checkpoint;
+	}
+	
+	
+	/**
+	 * Write the checkpoint to a temporary file, force it to the disk and move it over the previous one, so a crash
+	 * while writing it keeps the previous one.
+	 */
+	private static void writeCheckpoint(Path checkpointFile, long inputSize, long byteOffset, long lineNumber,
+	                                    long outputOffset) throws IOException {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty(INPUT_SIZE, Long.toString(inputSize));
+		checkpoint.setProperty(BYTE_OFFSET, Long.toString(byteOffset));
+		checkpoint.setProperty(LINE_NUMBER, Long.toString(lineNumber));
+		checkpoint.setProperty(OUTPUT_OFFSET, Long.toString(outputOffset));
+		
+		Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			checkpoint.store(Channels.newOutputStream(channel), null);
+			// on disk before the move, or a crash could leave an empty checkpoint in place of the previous one
+			channel.force(true);
+		}
+		Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		LOGGER.debug("Checkpoint at line {}", lineNumber);
+	}
+	
+	
+	private static long getLong(Properties checkpoint, String key) throws APIException {
+		if(checkpoint == null) {
+			return 0L;
+		}
+		try {
+			return Long.parseLong(checkpoint.getProperty(key));
+		} catch(NumberFormatException e) {
+			throw new APIException(String.format("Checkpoint property %s is not valid: %s", key, checkpoint.getProperty(key)), e);
+		}
+	}
+	
+}
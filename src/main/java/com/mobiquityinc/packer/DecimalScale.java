@@ -0,0 +1,95 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+
+import java.util.List;
+
+
+/**
+ * Conversion of weights and costs to integers, multiplying them by 10^scale. Used by the builders that work with
+ * integers instead of doubles.
+ *
+ * @author Hector Blanco
+ */
+class DecimalScale {
+	
+	/**
+	 * Value returned by {@link #toScaled(double)} when the value can't be scaled
+	 */
+	static final long NOT_SCALABLE = -1L;
+	
+	// max difference between a scaled value and its integer, because 53.38 * 100 is 5337.999999999999
+	private static final double SCALE_TOLERANCE = 1e-6;
+	
+	// max scaled value, after it a double can't represent every integer
+	private static final double MAX_SCALED_VALUE = 1e15;
+	
+	// 10^scale
+	private final long factor;
+	
+	
+	/**
+	 * Constructor with the number of decimals that the weights and costs can have.
+	 *
+	 * @param decimalScale the number of decimals of weights and costs
+	 */
+	DecimalScale(int decimalScale) {
+		long aFactor = 1L;
+		for(int i = 0; i < decimalScale; i++) {
+			aFactor *= 10L;
+		}
+		this.factor = aFactor;
+	}
+	
+	
+	/**
+	 * @return 10^scale
+	 */
+	long getFactor() {
+		return factor;
+	}
+	
+	
+	/**
+	 * Check if weight and cost of all the things can be scaled to integers.
+	 *
+	 * @param things the things to check
+	 * @return <code>true</code> if no thing has more decimals than the scale
+	 */
+	boolean canScale(List<Thing> things) {
+		for(Thing thing : things) {
+			if(toScaled(thing.getWeight()) == NOT_SCALABLE || toScaled(thing.getCost()) == NOT_SCALABLE) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Scale the package weight, any decimal after the scale is not relevant because the things can't have them.
+	 *
+	 * @param packageWeight the max weight of the package
+	 * @return the scaled package weight
+	 */
+	long scaledCapacity(double packageWeight) {
+		return (long) Math.floor(packageWeight * factor + SCALE_TOLERANCE);
+	}
+	
+	
+	/**
+	 * Scale a (non negative) weight or a cost to an integer.
+	 *
+	 * @param value the value to scale
+	 * @return the scaled value, {@link #NOT_SCALABLE} if the value has more decimals than the scale
+	 */
+	long toScaled(double value) {
+		double scaled = value * factor;
+		long rounded = Math.round(scaled);
+		if(scaled > MAX_SCALED_VALUE || Math.abs(scaled - rounded) > SCALE_TOLERANCE) {
+			return NOT_SCALABLE;
+		}
+		return rounded;
+	}
+	
+}
@@ -0,0 +1,166 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Builder of packages based on the classic dynamic programming solution of the knapsack problem.
+ * <p>
+ * Weights and costs are scaled to integers (to hundredths with a scale of 2 decimals), and a table keeps, for every
+ * possible weight of the package, the max cost that can be reached with exactly that weight. Each thing updates the
+ * table once, so the work is n * W instead of 2^n, where W is the scaled weight of the package. Which things improved
+ * which weight is kept in a bitset, to rebuild the chosen combination at the end.
+ * <p>
+ * This only works if all the values have at most the configured number of decimals and the package weight is not
+ * too big, use {@link #supports(List, double)} before assembling a package.
+ * <p>
+ * The rules to choose a package are the same of {@link PackageBuilder}: higher cost wins, and with the same cost the
+ * lighter wins. When two combinations have the same cost and weight, the one chosen is not always the same combination
+ * chosen by {@link PackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class DynamicProgrammingPackageBuilder {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(DynamicProgrammingPackageBuilder.class);
+	
+	/**
+	 * Max number of things this builder accepts, the chosen combination is kept as bitmask of a long
+	 */
+	static final int MAX_THINGS = 63;
+	
+	/**
+	 * Max scaled weight of a package, the table has one cell for each of them
+	 */
+	static final long MAX_SCALED_WEIGHT = 10_000_000L;
+	
+	// a weight that no combination reaches
+	private static final long UNREACHABLE = -1L;
+	
+	// conversion of weights and costs to integers
+	private final DecimalScale scale;
+	
+	
+	/**
+	 * Constructor with the number of decimals that the weights and costs can have.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param decimalScale the number of decimals of weights and costs
+	 */
+	DynamicProgrammingPackageBuilder(int decimalScale) {
+		this.scale = new DecimalScale(decimalScale);
+	}
+	
+	
+	/**
+	 * Check if this builder can assemble a package with the things in input: there can't be more than
+	 * {@link #MAX_THINGS} things, weights and costs can't have more decimals than the scale and the scaled package
+	 * weight can't be higher than {@link #MAX_SCALED_WEIGHT}.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return <code>true</code> if the package can be assembled by this builder
+	 */
+	boolean supports(List<Thing> things, double packageWeight) {
+		return things.size() <= MAX_THINGS
+				&& scale.scaledCapacity(packageWeight) <= MAX_SCALED_WEIGHT
+				&& scale.canScale(things);
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException if the things or the package weight are not {@link #supports(List, double) supported}
+	 */
+	Optional<String> resolveBetterPackage(List<Thing> things, double packageWeight) throws APIException {
+		if(!supports(things, packageWeight)) {
+			throw new APIException(String.format("Package %s can't be scaled to integers with a factor of %d", packageWeight, scale.getFactor()));
+		}
+		int nOfThings = things.size();
+		int capacity = (int) scale.scaledCapacity(packageWeight);
+		long[] weights = new long[nOfThings];
+		long[] costs = new long[nOfThings];
+		for(int i = 0; i < nOfThings; i++) {
+			weights[i] = scale.toScaled(things.get(i).getWeight());
+			costs[i] = scale.toScaled(things.get(i).getCost());
+		}
+		
+		// bestCost[w] = max cost of a combination that weighs exactly w
+		long[] bestCost = new long[capacity + 1];
+		Arrays.fill(bestCost, UNREACHABLE);
+		bestCost[0] = 0L;
+		
+		// bit (i, w) is set if the i-th thing improved the cost of the weight w
+		int words = (capacity >>> 6) + 1;
+		long[] improved = new long[nOfThings * words];
+		
+		for(int i = 0; i < nOfThings; i++) {
+			int weight = (int) weights[i];
+			long cost = costs[i];
+			// from the heaviest to the lightest, so every thing is used only once
+			for(int w = capacity; w >= weight; w--) {
+				long previous = bestCost[w - weight];
+				if(previous != UNREACHABLE && previous + cost > bestCost[w]) {
+					bestCost[w] = previous + cost;
+					improved[i * words + (w >>> 6)] |= 1L << w;
+				}
+			}
+		}
+		
+		// higher cost wins, with the same cost the lighter wins
+		int betterWeight = 0;
+		long betterCost = 0L;
+		for(int w = 0; w <= capacity; w++) {
+			if(bestCost[w] > betterCost) {
+				betterWeight = w;
+				betterCost = bestCost[w];
+			}
+		}
+		
+		// the empty package also costs 0, so zero-cost packages must be chosen apart
+		if(betterCost == 0L) {
+			return lightestThing(things, weights, capacity);
+		}
+		
+		// go back from the last thing to rebuild the combination
+		long combination = 0L;
+		int w = betterWeight;
+		for(int i = nOfThings - 1; i >= 0; i--) {
+			if((improved[i * words + (w >>> 6)] & (1L << w)) != 0) {
+				combination |= 1L << i;
+				w -= (int) weights[i];
+			}
+		}
+		LOGGER.debug("Better package weighs {} and costs {} (scaled by {})", betterWeight, betterCost, scale.getFactor());
+		return Optional.of(BitmaskPackageBuilder.toIndexString(combination, things));
+	}
+	
+	
+	/**
+	 * The package when every combination that fits costs nothing: the lightest thing that fits, the first one when
+	 * there are more than one.
+	 */
+	private static Optional<String> lightestThing(List<Thing> things, long[] weights, int capacity) {
+		int lightest = -1;
+		for(int i = 0; i < weights.length; i++) {
+			if(weights[i] <= capacity && (lightest < 0 || weights[i] < weights[lightest])) {
+				lightest = i;
+			}
+		}
+		return lightest < 0 ? Optional.empty() : Optional.of(things.get(lightest).getIndex().toString());
+	}
+	
+}
@@ -0,0 +1,271 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Builder of packages that evaluates all the combinations of things, like {@link PackageBuilder}, but walking them in
+ * Gray code order: from one combination to the next one exactly one thing goes in or out of the package, so weight and
+ * cost are updated with one addition or subtraction. No combination is kept, the memory used doesn't depend on the
+ * number of things.
+ * <p>
+ * Adding and subtracting doubles would accumulate rounding errors, so weights and costs are scaled to integers (see
+ * {@link DecimalScale}), and this builder can only be used when the things have at most the configured number of
+ * decimals, use {@link #supports(List)} before assembling a package.
+ * <p>
+ * When two combinations have the same cost and weight, the one that {@link PackageBuilder} creates first is chosen.
+ * This is a total order, so the combinations can also be split in sub-ranges evaluated in parallel, and the better
+ * combinations of the sub-ranges reduced in any order give the same package.
+ *
+ * @author Hector Blanco
+ */
+class GrayCodePackageBuilder {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(GrayCodePackageBuilder.class);
+	
+	/**
+	 * Max number of things this builder accepts, they are 2^n combinations to evaluate
+	 */
+	static final int MAX_THINGS = 40;
+	
+	// at least 2^MIN_SUB_RANGE_BITS combinations in each sub-range, less are not worth a task
+	private static final int MIN_SUB_RANGE_BITS = 16;
+	
+	// sub-ranges for each thread of the pool, to balance the sub-ranges where more combinations fit
+	private static final int SUB_RANGES_PER_THREAD = 4;
+	
+	// conversion of weights and costs to integers
+	private final DecimalScale scale;
+	
+	// pool that evaluates the sub-ranges of combinations, null to evaluate them all in the calling thread
+	private final ForkJoinPool pool;
+	
+	
+	/**
+	 * Constructor with the number of decimals that the weights and costs can have.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param decimalScale the number of decimals of weights and costs
+	 */
+	GrayCodePackageBuilder(int decimalScale) {
+		this(decimalScale, null);
+	}
+	
+	
+	/**
+	 * Constructor with the number of decimals that the weights and costs can have and the pool that evaluates the
+	 * combinations in parallel: the highest things are fixed, and each sub-range of the combinations with the same
+	 * highest things is a task of the pool.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param decimalScale the number of decimals of weights and costs
+	 * @param pool         the pool of the tasks, null to evaluate all the combinations in the calling thread
+	 */
+	GrayCodePackageBuilder(int decimalScale, ForkJoinPool pool) {
+		this.scale = new DecimalScale(decimalScale);
+		this.pool = pool;
+	}
+	
+	
+	/**
+	 * Check if this builder can assemble a package with the things in input: there can't be more than
+	 * {@link #MAX_THINGS} things and weights and costs can't have more decimals than the scale.
+	 *
+	 * @param things The available things from which to choose which ones will be used to assemble the package
+	 * @return <code>true</code> if the package can be assembled by this builder
+	 */
+	boolean supports(List<Thing> things) {
+		return things.size() <= MAX_THINGS && scale.canScale(things);
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException if the things are not {@link #supports(List) supported}
+	 */
+	Optional<String> resolveBetterPackage(List<Thing> things, double packageWeight) throws APIException {
+		if(!supports(things)) {
+			throw new APIException(String.format("Package %s can't be scaled to integers with a factor of %d", packageWeight, scale.getFactor()));
+		}
+		int nOfThings = things.size();
+		long capacity = scale.scaledCapacity(packageWeight);
+		long[] weights = new long[nOfThings];
+		long[] costs = new long[nOfThings];
+		for(int i = 0; i < nOfThings; i++) {
+			weights[i] = scale.toScaled(things.get(i).getWeight());
+			costs[i] = scale.toScaled(things.get(i).getCost());
+		}
+		
+		Candidate better;
+		int splitBits = splitBits(nOfThings);
+		if(splitBits == 0) {
+			better = enumerate(weights, costs, capacity, nOfThings, 0L);
+		} else {
+			better = pool.invoke(new SubRanges(weights, costs, capacity, nOfThings - splitBits, 0L, 1L << splitBits));
+		}
+		long betterPackage = better.combination;
+		LOGGER.debug("Evaluated {} combinations in {} sub-ranges, better package: {}", (1L << nOfThings) - 1,
+				1L << splitBits, betterPackage);
+		
+		// It's possible that none of the things alone or in combination is a fit for the package
+		if(betterPackage == 0L) {
+			return Optional.empty();
+		}
+		return Optional.of(BitmaskPackageBuilder.toIndexString(betterPackage, things));
+	}
+	
+	
+	/**
+	 * How many of the highest things are fixed to split the combinations in 2^splitBits sub-ranges: enough sub-ranges
+	 * to keep all the threads of the pool busy, but each one with at least 2^{@link #MIN_SUB_RANGE_BITS} combinations.
+	 */
+	private int splitBits(int nOfThings) {
+		if(pool == null || nOfThings < MIN_SUB_RANGE_BITS + 1) {
+			return 0;
+		}
+		int splitBits = 0;
+		while((1 << splitBits) < SUB_RANGES_PER_THREAD * pool.getParallelism()) {
+			splitBits++;
+		}
+		return Math.min(splitBits, nOfThings - MIN_SUB_RANGE_BITS);
+	}
+	
+	
+	/**
+	 * Evaluate all the combinations of the lowest things with the highest ones fixed, walking them in Gray code order.
+	 *
+	 * @param weights  the scaled weights of the things
+	 * @param costs    the scaled costs of the things
+	 * @param capacity the scaled weight of the package
+	 * @param lowBits  the number of lowest things that go in and out of the package
+	 * @param prefix   the highest things that are always inside the package, as bitmask
+	 * @return the better combination of the sub-range, with an empty combination if nothing fits
+	 */
+	private static Candidate enumerate(long[] weights, long[] costs, long capacity, int lowBits, long prefix) {
+		Candidate better = new Candidate(0L, 0L, -1L);
+		
+		long combination = prefix;
+		long weight = 0L;
+		long cost = 0L;
+		for(long rest = prefix; rest != 0L; rest &= rest - 1) {
+			int thing = Long.numberOfTrailingZeros(rest);
+			weight += weights[thing];
+			cost += costs[thing];
+		}
+		if(prefix != 0L && weight <= capacity) {
+			better = new Candidate(prefix, weight, cost);
+		}
+		
+		long nOfCombinations = 1L << lowBits;
+		for(long i = 1; i < nOfCombinations; i++) {
+			// the i-th gray code differs from the previous one in the bit of the lowest bit set in i
+			int changed = Long.numberOfTrailingZeros(i);
+			long bit = 1L << changed;
+			combination ^= bit;
+			if((combination & bit) != 0) {
+				weight += weights[changed];
+				cost += costs[changed];
+			} else {
+				weight -= weights[changed];
+				cost -= costs[changed];
+			}
+			
+			if(weight <= capacity && better.isWorseThan(combination, weight, cost)) {
+				better = new Candidate(combination, weight, cost);
+			}
+		}
+		return better;
+	}
+	
+	
+	/**
+	 * A combination with its scaled weight and cost
+	 */
+	private static final class Candidate {
+		
+		private final long combination;
+		private final long weight;
+		private final long cost;
+		
+		
+		private Candidate(long combination, long weight, long cost) {
+			this.combination = combination;
+			this.weight = weight;
+			this.cost = cost;
+		}
+		
+		
+		/**
+		 * Same rules of {@link PackageBuilder}: higher cost wins, with the same cost the lighter wins, and with the same
+		 * cost and weight the combination created first wins.
+		 */
+		private boolean isWorseThan(long aCombination, long aWeight, long aCost) {
+			return aCost > cost
+					|| aCost == cost && (aWeight < weight
+					|| aWeight == weight && BitmaskPackageBuilder.isCreatedBefore(aCombination, combination));
+		}
+		
+		
+		private Candidate better(Candidate other) {
+			if(other.combination != 0L && isWorseThan(other.combination, other.weight, other.cost)) {
+				return other;
+			}
+			return this;
+		}
+	}
+	
+	
+	/**
+	 * The sub-ranges of combinations with the highest things fixed, from one prefix to another, split in half until
+	 * there is one prefix for each task.
+	 */
+	private static final class SubRanges extends RecursiveTask<Candidate> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final long[] weights;
+		private final long[] costs;
+		private final long capacity;
+		private final int lowBits;
+		private final long fromPrefix;
+		private final long toPrefix;
+		
+		
+		private SubRanges(long[] weights, long[] costs, long capacity, int lowBits, long fromPrefix, long toPrefix) {
+			this.weights = weights;
+			this.costs = costs;
+			this.capacity = capacity;
+			this.lowBits = lowBits;
+			this.fromPrefix = fromPrefix;
+			this.toPrefix = toPrefix;
+		}
+		
+		
+		@Override
+		protected Candidate compute() {
+			if(toPrefix - fromPrefix == 1L) {
+				return enumerate(weights, costs, capacity, lowBits, fromPrefix << lowBits);
+			}
+			long middle = (fromPrefix + toPrefix) >>> 1;
+			SubRanges second = new SubRanges(weights, costs, capacity, lowBits, middle, toPrefix);
+			second.fork();
+			Candidate first = new SubRanges(weights, costs, capacity, lowBits, fromPrefix, middle).compute();
+			return first.better(second.join());
+		}
+	}
+	
+}
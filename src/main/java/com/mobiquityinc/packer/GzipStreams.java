@@ -0,0 +1,358 @@
+package com.mobiquityinc.packer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Gzip decompression of the input and compression of the output, each one in its own thread: the thread that parses
+ * and solves the packages only copies chunks of bytes from and to a bounded queue, and never waits for inflate or
+ * deflate unless the queue is empty (or full).
+ *
+ * @author Hector Blanco
+ */
+class GzipStreams {
+	
+	// the first two bytes of a gzip stream
+	private static final int MAGIC_1 = 0x1f;
+	private static final int MAGIC_2 = 0x8b;
+	
+	// size of the chunks of bytes exchanged with the threads, and how many of them can be waiting in the queue
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final int QUEUE_CHUNKS = 16;
+	
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private GzipStreams() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the file starts with the gzip magic bytes
+	 * @throws IOException in case of an I/O error
+	 */
+	static boolean isGzip(File file) throws IOException {
+		try(InputStream input = new FileInputStream(file)) {
+			return input.read() == MAGIC_1 && input.read() == MAGIC_2;
+		}
+	}
+	
+	
+	/**
+	 * Look at the first bytes of the input, and when they are the gzip magic bytes decompress the input in its own
+	 * thread. Closing the returned stream closes the input.
+	 *
+	 * @param input the input, compressed or not
+	 * @return the decompressed input
+	 * @throws IOException in case of an I/O error reading the first bytes
+	 */
+	static InputStream decompressIfGzip(InputStream input) throws IOException {
+		PushbackInputStream pushback = new PushbackInputStream(input, 2);
+		byte[] magic = new byte[2];
+		int read = 0;
+		while(read < magic.length) {
+			int n = pushback.read(magic, read, magic.length - read);
+			if(n < 0) {
+				break;
+			}
+			read += n;
+		}
+		pushback.unread(magic, 0, read);
+		
+		if(read == magic.length && (magic[0] & 0xff) == MAGIC_1 && (magic[1] & 0xff) == MAGIC_2) {
+			return new BackgroundInputStream(new GZIPInputStream(pushback, CHUNK_SIZE));
+		}
+		return pushback;
+	}
+	
+	
+	/**
+	 * Compress with gzip the bytes written to the returned stream, in its own thread. Flushing the returned stream
+	 * flushes the compressed bytes written so far, and closing it writes the end of the gzip stream and waits for the
+	 * thread, without closing the output.
+	 *
+	 * @param output where the compressed bytes are written
+	 * @return the stream to write the bytes to compress
+	 */
+	static OutputStream compress(OutputStream output) {
+		return new BackgroundOutputStream(output);
+	}
+	
+	
+	/**
+	 * A chunk of bytes exchanged with a thread, or the end of the stream, a flush or an error.
+	 */
+	private static final class Chunk {
+		
+		private static final Chunk END = new Chunk(new byte[0], 0, null);
+		private static final Chunk FLUSH = new Chunk(new byte[0], 0, null);
+		
+		private final byte[] bytes;
+		private final int length;
+		private final IOException error;
+		
+		
+		private Chunk(byte[] bytes, int length, IOException error) {
+			this.bytes = bytes;
+			this.length = length;
+			this.error = error;
+		}
+	}
+	
+	
+	/**
+	 * Reads the source in its own thread, a chunk ahead of the reader up to {@link #QUEUE_CHUNKS} chunks.
+	 */
+	private static final class BackgroundInputStream extends InputStream {
+		
+		private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+		private final Thread reader;
+		
+		private Chunk current = new Chunk(new byte[0], 0, null);
+		private int position;
+		private boolean ended;
+		
+		
+		private BackgroundInputStream(InputStream source) {
+			reader = new Thread(() -> transfer(source), "packer-gunzip");
+			reader.setDaemon(true);
+			reader.start();
+		}
+		
+		
+		/**
+		 * Read the source until its end or until this stream is closed, and close it. The end of the source or its
+		 * error is the last chunk.
+		 */
+		private void transfer(InputStream source) {
+			try {
+				chunks.put(readAll(source));
+			} catch(InterruptedException e) {
+				// closed before the end of the source
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		
+		private Chunk readAll(InputStream source) throws InterruptedException {
+			try(InputStream input = source) {
+				while(true) {
+					byte[] bytes = new byte[CHUNK_SIZE];
+					int read = input.read(bytes);
+					if(read < 0) {
+						return Chunk.END;
+					}
+					if(read > 0) {
+						chunks.put(new Chunk(bytes, read, null));
+					}
+				}
+			} catch(IOException e) {
+				return new Chunk(null, 0, e);
+			}
+		}
+		
+		
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+		}
+		
+		
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if(length == 0) {
+				return 0;
+			}
+			while(position == current.length) {
+				if(ended) {
+					return -1;
+				}
+				current = take();
+				position = 0;
+			}
+			int read = Math.min(length, current.length - position);
+			System.arraycopy(current.bytes, position, buffer, offset, read);
+			position += read;
+			return read;
+		}
+		
+		
+		private Chunk take() throws IOException {
+			Chunk chunk;
+			try {
+				chunk = chunks.take();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while decompressing the input");
+			}
+			if(chunk.error != null) {
+				throw new IOException("Error decompressing the input", chunk.error);
+			}
+			ended = chunk == Chunk.END;
+			return chunk;
+		}
+		
+		
+		@Override
+		public void close() {
+			// the reader thread closes the source, after the read that could be in progress
+			ended = true;
+			current = Chunk.END;
+			position = 0;
+			reader.interrupt();
+		}
+	}
+	
+	
+	/**
+	 * Compresses the bytes in its own thread, with up to {@link #QUEUE_CHUNKS} chunks waiting to be compressed.
+	 */
+	private static final class BackgroundOutputStream extends OutputStream {
+		
+		private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+		private final Thread writer;
+		
+		// the error of the writer thread, thrown by the next call to this stream
+		private volatile IOException error;
+		
+		private byte[] current = new byte[CHUNK_SIZE];
+		private int position;
+		private boolean closed;
+		
+		
+		private BackgroundOutputStream(OutputStream target) {
+			writer = new Thread(() -> transfer(target), "packer-gzip");
+			writer.setDaemon(true);
+			writer.start();
+		}
+		
+		
+		/**
+		 * Compress the chunks until the end of the stream, without closing the target. After an error the chunks are
+		 * still taken until the end, so the stream never waits for a full queue.
+		 */
+		private void transfer(OutputStream target) {
+			GZIPOutputStream gzip = null;
+			try {
+				while(true) {
+					Chunk chunk = chunks.take();
+					if(error == null) {
+						try {
+							if(gzip == null) {
+								gzip = new GZIPOutputStream(target, CHUNK_SIZE, true);
+							}
+							compress(gzip, target, chunk);
+						} catch(IOException e) {
+							error = e;
+						}
+					}
+					if(chunk == Chunk.END) {
+						return;
+					}
+				}
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		
+		private static void compress(GZIPOutputStream gzip, OutputStream target, Chunk chunk) throws IOException {
+			if(chunk == Chunk.END) {
+				gzip.finish();
+				target.flush();
+			} else if(chunk == Chunk.FLUSH) {
+				gzip.flush();
+			} else {
+				gzip.write(chunk.bytes, 0, chunk.length);
+			}
+		}
+		
+		
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+		
+		
+		@Override
+		public void write(byte[] buffer, int offset, int length) throws IOException {
+			checkError();
+			int written = 0;
+			while(written < length) {
+				int copied = Math.min(length - written, current.length - position);
+				System.arraycopy(buffer, offset + written, current, position, copied);
+				position += copied;
+				written += copied;
+				if(position == current.length) {
+					putCurrent();
+				}
+			}
+		}
+		
+		
+		@Override
+		public void flush() throws IOException {
+			checkError();
+			putCurrent();
+			put(Chunk.FLUSH);
+		}
+		
+		
+		@Override
+		public void close() throws IOException {
+			if(closed) {
+				return;
+			}
+			closed = true;
+			putCurrent();
+			put(Chunk.END);
+			try {
+				writer.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while compressing the output");
+			}
+			checkError();
+		}
+		
+		
+		private void putCurrent() throws IOException {
+			if(position > 0) {
+				put(new Chunk(Arrays.copyOf(current, position), position, null));
+				position = 0;
+			}
+		}
+		
+		
+		private void put(Chunk chunk) throws IOException {
+			try {
+				chunks.put(chunk);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while compressing the output");
+			}
+		}
+		
+		
+		private void checkError() throws IOException {
+			if(error != null) {
+				throw new IOException("Error compressing the output", error);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,63 @@
+package com.mobiquityinc.packer;
+
+
+/**
+ * Kernel of {@link HalfTablePackageBuilder}: finds the best entry of a table of combinations that still fits in the
+ * package together with a combination of a given weight.
+ * <p>
+ * This is the plain Java 8 implementation. The library is a multi-release jar, and on Java 17 or newer this class is
+ * replaced by a version that evaluates several entries at once with the Vector API, when the
+ * <code>jdk.incubator.vector</code> module is available (<code>--add-modules jdk.incubator.vector</code>). Both versions
+ * always return the same entry.
+ *
+ * @author Hector Blanco
+ */
+final class HalfTableKernel {
+	
+	/**
+	 * Private constructor to prevent new instances of this utility class
+	 */
+	private HalfTableKernel() {
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the kernel evaluates the tables with SIMD instructions
+	 */
+	static boolean isVectorized() {
+		return false;
+	}
+	
+	
+	/**
+	 * Find, among the entries [from, length) of the table, the one with the highest cost that fits in the package
+	 * together with a combination of the given weight. With the same cost the lighter entry wins, and with the same
+	 * cost and weight the first one.
+	 *
+	 * @param baseWeight    the weight of the combination that the entries are added to
+	 * @param weights       weights of the entries
+	 * @param costs         costs of the entries
+	 * @param from          first entry to evaluate
+	 * @param length        number of entries of the table
+	 * @param packageWeight the max weight that the package can take
+	 * @return the position of the best entry, -1 if no entry fits
+	 */
+	static int bestFit(double baseWeight, double[] weights, double[] costs, int from, int length, double packageWeight) {
+		int best = -1;
+		double bestCost = Double.NEGATIVE_INFINITY;
+		double bestWeight = Double.POSITIVE_INFINITY;
+		for(int i = from; i < length; i++) {
+			double weight = weights[i];
+			if(baseWeight + weight <= packageWeight) {
+				double cost = costs[i];
+				if(cost > bestCost || (cost == bestCost && weight < bestWeight)) {
+					best = i;
+					bestCost = cost;
+					bestWeight = weight;
+				}
+			}
+		}
+		return best;
+	}
+	
+}
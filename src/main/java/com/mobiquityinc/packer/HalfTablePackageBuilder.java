@@ -0,0 +1,133 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Builder of packages that evaluates all the combinations of things, like {@link PackageBuilder}, in blocks that can
+ * be evaluated with SIMD instructions.
+ * <p>
+ * The things are split in two halves and the weight and cost of all the combinations of the first half are
+ * precomputed in two tables. Then, for every combination of the second half, the {@link HalfTableKernel} scans the
+ * whole table looking for the most valuable combination of the first half that still fits in the package: the same
+ * operation over contiguous arrays, that on Java 17+ is done several entries at once with the Vector API.
+ * <p>
+ * The rules to choose a package are the same of {@link PackageBuilder}: higher cost wins, and with the same cost the
+ * lighter wins. When two combinations have the same cost and weight, the one found first is kept, which is not
+ * always the same combination chosen by {@link PackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class HalfTablePackageBuilder {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(HalfTablePackageBuilder.class);
+	
+	/**
+	 * Max number of things this builder accepts, they are 2^n combinations to evaluate
+	 */
+	static final int MAX_THINGS = 40;
+	
+	
+	/**
+	 * Default constructor.
+	 * Not intended to be used outside of this library.
+	 */
+	HalfTablePackageBuilder() {
+		// nothing to initialize, the tables depend on the number of things of each package
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException In case of any error during package assemble
+	 */
+	static Optional<String> assemblePackage(List<Thing> things, double packageWeight) throws APIException {
+		return new HalfTablePackageBuilder().resolveBetterPackage(things, packageWeight);
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException if there are more than {@link #MAX_THINGS} things
+	 */
+	Optional<String> resolveBetterPackage(List<Thing> things, double packageWeight) throws APIException {
+		int nOfThings = things.size();
+		if(nOfThings > MAX_THINGS) {
+			throw new APIException(String.format("Package %s has more than %d things to be combined.", packageWeight, MAX_THINGS));
+		}
+		
+		// the table is the first half, rounded up, because it's the part evaluated in blocks
+		int tableThings = (nOfThings + 1) / 2;
+		int tableSize = 1 << tableThings;
+		double[] tableWeights = new double[tableSize];
+		double[] tableCosts = new double[tableSize];
+		for(int mask = 1; mask < tableSize; mask++) {
+			int highestBit = 31 - Integer.numberOfLeadingZeros(mask);
+			int previous = mask ^ (1 << highestBit);
+			tableWeights[mask] = tableWeights[previous] + things.get(highestBit).getWeight();
+			tableCosts[mask] = tableCosts[previous] + things.get(highestBit).getCost();
+		}
+		
+		long betterPackage = 0L;
+		double betterCost = -1D;
+		double betterWeight = 0D;
+		
+		// the combinations of the second half, with the weight and cost of the one before with one thing less
+		int otherThings = nOfThings - tableThings;
+		int otherSize = 1 << otherThings;
+		double[] otherWeights = new double[otherSize];
+		double[] otherCosts = new double[otherSize];
+		for(int other = 0; other < otherSize; other++) {
+			if(other > 0) {
+				int highestBit = 31 - Integer.numberOfLeadingZeros(other);
+				int previous = other ^ (1 << highestBit);
+				Thing thing = things.get(tableThings + highestBit);
+				otherWeights[other] = otherWeights[previous] + thing.getWeight();
+				otherCosts[other] = otherCosts[previous] + thing.getCost();
+			}
+			double otherWeight = otherWeights[other];
+			if(otherWeight > packageWeight) {
+				continue;
+			}
+			
+			// the empty combination of the table is a candidate only with a non empty combination of the second half
+			int best = HalfTableKernel.bestFit(otherWeight, tableWeights, tableCosts, other == 0 ? 1 : 0,
+					tableSize, packageWeight);
+			if(best >= 0) {
+				double cost = otherCosts[other] + tableCosts[best];
+				double weight = otherWeight + tableWeights[best];
+				if(cost > betterCost || (cost == betterCost && weight < betterWeight)) {
+					betterPackage = best | ((long) other << tableThings);
+					betterCost = cost;
+					betterWeight = weight;
+				}
+			}
+		}
+		LOGGER.debug("Evaluated {} blocks of {} combinations (vectorized: {}), better package: {}",
+				otherSize, tableSize, HalfTableKernel.isVectorized(), betterPackage);
+		
+		// It's possible that none of the things alone or in combination is a fit for the package
+		if(betterPackage == 0L) {
+			return Optional.empty();
+		}
+		return Optional.of(BitmaskPackageBuilder.toIndexString(betterPackage, things));
+	}
+	
+}
@@ -0,0 +1,57 @@
+package com.mobiquityinc.packer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * {@link ByteLineIterator} that writes the {@link LineIndex index} of the lines while they are read. The index is
+ * saved when the iterator is closed, only if all the lines were read: a stream that stops at the first lines, or a
+ * packing that fails, leaves the previous index.
+ *
+ * @author Hector Blanco
+ */
+class IndexingLineIterator extends ByteLineIterator {
+	
+	private final LineIndex.Writer index;
+	
+	// all the lines were read
+	private boolean complete;
+	
+	
+	/**
+	 * @param input the input file to read, that will be closed with this iterator
+	 * @param index where the lines are indexed
+	 */
+	IndexingLineIterator(InputStream input, LineIndex.Writer index) {
+		super(input);
+		this.index = index;
+	}
+	
+	
+	@Override
+	boolean hasNext() throws IOException {
+		boolean hasNext = super.hasNext();
+		complete = !hasNext;
+		return hasNext;
+	}
+	
+	
+	@Override
+	void nextLine() throws IOException {
+		super.nextLine();
+		index.addLine(getLineOffset());
+	}
+	
+	
+	@Override
+	public void close() throws IOException {
+		try(LineIndex.Writer writer = index) {
+			super.close();
+			if(complete) {
+				writer.finish();
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,332 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Index of the bytes where the lines of an input file start, saved next to the input file to read any line without
+ * reading the lines before it. The lines are in blocks of {@link #BLOCK_LINES}: the table has the offset of the first
+ * line of each block, and the other lines are the differences with the line before, as variable-length integers.
+ * A line is found reading an entry of the table and decoding less than a block of differences.
+ * <pre>
+ * header: magic "PKLI" (4 bytes), version (int32), input size (int64), input last modified millis (int64),
+ *         number of lines (int64), number of blocks (int64)
+ * table:  for each block, offset of its first line (int64) and position of its differences (int64)
+ * deltas: for each line that is not the first of its block, its offset minus the one of the line before (varint)
+ * </pre>
+ * All the integers are big-endian. The index is not used when the size or the last modification time of the input
+ * file change.
+ *
+ * @author Hector Blanco
+ */
+final class LineIndex implements Closeable {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(LineIndex.class);
+	
+	/**
+	 * Extension added to the name of the input file to name its index
+	 */
+	static final String EXTENSION = ".idx";
+	
+	/**
+	 * Lines of each block of the index
+	 */
+	static final int BLOCK_LINES = 64;
+	
+	private static final int MAGIC = 0x504B4C49;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 2 * Integer.BYTES + 4 * Long.BYTES;
+	private static final int TABLE_ENTRY_SIZE = 2 * Long.BYTES;
+	
+	// a varint of a long has at most 10 bytes
+	private static final int MAX_VARINT_SIZE = 10;
+	
+	private final FileChannel channel;
+	private final long nOfLines;
+	private final long nOfBlocks;
+	
+	
+	private LineIndex(FileChannel channel, long nOfLines, long nOfBlocks) {
+		this.channel = channel;
+		this.nOfLines = nOfLines;
+		this.nOfBlocks = nOfBlocks;
+	}
+	
+	
+	/**
+	 * Open the index of the input file.
+	 *
+	 * @param input the input file
+	 * @return the index, or <code>null</code> if there is no index or it's not of the current input file
+	 * @throws IOException in case of an I/O error
+	 */
+	static LineIndex open(Path input) throws IOException {
+		Path indexFile = indexOf(input);
+		if(!Files.exists(indexFile)) {
+			return null;
+		}
+		FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(header, 0L);
+		header.flip();
+		if(header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION
+				|| header.getLong() != Files.size(input)
+				|| header.getLong() != Files.getLastModifiedTime(input).toMillis()) {
+			LOGGER.info("Index {} is not of the current input file", indexFile);
+			channel.close();
+			return null;
+		}
+		return new LineIndex(channel, header.getLong(), header.getLong());
+	}
+	
+	
+	/**
+	 * Read the whole input file and save its index, replacing the previous one.
+	 *
+	 * @param input the input file, not compressed
+	 * @throws IOException in case of an I/O error
+	 */
+	static void build(Path input) throws IOException {
+		LOGGER.info("Indexing the lines of {}", input);
+		try(ByteLineIterator it = new IndexingLineIterator(Files.newInputStream(input), new Writer(input))) {
+			while(it.hasNext()) {
+				it.nextLine();
+			}
+		}
+	}
+	
+	
+	/**
+	 * @return the number of lines of the input file
+	 */
+	long getNOfLines() {
+		return nOfLines;
+	}
+	
+	
+	/**
+	 * @param lineNumber the number of the line, starting from 1
+	 * @return the byte of the input file where the line starts
+	 * @throws APIException if the input file doesn't have that line
+	 * @throws IOException  in case of an I/O error
+	 */
+	long getLineOffset(long lineNumber) throws APIException, IOException {
+		if(lineNumber < 1 || lineNumber > nOfLines) {
+			throw new APIException(String.format("Line %d is not in the input file, it has %d lines", lineNumber, nOfLines));
+		}
+		long block = (lineNumber - 1) / BLOCK_LINES;
+		int lineInBlock = (int) ((lineNumber - 1) % BLOCK_LINES);
+		
+		ByteBuffer entry = ByteBuffer.allocate(TABLE_ENTRY_SIZE);
+		readFully(entry, HEADER_SIZE + block * TABLE_ENTRY_SIZE);
+		long offset = entry.getLong();
+		long deltasPosition = HEADER_SIZE + nOfBlocks * TABLE_ENTRY_SIZE + entry.getLong();
+		if(lineInBlock == 0) {
+			return offset;
+		}
+		
+		ByteBuffer deltas = ByteBuffer.allocate(lineInBlock * MAX_VARINT_SIZE);
+		channel.read(deltas, deltasPosition);
+		deltas.flip();
+		for(int i = 0; i < lineInBlock; i++) {
+			offset += readVarint(deltas);
+		}
+		return offset;
+	}
+	
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	
+	static Path indexOf(Path input) {
+		return input.resolveSibling(input.getFileName() + EXTENSION);
+	}
+	
+	
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Line index is truncated");
+			}
+		}
+		buffer.flip();
+	}
+	
+	
+	private static long readVarint(ByteBuffer buffer) throws IOException {
+		long value = 0L;
+		for(int shift = 0; shift < Long.SIZE; shift += 7) {
+			if(!buffer.hasRemaining()) {
+				throw new IOException("Line index is truncated");
+			}
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Line index is corrupted");
+	}
+	
+	
+	/**
+	 * Writes the index while the lines are read, in temporary files next to the input file that become the index
+	 * only when all the lines are read and the input file didn't change. The temporary files have unique names, so
+	 * the writers of the same input in other threads or processes don't write over them, and the index is moved in
+	 * place atomically: the last writer replaces it with an index that is whole.
+	 */
+	static final class Writer implements Closeable {
+		
+		private final Path input;
+		private final long inputSize;
+		private final long inputModified;
+		
+		private final Path tableFile;
+		private final Path deltasFile;
+		private final DataOutputStream table;
+		private final OutputStream deltas;
+		
+		private long nOfLines;
+		private long previousOffset;
+		private long deltasSize;
+		private final byte[] varint = new byte[MAX_VARINT_SIZE];
+		
+		
+		/**
+		 * @param input the input file to index
+		 * @throws IOException in case of an I/O error
+		 */
+		Writer(Path input) throws IOException {
+			this.input = input;
+			this.inputSize = Files.size(input);
+			this.inputModified = Files.getLastModifiedTime(input).toMillis();
+			this.tableFile = createTemporary(".table.tmp");
+			try {
+				this.deltasFile = createTemporary(".deltas.tmp");
+			} catch(IOException e) {
+				Files.deleteIfExists(tableFile);
+				throw e;
+			}
+			this.table = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tableFile)));
+			this.deltas = new BufferedOutputStream(Files.newOutputStream(deltasFile));
+		}
+		
+		
+		/**
+		 * @param offset the byte of the input file where the next line starts
+		 * @throws IOException in case of an I/O error
+		 */
+		void addLine(long offset) throws IOException {
+			if(nOfLines % BLOCK_LINES == 0) {
+				table.writeLong(offset);
+				table.writeLong(deltasSize);
+			} else {
+				writeVarint(offset - previousOffset);
+			}
+			previousOffset = offset;
+			nOfLines++;
+		}
+		
+		
+		/**
+		 * Save the index, if the input file didn't change while it was read.
+		 *
+		 * @throws IOException in case of an I/O error
+		 */
+		void finish() throws IOException {
+			table.close();
+			deltas.close();
+			if(Files.size(input) != inputSize || Files.getLastModifiedTime(input).toMillis() != inputModified) {
+				LOGGER.warn("Input file {} changed while it was indexed, the index is not saved", input);
+				return;
+			}
+			
+			Path temporary = createTemporary(".tmp");
+			try {
+				try(FileChannel output = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+					ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+					header.putInt(MAGIC).putInt(VERSION).putLong(inputSize).putLong(inputModified).putLong(nOfLines)
+							.putLong((nOfLines + BLOCK_LINES - 1) / BLOCK_LINES);
+					header.flip();
+					while(header.hasRemaining()) {
+						output.write(header);
+					}
+					append(output, tableFile);
+					append(output, deltasFile);
+				}
+				Files.move(temporary, indexOf(input), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+			LOGGER.debug("Index of {} saved with {} lines", input, nOfLines);
+		}
+		
+		
+		/**
+		 * Remove the temporary files, the index is not saved if it's not {@link #finish() finished}.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				table.close();
+				deltas.close();
+			} finally {
+				Files.deleteIfExists(tableFile);
+				Files.deleteIfExists(deltasFile);
+			}
+		}
+		
+		
+		/**
+		 * @return a new empty file with a unique name next to the index, in the same directory so it can be moved over
+		 * the index atomically
+		 */
+		private Path createTemporary(String suffix) throws IOException {
+			Path indexFile = indexOf(input).toAbsolutePath();
+			return Files.createTempFile(indexFile.getParent(), indexFile.getFileName() + ".", suffix);
+		}
+		
+		
+		private void writeVarint(long value) throws IOException {
+			int length = 0;
+			long remaining = value;
+			while((remaining & ~0x7FL) != 0L) {
+				varint[length++] = (byte) ((remaining & 0x7F) | 0x80);
+				remaining >>>= 7;
+			}
+			varint[length++] = (byte) remaining;
+			deltas.write(varint, 0, length);
+			deltasSize += length;
+		}
+		
+		
+		private static void append(FileChannel output, Path file) throws IOException {
+			try(FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+				long position = 0L;
+				long size = source.size();
+				while(position < size) {
+					position += source.transferTo(position, size - position, output);
+				}
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,228 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+
+/**
+ * Creates the packages of a file splitting it in chunks of whole lines, each one memory-mapped, parsed and solved by
+ * its own thread. The packages of each chunk are given to the consumer in the order of the chunks, so the order of
+ * the lines doesn't change.
+ * <p>
+ * Only a few chunks for each thread are solved ahead of the one given to the consumer, so the packages kept in memory
+ * don't depend on the size of the file. If a line is wrong, the packages of the lines before it are given to the
+ * consumer before the error is thrown, as reading the file in the calling thread.
+ *
+ * @author Hector Blanco
+ */
+class MappedFilePacker {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(MappedFilePacker.class);
+	
+	/**
+	 * Max size of a chunk, a mapping can't be bigger than 2GB and smaller chunks keep the threads balanced
+	 */
+	static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+	
+	// chunks for each thread that can be solved ahead of the one given to the consumer
+	private static final int CHUNKS_AHEAD_PER_THREAD = 2;
+	
+	// bytes read at a time looking for the end of a line
+	private static final int SCAN_SIZE = 8 * 1024;
+	
+	// the options of the packers of the chunks
+	private final PackerOpts opts;
+	
+	
+	/**
+	 * Constructor with the options of the Packer.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param opts the options of the Packer, with the number of threads
+	 */
+	MappedFilePacker(PackerOpts opts) {
+		this.opts = opts;
+	}
+	
+	
+	/**
+	 * Read the input file, and based on the "things" inside it, calculate the optimal package of each line and give
+	 * it to the consumer, in the same order of the lines.
+	 *
+	 * @param input    the input file
+	 * @param consumer the consumer of the packages
+	 * @throws APIException in case of any error during package creation, the first one in the order of the lines
+	 */
+	void createAllPackages(File input, Consumer<PackageSolution> consumer) throws APIException {
+		int nOfThreads = opts.getMappedInputThreads();
+		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads);
+		// the engines can't be shared between threads, each thread of this packing reuses its own Packer
+		ThreadLocal<Packer> packers = ThreadLocal.withInitial(() -> new Packer(opts));
+		try(FileChannel channel = FileChannel.open(input.toPath(), StandardOpenOption.READ)) {
+			List<Long> boundaries = splitInChunks(channel, nOfThreads);
+			LOGGER.debug("File {} split in {} chunks", input, boundaries.size() - 1);
+			
+			Deque<Future<SolvedChunk>> pending = new ArrayDeque<>();
+			Consumer<LineError> errorSink = Packer.errorSink(opts);
+			long linesBefore = 0L;
+			int nextChunk = 0;
+			int maxPending = nOfThreads * CHUNKS_AHEAD_PER_THREAD;
+			while(nextChunk < boundaries.size() - 1 || !pending.isEmpty()) {
+				while(nextChunk < boundaries.size() - 1 && pending.size() < maxPending) {
+					long start = boundaries.get(nextChunk);
+					long end = boundaries.get(nextChunk + 1);
+					pending.add(executor.submit(() -> solveChunk(packers.get(), channel, start, end)));
+					nextChunk++;
+				}
+				SolvedChunk solved = pending.poll().get();
+				solved.solutions.forEach(consumer);
+				// in lenient mode every line has a package, and the lines of the errors are counted from the chunk
+				for(LineError error : solved.errors) {
+					errorSink.accept(new LineError(linesBefore + error.getLineNumber(), error.getColumn(), error.getReason()));
+				}
+				if(solved.failure != null) {
+					throw solved.failure;
+				}
+				linesBefore += solved.solutions.size();
+			}
+			
+		} catch(IOException e) {
+			throw new APIException("Error reading input file", e);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Interrupted while creating the packages", e);
+		} catch(ExecutionException e) {
+			throw unwrap(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	/**
+	 * Parse and solve the lines of a chunk with the Packer of the thread. The error of a wrong line is kept with the
+	 * packages of the lines before it, to be thrown after giving them to the consumer.
+	 */
+	private static SolvedChunk solveChunk(Packer packer, FileChannel channel, long start, long end) throws IOException {
+		ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		SolvedChunk solved = new SolvedChunk();
+		try(ByteLineIterator it = new ByteLineIterator(new ByteBufferInputStream(chunk))) {
+			packer.createAllPackages(it, solved.solutions::add, solved.errors::add);
+		} catch(APIException e) {
+			solved.failure = e;
+		}
+		return solved;
+	}
+	
+	
+	/**
+	 * The packages of the lines of a chunk, the errors of its wrong lines in lenient mode, and the error of the wrong
+	 * line that stopped the chunk otherwise.
+	 */
+	private static final class SolvedChunk {
+		private final List<PackageSolution> solutions = new ArrayList<>();
+		private final List<LineError> errors = new ArrayList<>();
+		private APIException failure;
+	}
+	
+	
+	/**
+	 * Split the file in chunks of about the same size, at least one for each thread and not bigger than
+	 * {@link #MAX_CHUNK_SIZE}. Each chunk ends after a line terminator, or at the end of the file.
+	 *
+	 * @return the position where each chunk starts, and the size of the file at the end
+	 */
+	static List<Long> splitInChunks(FileChannel channel, int nOfThreads) throws IOException {
+		long size = channel.size();
+		long nOfChunks = Math.max(nOfThreads, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+		long chunkSize = Math.max(1L, size / nOfChunks);
+		
+		List<Long> boundaries = new ArrayList<>();
+		boundaries.add(0L);
+		long start = 0L;
+		while(start < size) {
+			long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+			boundaries.add(end);
+			start = end;
+		}
+		return boundaries;
+	}
+	
+	
+	/**
+	 * @return the position after the first line terminator ('\n', '\r' or "\r\n") from the given position, or the
+	 * size of the file if there are no more line terminators
+	 */
+	static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+		long position = from;
+		while(position < size) {
+			scan.clear();
+			int read = channel.read(scan, position);
+			if(read <= 0) {
+				break;
+			}
+			for(int i = 0; i < read; i++) {
+				byte b = scan.get(i);
+				if(b == '\n') {
+					return position + i + 1;
+				}
+				if(b == '\r') {
+					// "\r\n" is a single line terminator
+					long next = position + i + 1;
+					if(i + 1 < read) {
+						return scan.get(i + 1) == '\n' ? next + 1 : next;
+					}
+					return next < size && readByte(channel, next) == '\n' ? next + 1 : next;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+	
+	
+	private static byte readByte(FileChannel channel, long position) throws IOException {
+		ByteBuffer oneByte = ByteBuffer.allocate(1);
+		channel.read(oneByte, position);
+		return oneByte.get(0);
+	}
+	
+	
+	/**
+	 * The errors of the chunks are thrown as they would be thrown reading the file in the calling thread
+	 */
+	private static APIException unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if(cause instanceof APIException) {
+			return (APIException) cause;
+		}
+		if(cause instanceof IOException) {
+			return new APIException("Error reading input file", cause);
+		}
+		if(cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		}
+		return new APIException("Error creating the packages", cause);
+	}
+	
+}
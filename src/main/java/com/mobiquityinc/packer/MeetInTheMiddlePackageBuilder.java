@@ -0,0 +1,234 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Builder of packages for lists with a lot of things, based on the "meet in the middle" technique.
+ * <p>
+ * The things are split in two halves and all the combinations of each half are enumerated (2^(n/2) each one, instead
+ * of 2^n for the whole list). The combinations of the second half are sorted by weight, and for each position of the
+ * sorted list we keep the most valuable combination found up to it. Then, for every combination of the first half, a
+ * binary search finds the heaviest combination of the second half that still fits in the package, and the best
+ * combination up to it is the best pairing. A list of 40 things costs about 2^20 * log(2^20) operations.
+ * <p>
+ * The rules to choose a package are the same of {@link PackageBuilder}: higher cost wins, and with the same cost the
+ * lighter wins. When two combinations have the same cost and weight, the one found first is kept, which is not
+ * always the same combination chosen by {@link PackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class MeetInTheMiddlePackageBuilder {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(MeetInTheMiddlePackageBuilder.class);
+	
+	/**
+	 * Max number of things this builder accepts, each half has 2^(n/2) combinations
+	 */
+	static final int MAX_THINGS = 40;
+	
+	
+	/**
+	 * Default constructor.
+	 * Not intended to be used outside of this library.
+	 */
+	MeetInTheMiddlePackageBuilder() {
+		// nothing to initialize, the tables depend on the number of things of each package
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException In case of any error during package assemble
+	 */
+	static Optional<String> assemblePackage(List<Thing> things, double packageWeight) throws APIException {
+		return new MeetInTheMiddlePackageBuilder().resolveBetterPackage(things, packageWeight);
+	}
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes that will compose the package
+	 * @throws APIException if there are more than {@link #MAX_THINGS} things
+	 */
+	Optional<String> resolveBetterPackage(List<Thing> things, double packageWeight) throws APIException {
+		int nOfThings = things.size();
+		if(nOfThings > MAX_THINGS) {
+			throw new APIException(String.format("Package %s has more than %d things to be combined.", packageWeight, MAX_THINGS));
+		}
+		
+		// first half: things [0, half), second half: things [half, nOfThings)
+		int half = nOfThings / 2;
+		double[] weights = new double[nOfThings];
+		double[] costs = new double[nOfThings];
+		for(int i = 0; i < nOfThings; i++) {
+			weights[i] = things.get(i).getWeight();
+			costs[i] = things.get(i).getCost();
+		}
+		
+		// all the combinations of each half, indexed by bitmask
+		int firstSize = 1 << half;
+		double[] firstWeights = new double[firstSize];
+		double[] firstCosts = new double[firstSize];
+		combineHalf(weights, costs, 0, half, firstWeights, firstCosts);
+		
+		int secondSize = 1 << (nOfThings - half);
+		double[] secondWeights = new double[secondSize];
+		double[] secondCosts = new double[secondSize];
+		combineHalf(weights, costs, half, nOfThings, secondWeights, secondCosts);
+		
+		// the non empty combinations of the second half that fit in the package, sorted by weight
+		int[] sorted = new int[secondSize];
+		int nOfSorted = 0;
+		for(int mask = 1; mask < secondSize; mask++) {
+			if(secondWeights[mask] <= packageWeight) {
+				sorted[nOfSorted++] = mask;
+			}
+		}
+		sortByWeight(sorted, nOfSorted, secondWeights);
+		
+		// the most valuable combination of every prefix of the sorted list, with the same cost the first one is
+		// kept because it's the lighter
+		int[] bestOfPrefix = new int[nOfSorted];
+		for(int i = 0; i < nOfSorted; i++) {
+			bestOfPrefix[i] = i == 0 || secondCosts[sorted[i]] > secondCosts[bestOfPrefix[i - 1]]
+					? sorted[i]
+					: bestOfPrefix[i - 1];
+		}
+		LOGGER.debug("Combinations of the first half: {}, of the second half that fit: {}", firstSize, nOfSorted);
+		
+		// pair every combination of the first half with the best combination of the second half that fits
+		long betterPackage = 0L;
+		double betterCost = -1D;
+		double betterWeight = 0D;
+		for(int first = 0; first < firstSize; first++) {
+			double firstWeight = firstWeights[first];
+			if(firstWeight > packageWeight) {
+				continue;
+			}
+			double firstCost = firstCosts[first];
+			
+			// the first half's combination by itself
+			if(first != 0 && isBetter(firstCost, firstWeight, betterCost, betterWeight)) {
+				betterPackage = first;
+				betterCost = firstCost;
+				betterWeight = firstWeight;
+			}
+			
+			int last = lastFitting(sorted, nOfSorted, secondWeights, firstWeight, packageWeight);
+			if(last >= 0) {
+				int second = bestOfPrefix[last];
+				double cost = firstCost + secondCosts[second];
+				double weight = firstWeight + secondWeights[second];
+				if(isBetter(cost, weight, betterCost, betterWeight)) {
+					betterPackage = first | ((long) second << half);
+					betterCost = cost;
+					betterWeight = weight;
+				}
+			}
+		}
+		
+		// It's possible that none of the things alone or in combination is a fit for the package
+		if(betterPackage == 0L) {
+			return Optional.empty();
+		}
+		return Optional.of(BitmaskPackageBuilder.toIndexString(betterPackage, things));
+	}
+	
+	
+	/**
+	 * Same rules of {@link PackageBuilder}: higher cost wins, with the same cost the lighter wins
+	 */
+	private static boolean isBetter(double cost, double weight, double betterCost, double betterWeight) {
+		return cost > betterCost || (cost == betterCost && weight < betterWeight);
+	}
+	
+	
+	/**
+	 * Fill the tables with weight and cost of every combination of the things in [from, to). The things are always
+	 * summed from the lowest to the highest index, like {@link PackageBuilder} does.
+	 */
+	private static void combineHalf(double[] weights, double[] costs, int from, int to,
+									double[] halfWeights, double[] halfCosts) {
+		int size = 1 << (to - from);
+		for(int mask = 1; mask < size; mask++) {
+			int highestBit = 31 - Integer.numberOfLeadingZeros(mask);
+			int previous = mask ^ (1 << highestBit);
+			halfWeights[mask] = halfWeights[previous] + weights[from + highestBit];
+			halfCosts[mask] = halfCosts[previous] + costs[from + highestBit];
+		}
+	}
+	
+	
+	/**
+	 * Binary search of the last combination in the sorted list that still fits in the package together with a
+	 * combination of the given weight.
+	 *
+	 * @return the position in the sorted list, -1 if no combination fits
+	 */
+	private static int lastFitting(int[] sorted, int nOfSorted, double[] secondWeights,
+								   double firstWeight, double packageWeight) {
+		int low = 0;
+		int high = nOfSorted - 1;
+		int found = -1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(firstWeight + secondWeights[sorted[middle]] <= packageWeight) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+	
+	
+	/**
+	 * Stable sort (merge sort) of the first n masks by their weight, there can be millions of them so we do not box
+	 * them to use the JDK sort with a comparator.
+	 */
+	private static void sortByWeight(int[] masks, int n, double[] weightTable) {
+		int[] buffer = new int[n];
+		int[] from = masks;
+		int[] to = buffer;
+		for(int width = 1; width < n; width <<= 1) {
+			for(int low = 0; low < n; low += width << 1) {
+				int middle = Math.min(low + width, n);
+				int high = Math.min(low + (width << 1), n);
+				int left = low;
+				int right = middle;
+				for(int k = low; k < high; k++) {
+					if(left < middle && (right >= high || weightTable[from[left]] <= weightTable[from[right]])) {
+						to[k] = from[left++];
+					} else {
+						to[k] = from[right++];
+					}
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		if(from != masks) {
+			System.arraycopy(from, 0, masks, 0, n);
+		}
+	}
+	
+}
@@ -0,0 +1,135 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.PackResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * Lazy {@link Stream} of the {@link PackResult results} of the lines of an input: each line is read and solved only
+ * when the stream asks for it, so <code>limit</code> or <code>findFirst</code> stop reading the input.
+ * <p>
+ * The stream is ordered. In a {@link Stream#parallel() parallel} stream the lines are read in batches and solved by
+ * the threads of the stream, and the results keep the order of the lines. The engines can't be shared between
+ * threads, so each line takes an idle {@link Packer} of the stream, or a new one when all of them are solving other
+ * lines, and gives it back when it's solved: the packers belong to the stream, not to the threads of the common pool
+ * that outlive it.
+ *
+ * @author Hector Blanco
+ */
+class PackResultStream {
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private PackResultStream() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Create the stream of the results of the lines, the input is closed when the stream is closed.
+	 *
+	 * @param it   the lines of the input
+	 * @param opts the options of the packers that solve the lines
+	 * @return the stream of the results, in the order of the lines
+	 */
+	static Stream<PackResult> of(ByteLineIterator it, PackerOpts opts) {
+		Queue<Packer> idle = new ConcurrentLinkedQueue<>();
+		Spliterator<Line> lines = Spliterators.spliteratorUnknownSize(new LineIterator(it),
+				Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+		return StreamSupport.stream(lines, false)
+				.onClose(() -> close(it))
+				.map(line -> solve(idle, opts, line));
+	}
+	
+	
+	private static PackResult solve(Queue<Packer> idle, PackerOpts opts, Line line) {
+		Packer packer = idle.poll();
+		if(packer == null) {
+			packer = new Packer(opts);
+		}
+		try {
+			return packer.solveLine(line.number, line.bytes);
+		} finally {
+			idle.add(packer);
+		}
+	}
+	
+	
+	private static void close(ByteLineIterator it) {
+		try {
+			it.close();
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	
+	/**
+	 * A line of the input with its number, copied from the buffer of the {@link ByteLineIterator} to be solved after
+	 * the next lines are read.
+	 */
+	private static final class Line {
+		
+		private final long number;
+		private final byte[] bytes;
+		
+		
+		private Line(long number, byte[] bytes) {
+			this.number = number;
+			this.bytes = bytes;
+		}
+	}
+	
+	
+	/**
+	 * Iterator over the lines of the input, the errors of the input are thrown as {@link UncheckedIOException}.
+	 */
+	private static final class LineIterator implements Iterator<Line> {
+		
+		private final ByteLineIterator it;
+		private long lineNumber;
+		
+		
+		private LineIterator(ByteLineIterator it) {
+			this.it = it;
+		}
+		
+		
+		@Override
+		public boolean hasNext() {
+			try {
+				return it.hasNext();
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		
+		@Override
+		public Line next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException("No more lines");
+			}
+			try {
+				it.nextLine();
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			lineNumber++;
+			return new Line(lineNumber, Arrays.copyOfRange(it.getBuffer(), it.getLineStart(), it.getLineEnd()));
+		}
+	}
+	
+}
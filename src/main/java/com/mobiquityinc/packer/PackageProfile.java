@@ -0,0 +1,132 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+
+import java.util.List;
+
+
+/**
+ * The shape of a package to assemble, used by the {@link PackingSolver engines} to estimate how much it costs to
+ * assemble it.
+ *
+ * @author Hector Blanco
+ */
+public final class PackageProfile {
+	
+	/**
+	 * Value of {@link #getDecimals()} when some value has more than 9 decimals
+	 */
+	public static final int UNBOUNDED_DECIMALS = -1;
+	
+	// max number of decimals that we check
+	private static final int MAX_DECIMALS = 9;
+	
+	// max scaled value, after it a double can't represent every integer
+	private static final double MAX_SCALED_VALUE = 1e15;
+	
+	// the things of the package, only until the decimals are counted
+	private List<Thing> things;
+	
+	private final int nOfThings;
+	private final double packageWeight;
+	private final double totalWeight;
+	private final double maxValue;
+	
+	// counted the first time they are needed, a pinned engine that doesn't scale the values never counts them
+	private int decimals = UNBOUNDED_DECIMALS;
+	private boolean decimalsCounted;
+	
+	
+	/**
+	 * Create the profile of a package. The things must not change while the profile is used.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 */
+	public PackageProfile(List<Thing> things, double packageWeight) {
+		this.things = things;
+		this.nOfThings = things.size();
+		this.packageWeight = packageWeight;
+		
+		double aTotalWeight = 0D;
+		double aMaxValue = 0D;
+		for(Thing thing : things) {
+			aTotalWeight += thing.getWeight();
+			aMaxValue = Math.max(aMaxValue, Math.max(thing.getWeight(), thing.getCost()));
+		}
+		this.totalWeight = aTotalWeight;
+		this.maxValue = aMaxValue;
+	}
+	
+	
+	/**
+	 * @return the number of things that can go inside the package
+	 */
+	public int getNOfThings() {
+		return nOfThings;
+	}
+	
+	
+	/**
+	 * @return the max weight that the package can take
+	 */
+	public double getPackageWeight() {
+		return packageWeight;
+	}
+	
+	
+	/**
+	 * @return the weight of all the things together
+	 */
+	public double getTotalWeight() {
+		return totalWeight;
+	}
+	
+	
+	/**
+	 * @return the package weight divided by the weight of all the things, 1 or more if all the things fit together
+	 */
+	public double getCapacityRatio() {
+		return totalWeight == 0D ? Double.POSITIVE_INFINITY : packageWeight / totalWeight;
+	}
+	
+	
+	/**
+	 * @return the max number of decimals of the things' weights and costs, {@link #UNBOUNDED_DECIMALS} if more than 9
+	 */
+	public int getDecimals() {
+		if(!decimalsCounted) {
+			for(int d = 0; d <= MAX_DECIMALS && decimals == UNBOUNDED_DECIMALS; d++) {
+				if(new DecimalScale(d).canScale(things)) {
+					decimals = d;
+				}
+			}
+			decimalsCounted = true;
+			things = null;
+		}
+		return decimals;
+	}
+	
+	
+	/**
+	 * @param decimalScale a number of decimals
+	 * @return <code>true</code> if weights and costs have at most the given number of decimals, and they can still be
+	 * represented exactly as integers once scaled
+	 */
+	public boolean fitsScale(int decimalScale) {
+		if(maxValue * Math.pow(10D, decimalScale) > MAX_SCALED_VALUE) {
+			return false;
+		}
+		// a single scale is checked, without counting the decimals
+		if(!decimalsCounted) {
+			return new DecimalScale(decimalScale).canScale(things);
+		}
+		return decimals != UNBOUNDED_DECIMALS && decimals <= decimalScale;
+	}
+	
+	
+	@Override
+	public String toString() {
+		return "[" + nOfThings + " things, " + packageWeight + " / " + totalWeight + ", " + getDecimals() + " decimals]";
+	}
+}
@@ -0,0 +1,131 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+
+/**
+ * Reduction of the things of a package before assembling it, every thing removed halves the combinations that the
+ * engines have to evaluate.
+ * <p>
+ * A thing is removed when it can never be inside the package chosen by {@link PackageBuilder}:
+ * <ul>
+ * <li>it weighs more than the package</li>
+ * <li>it's dominated by other things, and it can't go inside the package together with all of them. Another thing
+ * dominates it if it's not heavier and not cheaper, and it's lighter, more expensive or comes first in the list. Any
+ * package with this thing misses at least one of the things that dominate it, and replacing one with the other
+ * gives a better package, or the same package created before by {@link PackageBuilder}.</li>
+ * </ul>
+ * The things are removed keeping the order of the list, so the order in which {@link PackageBuilder} creates the
+ * combinations that are left doesn't change. The things keep their {@link Thing#getIndex() index}, so the packages
+ * assembled with the reduced list don't need to be translated back.
+ *
+ * @author Hector Blanco
+ */
+class PackageReducer {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(PackageReducer.class);
+	
+	// relative tolerance of the weights, the things that could fit with their dominants after rounding are kept
+	private static final double WEIGHT_TOLERANCE = 1e-9;
+	
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private PackageReducer() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Remove the things that can't be inside the better package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return the things that can be inside the better package, in the same order
+	 */
+	static List<Thing> reduce(List<Thing> things, double packageWeight) {
+		int nOfThings = things.size();
+		double[] weights = new double[nOfThings];
+		double[] costs = new double[nOfThings];
+		for(int i = 0; i < nOfThings; i++) {
+			weights[i] = things.get(i).getWeight();
+			costs[i] = things.get(i).getCost();
+		}
+		
+		double maxWeight = packageWeight + WEIGHT_TOLERANCE * Math.max(1D, packageWeight);
+		List<Thing> reduced = new ArrayList<>(nOfThings);
+		for(int j = 0; j < nOfThings; j++) {
+			if(weights[j] > packageWeight) {
+				continue;
+			}
+			
+			// the weight of this thing together with all the things that dominate it
+			double weightWithDominants = weights[j];
+			for(int i = 0; i < nOfThings && weightWithDominants <= maxWeight; i++) {
+				if(i != j && dominates(weights, costs, i, j)) {
+					weightWithDominants += weights[i];
+				}
+			}
+			if(weightWithDominants <= maxWeight) {
+				reduced.add(things.get(j));
+			}
+		}
+		
+		LOGGER.debug("Package {} reduced from {} to {} things", packageWeight, nOfThings, reduced.size());
+		return reduced;
+	}
+	
+	
+	/**
+	 * When all the things fit inside the package, the better package has all the things that cost something: the
+	 * things that cost nothing can only add weight. Things that cost and weigh nothing change the package chosen by
+	 * {@link PackageBuilder} between packages with the same cost and weight, so they are left to the engines.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return the indexes of the things with a cost, or an Optional.empty if they don't fit all together, they all
+	 * cost nothing or some of them cost and weigh nothing
+	 */
+	static Optional<String> packAll(List<Thing> things, double packageWeight) {
+		double weight = 0D;
+		for(Thing thing : things) {
+			if(thing.getCost() == 0D && thing.getWeight() == 0D) {
+				return Optional.empty();
+			}
+			weight += thing.getWeight();
+		}
+		if(weight > packageWeight) {
+			return Optional.empty();
+		}
+		
+		StringJoiner indexes = new StringJoiner(",");
+		for(Thing thing : things) {
+			if(thing.getCost() > 0D) {
+				indexes.add(thing.getIndex().toString());
+			}
+		}
+		return indexes.length() == 0 ? Optional.empty() : Optional.of(indexes.toString());
+	}
+	
+	
+	/**
+	 * The i-th thing dominates the j-th one if it's not heavier and not cheaper, and it's lighter, more expensive or
+	 * (with the same weight and cost) comes first.
+	 */
+	private static boolean dominates(double[] weights, double[] costs, int i, int j) {
+		if(weights[i] > weights[j] || costs[i] < costs[j]) {
+			return false;
+		}
+		return weights[i] < weights[j] || costs[i] > costs[j] || i < j;
+	}
+	
+}
@@ -0,0 +1,70 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.PackageSolution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+
+/**
+ * Writes each package to the output as soon as it's assembled, in the same format of {@link Packer#pack(String)}:
+ * one package per line, separated by {@link System#lineSeparator()}, without a line separator after the last one.
+ * <p>
+ * The output is flushed when the input has no more bytes ready, so who reads from a pipe or a socket gets the packages
+ * before the next lines arrive, without flushing after every line of a file.
+ *
+ * @author Hector Blanco
+ */
+class PackageWriter implements Consumer<PackageSolution> {
+	
+	private final Writer output;
+	
+	// tells when the input could block waiting for more lines
+	private final BooleanSupplier inputDrained;
+	
+	// written before each package, empty for the first one
+	private String separator = "";
+	
+	
+	/**
+	 * @param output       where the packages are written, it's not closed
+	 * @param inputDrained tells when the output must be flushed, because the input could block
+	 */
+	PackageWriter(Writer output, BooleanSupplier inputDrained) {
+		this.output = output;
+		this.inputDrained = inputDrained;
+	}
+	
+	
+	/**
+	 * Write the package, the errors of the output are thrown as {@link UncheckedIOException}, to be unwrapped by who
+	 * started the packing.
+	 */
+	@Override
+	public void accept(PackageSolution solution) {
+		try {
+			output.write(separator);
+			output.write(solution.getCombination());
+			separator = System.lineSeparator();
+			if(inputDrained.getAsBoolean()) {
+				output.flush();
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	
+	/**
+	 * Flush the packages not written yet to the output.
+	 *
+	 * @throws IOException in case of an I/O error
+	 */
+	void finish() throws IOException {
+		output.flush();
+	}
+	
+}
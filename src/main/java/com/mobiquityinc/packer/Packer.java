@@ -1,21 +1,42 @@
 package com.mobiquityinc.packer;
 
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.PackResult;
+import com.mobiquityinc.packer.entities.PackageRequest;
+import com.mobiquityinc.packer.entities.PackageSolution;
 import com.mobiquityinc.packer.entities.Thing;
 import com.mobiquityinc.packer.exception.APIException;
 import com.mobiquityinc.packer.exception.IncorrectThingDefinition;
 import com.mobiquityinc.packer.utils.PackerUtils;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.LineIterator;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 /**
@@ -59,9 +80,345 @@ public class Packer {
 	}
 	
 	
+	/**
+	 * Reads the input file e calculate the packages, returning the {@link PackageSolution package} of each line of the
+	 * input file: its thing's indexes, weight and cost, and if it's the better package or only the better one found
+	 * within the {@link PackerOpts#getLineTimeBudgetMillis() time budget} of the line.
+	 *
+	 * @param filePath path of the input file
+	 * @param options  the {@link PackerOpts options} to this packer
+	 * @return the packages, in the same order of the lines of the input file
+	 * @throws APIException in case of any error during package creation
+	 */
+	public static List<PackageSolution> solve(String filePath, PackerOpts options) throws APIException {
+		List<PackageSolution> solutions = new ArrayList<>();
+		new Packer(options).createAllPackages(filePath, solutions::add);
+		return solutions;
+	}
+	
+	
+	/**
+	 * Calculate the packages of requests already in memory, without writing them to an input file. The requests are
+	 * solved in parallel in the {@link PackerOpts#getForkJoinPool() pool of the options}, split in tasks of about
+	 * the same estimated cost while the pool has idle threads, and the packages are returned in the order of the
+	 * requests. The requests are checked like the lines of an input file, and a wrong request throws its error, or
+	 * gets the {@link PackerOpts#getErrorPlaceholder() placeholder} in {@link PackerOpts#isLenient() lenient mode}.
+	 *
+	 * @param requests the package weight and the things of each package, that must not change while they are solved
+	 * @param options  the {@link PackerOpts options} to the packers
+	 * @return the packages, in the same order of the requests
+	 * @throws APIException in case of any error during package creation, the one of the first request that failed
+	 */
+	public static List<PackageSolution> pack(List<PackageRequest> requests, PackerOpts options) throws APIException {
+		if(requests == null) {
+			throw new APIException("Input cannot be null");
+		}
+		// check the engine before solving the requests
+		Packer packer = new Packer(options);
+		packer.getSolverSelector();
+		return new BulkPacker(packer, options).packAll(requests);
+	}
+	
+	
+	/**
+	 * Reads a {@link BinaryManifest binary manifest} and calculate the packages, like {@link #pack(String, PackerOpts)}
+	 * does for a text input file. The things are read from the buffer without parsing any text.
+	 *
+	 * @param manifest the binary manifest, from its position to its limit, that doesn't change
+	 * @param options  the {@link PackerOpts options} to this packer
+	 * @return The string that represents the optimized package
+	 * @throws APIException in case of any error during package creation, or if the manifest is not valid
+	 */
+	public static String pack(ByteBuffer manifest, PackerOpts options) throws APIException {
+		StringJoiner packages = new StringJoiner(System.lineSeparator());
+		new Packer(options).createAllPackages(manifest, solution -> packages.add(solution.getCombination()));
+		return packages.toString();
+	}
+	
+	
+	/**
+	 * Reads a {@link BinaryManifest binary manifest} and calculate the packages, like
+	 * {@link #solve(String, PackerOpts)} does for a text input file.
+	 *
+	 * @param manifest the binary manifest, from its position to its limit, that doesn't change
+	 * @param options  the {@link PackerOpts options} to this packer
+	 * @return the packages, in the same order of the packages of the manifest
+	 * @throws APIException in case of any error during package creation, or if the manifest is not valid
+	 */
+	public static List<PackageSolution> solve(ByteBuffer manifest, PackerOpts options) throws APIException {
+		List<PackageSolution> solutions = new ArrayList<>();
+		new Packer(options).createAllPackages(manifest, solutions::add);
+		return solutions;
+	}
+	
+	
+	/**
+	 * Reads the input and writes the package of each line to the output as soon as it's assembled, in the same format
+	 * of {@link #pack(String)}. Only a line at a time is kept in memory, whatever the size of the input, and the output
+	 * is flushed when the input has no more bytes ready, so the input can be the standard input or a socket.
+	 * <p>
+	 * The input must be UTF-8, and it's decompressed in its own thread when it's compressed with gzip. Neither the
+	 * input nor the output are closed.
+	 *
+	 * @param input   the lines to pack
+	 * @param output  where the packages are written
+	 * @param options the {@link PackerOpts options} to this packer
+	 * @throws APIException in case of any error during package creation, or reading the input or writing the output
+	 */
+	public static void pack(InputStream input, Writer output, PackerOpts options) throws APIException {
+		checkStreams(input, output);
+		Packer packer = new Packer(options);
+		// the iterator is closed to stop the decompression thread, but the input is not
+		try(ByteLineIterator it = new ByteLineIterator(GzipStreams.decompressIfGzip(new CloseShieldInputStream(input)))) {
+			packer.writeAllPackages(it, output);
+		} catch(IOException e) {
+			throw new APIException("Error reading input", e);
+		}
+	}
+	
+	
+	/**
+	 * Reads the input and writes the package of each line to the output as soon as it's assembled, encoded in UTF-8
+	 * and compressed with gzip in its own thread if {@link PackerOpts#isGzipOutput()}.
+	 * See {@link #pack(InputStream, Writer, PackerOpts)}.
+	 *
+	 * @param input   the lines to pack
+	 * @param output  where the packages are written
+	 * @param options the {@link PackerOpts options} to this packer
+	 * @throws APIException in case of any error during package creation, or reading the input or writing the output
+	 */
+	public static void pack(InputStream input, OutputStream output, PackerOpts options) throws APIException {
+		checkStreams(input, output);
+		packTo(output, options, writer -> pack(input, writer, options));
+	}
+	
+	
+	/**
+	 * Reads the input and writes the package of each line to the output as soon as it's assembled.
+	 * See {@link #pack(InputStream, Writer, PackerOpts)}.
+	 *
+	 * @param input   the lines to pack
+	 * @param output  where the packages are written
+	 * @param options the {@link PackerOpts options} to this packer
+	 * @throws APIException in case of any error during package creation, or reading the input or writing the output
+	 */
+	public static void pack(Reader input, Writer output, PackerOpts options) throws APIException {
+		checkStreams(input, output);
+		// the lines are parsed from their UTF-8 bytes, encoded as soon as the reader gives them
+		pack(new Utf8ReaderInputStream(input), output, options);
+	}
+	
+	
+	/**
+	 * Reads the input file and writes the package of each line to the output as soon as it's assembled, in the same
+	 * format of {@link #pack(String)}. The output is not closed.
+	 *
+	 * @param input   path of the input file
+	 * @param output  where the packages are written
+	 * @param options the {@link PackerOpts options} to this packer
+	 * @throws APIException in case of any error during package creation, or writing the output
+	 */
+	public static void pack(Path input, Writer output, PackerOpts options) throws APIException {
+		checkStreams(input, output);
+		new Packer(options).writeAllPackages(input.toString(), output);
+	}
+	
+	
+	/**
+	 * Reads the input file and writes the package of each line to the output as soon as it's assembled, encoded in
+	 * UTF-8 and compressed with gzip in its own thread if {@link PackerOpts#isGzipOutput()}.
+	 * See {@link #pack(Path, Writer, PackerOpts)}.
+	 *
+	 * @param input   path of the input file
+	 * @param output  where the packages are written
+	 * @param options the {@link PackerOpts options} to this packer
+	 * @throws APIException in case of any error during package creation, or writing the output
+	 */
+	public static void pack(Path input, OutputStream output, PackerOpts options) throws APIException {
+		checkStreams(input, output);
+		packTo(output, options, writer -> pack(input, writer, options));
+	}
+	
+	
+	/**
+	 * Opens the input file and returns a lazy stream of the {@link PackResult result} of each line: the line number
+	 * and its package, or the error of the line. The lines are read and solved only when the stream asks for them, so
+	 * the first results are available immediately and <code>limit</code> or <code>findFirst</code> stop reading the
+	 * file. A {@link Stream#parallel() parallel} stream solves the lines in parallel, and keeps their order.
+	 * <p>
+	 * The file is closed when the stream is closed, so the stream should be used in a try-with-resources statement.
+	 * The errors reading the file are thrown as {@link java.io.UncheckedIOException}.
+	 *
+	 * @param input path of the input file
+	 * @return the results of the lines, in the order of the lines of the input file
+	 * @throws APIException if the file doesn't exists or can't be opened, or the engine is unknown
+	 */
+	public static Stream<PackResult> stream(Path input) throws APIException {
+		return stream(input, PackerOpts.defaultOptions());
+	}
+	
+	
+	/**
+	 * Opens the input file and returns a lazy stream of the {@link PackResult result} of each line.
+	 * See {@link #stream(Path)}.
+	 *
+	 * @param input   path of the input file
+	 * @param options the {@link PackerOpts options} of the packers
+	 * @return the results of the lines, in the order of the lines of the input file
+	 * @throws APIException if the file doesn't exists or can't be opened, or the engine is unknown
+	 */
+	public static Stream<PackResult> stream(Path input, PackerOpts options) throws APIException {
+		Packer packer = new Packer(options);
+		File file = packer.checkInputFile(input == null ? null : input.toString());
+		packer.getSolverSelector();
+		try {
+			return PackResultStream.of(packer.getFileLineIterator(file), options);
+		} catch(IOException e) {
+			throw new APIException("Error reading input file", e);
+		}
+	}
+	
+	
+	/**
+	 * Solve a single line of the input file, reading only that line. The bytes where the lines start are read from
+	 * the index saved next to the input file by a packing with {@link PackerOpts#isLineIndex()}, or by a previous
+	 * call to this method: when there is no index, or the size or the last modification time of the input file
+	 * changed, the whole file is read once to index it again.
+	 *
+	 * @param input      path of the input file, not compressed
+	 * @param lineNumber the number of the line, starting from 1
+	 * @return the result of the line
+	 * @throws APIException if the file doesn't exists, it's compressed or it doesn't have that line, or in case of
+	 *                      any error reading it
+	 */
+	public static PackResult solveLine(Path input, long lineNumber) throws APIException {
+		return solveLine(input, lineNumber, PackerOpts.defaultOptions());
+	}
+	
+	
+	/**
+	 * Solve a single line of the input file, reading only that line. See {@link #solveLine(Path, long)}.
+	 *
+	 * @param input      path of the input file, not compressed
+	 * @param lineNumber the number of the line, starting from 1
+	 * @param options    the {@link PackerOpts options} to this packer
+	 * @return the result of the line
+	 * @throws APIException if the file doesn't exists, it's compressed or it doesn't have that line, or in case of
+	 *                      any error reading it
+	 */
+	public static PackResult solveLine(Path input, long lineNumber, PackerOpts options) throws APIException {
+		Packer packer = new Packer(options);
+		File file = packer.checkInputFile(input == null ? null : input.toString());
+		packer.getSolverSelector();
+		if(isGzip(file)) {
+			throw new APIException("A compressed input file can't be indexed");
+		}
+		
+		long offset;
+		try {
+			LineIndex index = LineIndex.open(file.toPath());
+			if(index == null) {
+				buildLineIndex(file);
+				index = LineIndex.open(file.toPath());
+			}
+			if(index == null) {
+				throw new APIException("Input file changed while it was indexed");
+			}
+			try(LineIndex lineIndex = index) {
+				offset = lineIndex.getLineOffset(lineNumber);
+			}
+			return packer.solveLine(lineNumber, readLine(file, offset));
+		} catch(IOException e) {
+			throw new APIException("Error reading input file", e);
+		}
+	}
+	
+	
+	/**
+	 * Reads the input file and writes the package of each line to the output file, in the same format of
+	 * {@link #pack(String)}.
+	 * <p>
+	 * With {@link PackerOpts#getCheckpointLines()} a checkpoint is saved next to the output file every that number of
+	 * lines, with the bytes and lines of the input and the bytes of the output already packed. With
+	 * {@link PackerOpts#isResume()} the packing starts from the last checkpoint, appending to the output file, and the
+	 * output file is the same of a packing that never stopped. The checkpoint is removed at the end. With checkpoints
+	 * the input is read in the calling thread, and it can't be compressed.
+	 *
+	 * @param input   path of the input file
+	 * @param output  path of the output file
+	 * @param options the {@link PackerOpts options} to this packer
+	 * @throws APIException in case of any error during package creation, or writing the output
+	 */
+	public static void pack(Path input, Path output, PackerOpts options) throws APIException {
+		checkStreams(input, output);
+		Packer packer = new Packer(options);
+		packer.checkInputFile(input.toString());
+		packer.getSolverSelector();
+		if(options.getCheckpointLines() > 0 || options.isResume()) {
+			new CheckpointedPacker(packer, options).pack(input, output);
+			return;
+		}
+		
+		try(OutputStream stream = Files.newOutputStream(output)) {
+			pack(input, stream, options);
+		} catch(IOException e) {
+			throw new APIException("Error writing output", e);
+		}
+	}
+	
+	
+	/**
+	 * Write the packages to the output encoded in UTF-8, and compressed with gzip if the options say so.
+	 */
+	private static void packTo(OutputStream output, PackerOpts options, WriterPacker packer) throws APIException {
+		if(!options.isGzipOutput()) {
+			packer.pack(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			return;
+		}
+		// closing the compression stream writes the end of the gzip stream, but doesn't close the output
+		try(OutputStream gzip = GzipStreams.compress(output)) {
+			packer.pack(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+		} catch(IOException e) {
+			throw new APIException("Error writing output", e);
+		}
+	}
+	
+	
+	@FunctionalInterface
+	private interface WriterPacker {
+		void pack(Writer output) throws APIException;
+	}
+	
+	
+	private static void checkStreams(Object input, Object output) throws APIException {
+		if(input == null) {
+			throw new APIException("Input cannot be null");
+		}
+		if(output == null) {
+			throw new APIException("Output cannot be null");
+		}
+	}
+	
+	
 	// this packer's options
 	private PackerOpts opts;
 	
+	// the UTF-8 bytes of the currency symbol, to find it in the bytes of the input
+	private byte[] currencySymbol;
+	
+	// the separator of the decimals and the one of the attributes of a thing, '.' and ',' or ',' and ';'
+	private byte decimalSeparator;
+	private byte attributeSeparator;
+	
+	// chooses the engine of each package, created when the packages are assembled to not fail in the constructor
+	private PackingSolverSelector solverSelector;
+	
+	// assembles the packages when there is a time budget, it can stop with the better package found so far
+	private BranchAndBoundPackageBuilder anytimeBuilder;
+	
+	// the byte of the line where the part being parsed starts, to give the column of its error in lenient mode
+	private int errorPosition = -1;
+	
 	
 	/**
 	 * Default constructor, protected visibility to disable directly
@@ -71,6 +428,10 @@ public class Packer {
 	 */
 	protected Packer(PackerOpts opts) {
 		this.opts = opts;
+		this.currencySymbol = opts.getCurrencySymbol() == null ? new byte[0] : opts.getCurrencySymbol().getBytes(StandardCharsets.UTF_8);
+		this.decimalSeparator = opts.isDecimalComma() ? (byte) ',' : (byte) '.';
+		this.attributeSeparator = opts.isDecimalComma() ? (byte) ';' : (byte) ',';
+		this.anytimeBuilder = new BranchAndBoundPackageBuilder();
 	}
 	
 	
@@ -78,6 +439,108 @@ public class Packer {
 	 * Read the input file, and based on the "things" inside it, calculate the optimal package.
 	 */
 	String createAllPackages(String filePath) throws APIException {
+		// build the response, could put all strings in a list and join through stream at the end of the method,
+		// but I will build a string while iterating over the file to not have to iterate over a list that can be
+		// very long if the input file has a lot of packages
+		StringJoiner packages = new StringJoiner(System.lineSeparator());
+		createAllPackages(filePath, solution -> packages.add(solution.getCombination()));
+		return packages.toString();
+	}
+	
+	
+	/**
+	 * Read the input file, and write the optimal package of each line to the output as soon as it's assembled.
+	 */
+	void writeAllPackages(String filePath, Writer output) throws APIException {
+		// a file never blocks, the output is flushed only at the end
+		PackageWriter writer = new PackageWriter(output, () -> false);
+		try {
+			createAllPackages(filePath, writer);
+			writer.finish();
+		} catch(UncheckedIOException e) {
+			throw new APIException("Error writing output", e.getCause());
+		} catch(IOException e) {
+			throw new APIException("Error writing output", e);
+		}
+	}
+	
+	
+	/**
+	 * Read the lines of the input, and write the optimal package of each line to the output as soon as it's assembled.
+	 */
+	void writeAllPackages(ByteLineIterator it, Writer output) throws APIException {
+		// check the engine before reading the input
+		getSolverSelector();
+		
+		PackageWriter writer = new PackageWriter(output, it::isDrained);
+		try {
+			createAllPackages(it, writer);
+		} catch(UncheckedIOException e) {
+			throw new APIException("Error writing output", e.getCause());
+		} catch(IOException e) {
+			throw new APIException("Error reading input", e);
+		}
+		try {
+			writer.finish();
+		} catch(IOException e) {
+			throw new APIException("Error writing output", e);
+		}
+	}
+	
+	
+	/**
+	 * Read the input file, and based on the "things" inside it, calculate the optimal package of each line and give
+	 * it to the consumer, in the same order of the lines.
+	 */
+	void createAllPackages(String filePath, Consumer<PackageSolution> consumer) throws APIException {
+		File input = checkInputFile(filePath);
+		
+		// check the engine before reading the file
+		getSolverSelector();
+		
+		// a big file can be split in chunks, parsed and solved in parallel, but a compressed one can only be read as a
+		// stream
+		if(opts.getMappedInputThreads() > 0 && !isGzip(input)) {
+			new MappedFilePacker(opts).createAllPackages(input, consumer);
+			// the chunks are read by many threads, the lines are indexed reading the file again
+			if(opts.isLineIndex()) {
+				buildLineIndex(input);
+			}
+			return;
+		}
+		
+		// Must have a method to get the ByteLineIterator instead of just creating it here, otherwise we cannot
+		// mock it in jUnit5 with Mockito.
+		// PowerMock does not have integration with jUnit5 yet and Mockito cannot mock static methods or constructors.
+		try(ByteLineIterator it = getFileLineIterator(input)) {
+			createAllPackages(it, consumer);
+		} catch(IOException e) {
+			throw new APIException("Error reading input file", e);
+		}
+	}
+	
+	
+	/**
+	 * Read the binary manifest, and calculate the optimal package of each package of the manifest and give it to the
+	 * consumer, in the same order.
+	 */
+	void createAllPackages(ByteBuffer manifest, Consumer<PackageSolution> consumer) throws APIException {
+		if(manifest == null) {
+			throw new APIException("Input cannot be null");
+		}
+		// check the engine before reading the manifest
+		getSolverSelector();
+		BinaryManifest.createAllPackages(this, manifest, opts.getMaxThings(), consumer);
+	}
+	
+	
+	/**
+	 * Check the path of the input file.
+	 *
+	 * @return the input file
+	 * @throws APIException if the path is empty or the file doesn't exists
+	 */
+	File checkInputFile(String filePath) throws APIException {
 		LOGGER.debug("Input file path is: {}", filePath);
 		
 		// check filepath
@@ -90,83 +553,412 @@ public class Packer {
 		if(!input.exists()) {
 			throw new APIException(String.format("File %s not found", filePath));
 		}
+		return input;
+	}
+	
+	
+	/**
+	 * Read the lines of the input, and based on the "things" inside them, calculate the optimal package of each line
+	 * and give it to the consumer, in the same order of the lines.
+	 */
+	void createAllPackages(ByteLineIterator it, Consumer<PackageSolution> consumer) throws APIException, IOException {
+		createAllPackages(it, consumer, getErrorSink());
+	}
+	
+	
+	/**
+	 * Read the lines of the input, and calculate the optimal package of each line and give it to the consumer, in the
+	 * same order of the lines. In {@link PackerOpts#isLenient() lenient mode} the errors of the wrong lines are given
+	 * to the error sink, with the number of the line in this input.
+	 */
+	void createAllPackages(ByteLineIterator it, Consumer<PackageSolution> consumer, Consumer<LineError> errorSink)
+			throws APIException, IOException {
+		// reading, parsing and solving can run in a pipeline of threads
+		if(opts.getPipelineParserThreads() > 0) {
+			new PipelinedPacker(opts).createAllPackages(it, consumer, errorSink);
+			return;
+		}
 		
-		// build the response, could put all strings in a list and join through stream at the end of the method,
-		// but I will build a string while iterating over the file to not have to iterate over a list that can be
-		// very long if the input file has a lot of packages
-		StringBuilder sb = new StringBuilder();
+		// create all packages while reading the file
+		// read all the file first and then calculate the packages will need
+		// to keep all packages in memory, and we don't know how long could be the input file
+		// and how many packages could be inside a file, we could run out of memory even if its only text files
 		
-		// create a line separator, empty at the first cycle and after the first we will assign the System.lineSeparator
-		// to this separator and append this separator to the stingBuilder before a new package
-		// creating something like sb.append("").append(package).append("\n").append(package)
-		String pkgSeparator = "";
+		// Because we are creating the packages while the file is open, we must try to do all operations the
+		// fast as we can, to release the file as soon as possible: the lines are parsed from the bytes of the
+		// file, without decoding them to Strings, and the list of things is reused for all the lines
+		List<Thing> things = new ArrayList<>();
+		long lineNumber = 0L;
+		while(it.hasNext()) {
+			it.nextLine();
+			if(LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Read input line: {}", it.getLine());
+			}
+			
+			lineNumber++;
+			consumer.accept(packLine(it.getBuffer(), it.getLineStart(), it.getLineEnd(), lineNumber, things, errorSink));
+		}
+	}
+	
+	
+	/**
+	 * Parse and solve a line. In {@link PackerOpts#isLenient() lenient mode} the error of a wrong line is given to the
+	 * error sink, and its package is the {@link PackerOpts#getErrorPlaceholder() placeholder}.
+	 *
+	 * @param line       the bytes of the line
+	 * @param start      the first byte of the line
+	 * @param end        the byte after the last one of the line
+	 * @param lineNumber the number of the line, starting from 1
+	 * @param things     the list reused for the things of the line
+	 * @param errorSink  who receives the error of a wrong line in lenient mode
+	 * @return the package of the line
+	 * @throws APIException if the line is wrong and the mode is not lenient
+	 */
+	PackageSolution packLine(byte[] line, int start, int end, long lineNumber, List<Thing> things,
+	                         Consumer<LineError> errorSink) throws APIException {
+		things.clear();
+		try {
+			double packageWeight = parseLine(line, start, end, things);
+			errorPosition = -1;
+			return assemblePackage(things, packageWeight);
+		} catch(APIException e) {
+			if(!opts.isLenient()) {
+				throw e;
+			}
+			errorSink.accept(toLineError(e, lineNumber, line, start));
+			return errorPlaceholder();
+		}
+	}
+	
+	
+	/**
+	 * The error of a line with the column where it was found by the last {@link #parseLine(byte[], int, int, List)},
+	 * or {@link LineError#WHOLE_LINE} if the line was parsed.
+	 */
+	LineError toLineError(APIException e, long lineNumber, byte[] line, int start) {
+		// the columns count characters, not bytes
+		int column = errorPosition < 0 ? LineError.WHOLE_LINE
+				: new String(line, start, errorPosition - start, StandardCharsets.UTF_8).length() + 1;
+		return new LineError(lineNumber, column, e.getMessage());
+	}
+	
+	
+	/**
+	 * @return the package of a wrong line in lenient mode, without things, and optimal because no time budget ran out
+	 */
+	PackageSolution errorPlaceholder() {
+		return new PackageSolution(opts.getErrorPlaceholder(), Collections.<Integer>emptyList(), 0D, 0D, true);
+	}
+	
+	
+	/**
+	 * @return the error sink of the options, or a sink that logs the errors
+	 */
+	Consumer<LineError> getErrorSink() {
+		return errorSink(opts);
+	}
+	
+	
+	/**
+	 * @return the error sink of the options, or a sink that logs the errors
+	 */
+	static Consumer<LineError> errorSink(PackerOpts opts) {
+		if(opts.getErrorSink() != null) {
+			return opts.getErrorSink();
+		}
+		return error -> LOGGER.warn("Wrong input {}", error);
+	}
+	
+	
+	/**
+	 * Parse and solve a single line of the input, the errors of the line are returned in the result.
+	 *
+	 * @param lineNumber the number of the line, starting from 1
+	 * @param line       the UTF-8 bytes of the line, without the line terminator
+	 * @return the package of the line, or its error
+	 */
+	PackResult solveLine(long lineNumber, byte[] line) {
+		try {
+			List<Thing> things = new ArrayList<>();
+			double packageWeight = parseLine(line, 0, line.length, things);
+			return new PackResult(lineNumber, assemblePackage(things, packageWeight));
+		} catch(APIException e) {
+			LOGGER.debug("Error in line {}: {}", lineNumber, e.getMessage());
+			return new PackResult(lineNumber, e);
+		}
+	}
+	
+	
+	/**
+	 * Parse a line of the input file from its UTF-8 bytes, with the same rules and errors of
+	 * {@link #extractPackageWeightFromInput(String)} and {@link #extractThingFromInput(String)}: the line has the
+	 * format [packageWeight : thingsList], and each thing is between parentheses.
+	 *
+	 * @param line   the bytes of the line
+	 * @param start  the first byte of the line
+	 * @param end    the byte after the last one of the line
+	 * @param things the list where the things of the line are added
+	 * @return the package weight
+	 * @throws APIException if the line is not in the expected format
+	 */
+	double parseLine(byte[] line, int start, int end, List<Thing> things) throws APIException {
+		// like line.split(":").length != 2, where the trailing empty parts are not counted
+		int partsEnd = end;
+		while(partsEnd > start && line[partsEnd - 1] == ':') {
+			partsEnd--;
+		}
+		errorPosition = start;
+		int colon = indexOf(line, (byte) ':', start, partsEnd);
+		if(colon < 0 || indexOf(line, (byte) ':', colon + 1, partsEnd) >= 0) {
+			throw parseError("Incorrect input format in input line, expected format [packageWeight : thingsList]", null);
+		}
 		
+		double packageWeight = parsePackageWeight(line, start, colon);
 		
-		// Must have a method to get the LineIterator instead of just using FileUtils.lineIterator, otherwise we cannot
-		// mock the LineIterator itself in jUnit5 with Mockito.
-		// PowerMock does not have integration with jUnit5 yet and Mockito cannot mock static methods or constructors.
-		try(LineIterator it = getFileLineIterator(input)) {
-			
-			// create all packages while reading the file
-			// read all the file first and then calculate the packages will need
-			// to keep all packages in memory, and we don't know how long could be the input file
-			// and how many packages could be inside a file, we could run out of memory even if its only text files
+		// we will read a maximum of opts.maxThings things, matching the input (index, weight, cost) like the regular
+		// expression \(([^)]+)\): from a '(' to the first ')' after it, with something between them
+		int from = colon + 1;
+		while(true) {
+			int open = indexOf(line, (byte) '(', from, end);
+			int close = open < 0 ? -1 : indexOf(line, (byte) ')', open + 1, end);
+			if(close < 0) {
+				break;
+			}
+			if(close == open + 1) {
+				from = open + 1;
+				continue;
+			}
+			from = close + 1;
 			
-			// Because we are creating the packages while the file is open, we must try to do all operations the
-			// fast as we can, to release the file as soon as possible
-			while(it.hasNext()) {
-				String line = it.nextLine();
-				LOGGER.debug("Read input line: {}", line);
-				
-				
-				// split.size != 2 thrown error
-				String[] split = line.split(":");
-				if(split.length != 2) {
-					throw new APIException("Incorrect input format in input line, expected format [packageWeight : thingsList]");
-				}
-				
-				// In case of NumberFormatException here, we will stop and throw an exception
-				double packageWeight = extractPackageWeightFromInput(split[0]);
-				
-				// we will read a maximum of 15 things, matching the input (index, weight, cost)
-				List<Thing> things = new ArrayList<>();
-				Pattern pattern = Pattern.compile("\\(([^)]+)\\)");
-				Matcher matcher = pattern.matcher(line);
-				while(matcher.find()) {
-					if(things.size() >= 15) {
-						throw new APIException(String.format("Package %s has more than 15 things to be chosen.", packageWeight));
-					}
-					String thingDefinition = matcher.group(1);
-					LOGGER.debug("Founded thing definition: {}", thingDefinition);
-					
-					Thing thing = extractThingFromInput(thingDefinition);
-					LOGGER.debug("Thing converted: {}", thing);
-					
-					things.add(thing);
-				}
-				
-				sb.append(pkgSeparator).append(PackageBuilder.assemblePackage(things, packageWeight).orElse("-"));
-				pkgSeparator = System.lineSeparator();
+			errorPosition = open;
+			if(things.size() >= opts.getMaxThings()) {
+				throw parseError(String.format("Package %s has more than %d things to be chosen.", packageWeight, opts.getMaxThings()), null);
 			}
+			Thing thing = parseThing(line, open + 1, close);
+			LOGGER.debug("Thing converted: {}", thing);
 			
-		} catch(IOException e) {
-			throw new APIException("Error reading input file", e);
+			things.add(thing);
+		}
+		return packageWeight;
+	}
+	
+	
+	/**
+	 * Decode the package weight, the plain decimals directly from the bytes and any other format (or error) with
+	 * {@link #extractPackageWeightFromInput(String)}.
+	 */
+	private double parsePackageWeight(byte[] line, int from, int to) throws APIException {
+		double packageWeight = AsciiNumbers.parseDecimal(line,
+				AsciiNumbers.skipSpaces(line, from, to), AsciiNumbers.skipTrailingSpaces(line, from, to), decimalSeparator);
+		if(Double.isNaN(packageWeight)) {
+			return extractPackageWeightFromInput(new String(line, from, to - from, StandardCharsets.UTF_8));
+		}
+		LOGGER.debug("Package max weight: {}", packageWeight);
+		return packageWeight;
+	}
+	
+	
+	/**
+	 * Decode a thing definition, the plain "index,weight,cost" (or "index;weight;cost" with a decimal comma) directly
+	 * from the bytes and any other format (or error) with {@link #extractThingFromInput(String)}.
+	 */
+	private Thing parseThing(byte[] line, int from, int to) throws IncorrectThingDefinition {
+		int firstComma = indexOf(line, attributeSeparator, from, to);
+		int secondComma = firstComma < 0 ? -1 : indexOf(line, attributeSeparator, firstComma + 1, to);
+		if(secondComma >= 0 && indexOf(line, attributeSeparator, secondComma + 1, to) < 0) {
+			int index = AsciiNumbers.parseIndex(line, from, firstComma);
+			double weight = AsciiNumbers.parseDecimal(line, AsciiNumbers.skipSpaces(line, firstComma + 1, secondComma),
+					AsciiNumbers.skipTrailingSpaces(line, firstComma + 1, secondComma), decimalSeparator);
+			double cost = parseCost(line, secondComma + 1, to);
+			if(index != AsciiNumbers.NOT_DECODED && !Double.isNaN(weight) && !Double.isNaN(cost)) {
+				return new Thing(index, weight, cost);
+			}
+		}
+		return extractThingFromInput(new String(line, from, to - from, StandardCharsets.UTF_8));
+	}
+	
+	
+	/**
+	 * Decode a cost with the currency symbol before or after it, {@link Double#NaN} if it's not a plain decimal.
+	 */
+	private double parseCost(byte[] line, int from, int to) {
+		int start = AsciiNumbers.skipSpaces(line, from, to);
+		int end = AsciiNumbers.skipTrailingSpaces(line, from, to);
+		int symbolLength = currencySymbol.length;
+		if(symbolLength > 0) {
+			if(startsWith(line, start, end, currencySymbol)) {
+				start = AsciiNumbers.skipSpaces(line, start + symbolLength, end);
+			} else if(startsWith(line, end - symbolLength, end, currencySymbol)) {
+				end = AsciiNumbers.skipTrailingSpaces(line, start, end - symbolLength);
+			}
+		}
+		return AsciiNumbers.parseDecimal(line, start, end, decimalSeparator);
+	}
+	
+	
+	private static int indexOf(byte[] bytes, byte value, int from, int to) {
+		for(int i = from; i < to; i++) {
+			if(bytes[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	
+	private static boolean startsWith(byte[] bytes, int from, int to, byte[] prefix) {
+		if(from < 0 || to - from < prefix.length) {
+			return false;
+		}
+		for(int i = 0; i < prefix.length; i++) {
+			if(bytes[from + i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Assemble the package with the {@link PackingSolver engine} of the {@link PackerOpts#getEngine() options}, or
+	 * with the engine with the lowest estimated cost for this package when the engine is
+	 * {@link PackerOpts#ENGINE_AUTO} or the chosen one can't assemble it. The things that can't be inside the better
+	 * package are {@link PackageReducer removed} first, and if the others fit all together no engine is needed.
+	 * <p>
+	 * With a {@link PackerOpts#getLineTimeBudgetMillis() time budget}, the package is assembled by the branch and
+	 * bound builder, that starts from the greedy package and improves it until the budget runs out, whatever the
+	 * engine of the options: it's the only one that can stop with the better package found so far.
+	 */
+	PackageSolution assemblePackage(List<Thing> things, double packageWeight) throws APIException {
+		List<Thing> usefulThings = PackageReducer.reduce(things, packageWeight);
+		Optional<String> allThings = PackageReducer.packAll(usefulThings, packageWeight);
+		if(allThings.isPresent()) {
+			return toSolution(usefulThings, allThings, true);
+		}
+		
+		if(opts.getLineTimeBudgetMillis() > 0) {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(opts.getLineTimeBudgetMillis());
+			Optional<String> betterPackage = anytimeBuilder.resolveBetterPackage(usefulThings, packageWeight, deadline);
+			if(!anytimeBuilder.isOptimal()) {
+				LOGGER.warn("Package {} ran out of its time budget, the package found could not be the better one", packageWeight);
+			}
+			return toSolution(usefulThings, betterPackage, anytimeBuilder.isOptimal());
 		}
 		
-		return sb.toString();
+		PackingSolver solver = getSolverSelector().select(usefulThings, packageWeight);
+		return toSolution(usefulThings, solver.solve(usefulThings, packageWeight), true);
 	}
 	
 	
-	double extractPackageWeightFromInput(String definition) throws APIException {
-		try {
-			double packageWeight = Double.parseDouble(definition.trim());
-			LOGGER.debug("Package max weight: {}", packageWeight);
-			if(packageWeight < 0) {
-				throw new APIException("Package weight is negative: \"" + definition.trim() + "\"");
+	private PackingSolverSelector getSolverSelector() throws APIException {
+		if(solverSelector == null) {
+			solverSelector = new PackingSolverSelector(opts);
+			if(opts.getLineTimeBudgetMillis() > 0 && !PackerOpts.ENGINE_AUTO.equals(opts.getEngine())
+					&& !PackerOpts.ENGINE_BRANCH_AND_BOUND.equals(opts.getEngine())) {
+				LOGGER.info("Engine {} can't stop at the line time budget, the packages are assembled with {}",
+						opts.getEngine(), PackerOpts.ENGINE_BRANCH_AND_BOUND);
+			}
+		}
+		return solverSelector;
+	}
+	
+	
+	/**
+	 * Sum weight and cost of the things of a package. The engines give the indexes in the same order of the things,
+	 * so each index is the first thing with that index after the previous one. The indexes are decoded from the
+	 * characters of the combination, without splitting it, and kept in the solution.
+	 */
+	private static PackageSolution toSolution(List<Thing> things, Optional<String> aPackage, boolean optimal) {
+		if(!aPackage.isPresent()) {
+			return new PackageSolution(PackageSolution.NO_THINGS, 0D, 0D, optimal);
+		}
+		String combination = aPackage.get();
+		List<Integer> indexes = new ArrayList<>();
+		double weight = 0D;
+		double cost = 0D;
+		int position = 0;
+		int index = 0;
+		for(int i = 0; i <= combination.length(); i++) {
+			if(i < combination.length() && combination.charAt(i) != ',') {
+				index = index * 10 + (combination.charAt(i) - '0');
+				continue;
+			}
+			while(things.get(position).getIndex() != index) {
+				position++;
 			}
-			return packageWeight;
-		} catch(NumberFormatException nfe) {
-			throw new APIException(String.format("Incorrect format for package weight: \"%s\"", definition.trim()), nfe);
+			indexes.add(index);
+			weight += things.get(position).getWeight();
+			cost += things.get(position).getCost();
+			position++;
+			index = 0;
+		}
+		return new PackageSolution(combination, indexes, weight, cost, optimal);
+	}
+	
+	
+	double extractPackageWeightFromInput(String definition) throws APIException {
+		// a wrong number is NaN, so its error is created without a NumberFormatException
+		double packageWeight = toDouble(definition.trim());
+		LOGGER.debug("Package max weight: {}", packageWeight);
+		checkPackageWeight(packageWeight, definition.trim(), !opts.isLenient());
+		return packageWeight;
+	}
+	
+	
+	/**
+	 * Check a package weight decoded from any input: it can't be negative, not a number or infinite.
+	 *
+	 * @param packageWeight the package weight
+	 * @param definition    the package weight as it's written in the input, for the error
+	 * @throws APIException if the package weight is wrong
+	 */
+	static void checkPackageWeight(double packageWeight, String definition) throws APIException {
+		checkPackageWeight(packageWeight, definition, true);
+	}
+	
+	
+	/**
+	 * Same as {@link #checkPackageWeight(double, String)}, with the stack trace of the error only if it's writable.
+	 *
+	 * @param writableStackTrace <code>false</code> for the errors of lenient mode, that are only given to the sink
+	 */
+	static void checkPackageWeight(double packageWeight, String definition, boolean writableStackTrace)
+			throws APIException {
+		if(Double.isNaN(packageWeight) || Double.isInfinite(packageWeight)) {
+			throw new APIException(String.format("Incorrect format for package weight: \"%s\"", definition), null, writableStackTrace);
+		}
+		if(packageWeight < 0) {
+			throw new APIException("Package weight is negative: \"" + definition + "\"", null, writableStackTrace);
+		}
+	}
+	
+	
+	/**
+	 * Check the weight or the cost of a thing decoded from any input: it can't be negative, not a number or infinite.
+	 *
+	 * @param value      the weight or the cost
+	 * @param field      "weight" or "cost", for the error
+	 * @param definition the value as it's written in the input, for the error
+	 * @throws IncorrectThingDefinition if the value is wrong
+	 */
+	static void checkThingValue(double value, String field, String definition) throws IncorrectThingDefinition {
+		checkThingValue(value, field, definition, true);
+	}
+	
+	
+	/**
+	 * Same as {@link #checkThingValue(double, String, String)}, with the stack trace of the error only if it's
+	 * writable.
+	 *
+	 * @param writableStackTrace <code>false</code> for the errors of lenient mode, that are only given to the sink
+	 */
+	static void checkThingValue(double value, String field, String definition, boolean writableStackTrace)
+			throws IncorrectThingDefinition {
+		if(Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new IncorrectThingDefinition("Incorrect format for thing's " + field + ": \"" + definition + "\"", null, writableStackTrace);
+		}
+		if(value < 0) {
+			throw new IncorrectThingDefinition("Thing's " + field + " is negative: \"" + definition + "\"", null, writableStackTrace);
 		}
 	}
 	
@@ -174,7 +966,8 @@ public class Packer {
 	/**
 	 * Create a Thing object based on thing's definition in input. A thing definition is expected in the format
 	 * {index, weight, cost} (without the brackets), where index is an integer, weight and cost are doubles and cost has
-	 * the {@link PackerOpts#currencySymbol currency} symbol after it (For example 3.50€).
+	 * the {@link PackerOpts#currencySymbol currency} symbol before or after it (For example 3.50€). With a
+	 * {@link PackerOpts#isDecimalComma() decimal comma} the format is {index; weight; cost} (For example 1;53,38;€3,50).
 	 *
 	 * @param definition the thing's string definition
 	 * @return the converted Thing object
@@ -183,58 +976,134 @@ public class Packer {
 	 */
 	Thing extractThingFromInput(String definition) throws IncorrectThingDefinition {
 		LOGGER.debug("Thing definition to convert: {}", definition);
-		// we could use PackerOpts to define the Thing attributes' separator
-		String[] attributes = definition.split(",");
+		String[] attributes = definition.split(opts.isDecimalComma() ? ";" : ",");
 		if(attributes.length != 3) {
 			String error = String.format("Incorrect format for thing in input: %s", definition);
-			throw new IncorrectThingDefinition(error);
+			throw thingError(error, null);
 		}
 		
-		int index;
-		try {
-			index = Integer.parseInt(attributes[0]);
-			if(index < 0) {
-				throw new IncorrectThingDefinition("Thing's index is negative: \"" + attributes[0].trim() + "\"");
-			}
-		} catch(NumberFormatException nfe) {
-			throw new IncorrectThingDefinition("Incorrect format for thing's index: \"" + attributes[0].trim() + "\"", nfe);
+		// the numbers are checked before they are decoded, so the errors are created without a NumberFormatException
+		if(!AsciiNumbers.isInt(attributes[0])) {
+			throw thingError("Incorrect format for thing's index: \"" + attributes[0].trim() + "\"", null);
+		}
+		int index = Integer.parseInt(attributes[0]);
+		if(index < 0) {
+			throw thingError("Thing's index is negative: \"" + attributes[0].trim() + "\"", null);
 		}
 		
+		double weight = toDouble(attributes[1]);
+		checkThingValue(weight, "weight", attributes[1].trim(), !opts.isLenient());
 		
-		double weight;
-		try {
-			weight = Double.valueOf(attributes[1]);
-			if(weight < 0) {
-				throw new IncorrectThingDefinition("Thing's weight is negative: \"" + attributes[1].trim() + "\"");
+		double cost = toDouble(withoutCurrency(attributes[2].trim()));
+		checkThingValue(cost, "cost", attributes[2].trim(), !opts.isLenient());
+		
+		return new Thing(index, weight, cost);
+	}
+	
+	
+	/**
+	 * Remove the currency symbol from the start or the end of a cost, like the bytes of the costs are decoded.
+	 */
+	private String withoutCurrency(String cost) {
+		String symbol = opts.getCurrencySymbol();
+		if(PackerUtils.isStringEmptyOrNull(symbol)) {
+			return cost;
+		}
+		if(cost.startsWith(symbol)) {
+			return cost.substring(symbol.length());
+		}
+		if(cost.endsWith(symbol)) {
+			return cost.substring(0, cost.length() - symbol.length());
+		}
+		return cost;
+	}
+	
+	
+	/**
+	 * Decode a decimal as {@link Double#parseDouble(String)} does, with a comma instead of the point with a decimal
+	 * comma.
+	 *
+	 * @return the decimal, or {@link Double#NaN} if it's not a decimal. With a decimal comma a point is a thousands
+	 * separator of the EU feeds, and reading 1.000 as 1 would be wrong: a decimal with a point is not a decimal
+	 */
+	private double toDouble(String decimal) {
+		String javaDecimal = decimal;
+		if(opts.isDecimalComma()) {
+			if(decimal.indexOf('.') >= 0) {
+				return Double.NaN;
 			}
-		} catch(NumberFormatException nfe) {
-			throw new IncorrectThingDefinition("Incorrect format for thing's weight: \"" + attributes[1].trim() + "\"", nfe);
+			javaDecimal = decimal.replace(',', '.');
 		}
-		
-		double cost;
+		return AsciiNumbers.isDecimal(javaDecimal) ? Double.parseDouble(javaDecimal) : Double.NaN;
+	}
+	
+	
+	private static void buildLineIndex(File input) throws APIException {
 		try {
-			String costWithoutCurrency = attributes[2].replace(opts.getCurrencySymbol(), "");
-			cost = Double.valueOf(costWithoutCurrency);
-			if(cost < 0) {
-				throw new IncorrectThingDefinition("Thing's cost is negative: \"" + attributes[2].trim() + "\"");
+			LineIndex.build(input.toPath());
+		} catch(IOException e) {
+			throw new APIException("Error indexing input file", e);
+		}
+	}
+	
+	
+	/**
+	 * Read the line that starts at the given byte of the input file.
+	 */
+	private static byte[] readLine(File input, long offset) throws IOException {
+		// the iterator closes the channel too, but only once it's created
+		try(FileChannel channel = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+			ByteLineIterator it = new ByteLineIterator(Channels.newInputStream(channel.position(offset)))) {
+			if(!it.hasNext()) {
+				return new byte[0];
 			}
-		} catch(NumberFormatException nfe) {
-			throw new IncorrectThingDefinition("Incorrect format for thing's cost: \"" + attributes[2].trim() + "\"", nfe);
+			it.nextLine();
+			return Arrays.copyOfRange(it.getBuffer(), it.getLineStart(), it.getLineEnd());
+		}
+	}
+	
+	
+	private static boolean isGzip(File input) throws APIException {
+		try {
+			return GzipStreams.isGzip(input);
+		} catch(IOException e) {
+			throw new APIException("Error reading input file", e);
 		}
-		
-		return new Thing(index, weight, cost);
 	}
 	
 	
 	/**
-	 * Utility method to get a LineIterator over the input file.
+	 * The errors of the input, without stack trace in lenient mode where many of them are expected.
+	 */
+	private APIException parseError(String message, Throwable cause) {
+		return new APIException(message, cause, !opts.isLenient());
+	}
+	
+	
+	private IncorrectThingDefinition thingError(String message, Throwable cause) {
+		return new IncorrectThingDefinition(message, cause, !opts.isLenient());
+	}
+	
+	
+	/**
+	 * Utility method to get a ByteLineIterator over the input file, decompressed in its own thread if it's
+	 * compressed with gzip, or indexing its lines with {@link PackerOpts#isLineIndex()}.
 	 *
 	 * @param input the file to open for input, must not be {@code null}
 	 * @return an Iterator of the lines in the file, never {@code null}
 	 * @throws IOException in case of an I/O error
 	 */
-	LineIterator getFileLineIterator(File input) throws IOException {
-		return FileUtils.lineIterator(input, StandardCharsets.UTF_8.name());
+	ByteLineIterator getFileLineIterator(File input) throws IOException {
+		FileInputStream file = new FileInputStream(input);
+		try {
+			if(opts.isLineIndex() && !GzipStreams.isGzip(input)) {
+				return new IndexingLineIterator(file, new LineIndex.Writer(input.toPath()));
+			}
+			return new ByteLineIterator(GzipStreams.decompressIfGzip(file));
+		} catch(IOException e) {
+			file.close();
+			throw e;
+		}
 	}
 	
 }
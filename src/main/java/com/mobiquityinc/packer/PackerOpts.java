@@ -1,5 +1,9 @@
 package com.mobiquityinc.packer;
 
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.utils.PackerUtils;
+
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 
 
@@ -18,15 +22,131 @@ public class PackerOpts {
 	 * different currencies in the input file other than Euro
 	 */
 	
+	/**
+	 * Default max number of things that a package can have in the input file
+	 */
+	public static final int DEFAULT_MAX_THINGS = 15;
+	
+	/**
+	 * Chooses for each package the engine with the lowest estimated cost, based on the number of things, how many of
+	 * them fit in the package and the decimals of their weights and costs
+	 */
+	public static final String ENGINE_AUTO = "auto";
+	
+	/**
+	 * Engine that evaluates all the combinations of things, and pairs the combinations of two halves of the list when
+	 * there are more than 15 things
+	 */
+	public static final String ENGINE_POWERSET = "powerset";
+	
+	/**
+	 * Engine that pairs the combinations of two halves of the list of things
+	 */
+	public static final String ENGINE_MEET_IN_THE_MIDDLE = "meet-in-the-middle";
+	
+	/**
+	 * Engine that scales weights and costs to integers and solves the package with dynamic programming
+	 */
+	public static final String ENGINE_DYNAMIC_PROGRAMMING = "dynamic-programming";
+	
+	/**
+	 * Engine that searches the combinations skipping the ones that can't beat the better package found
+	 */
+	public static final String ENGINE_BRANCH_AND_BOUND = "branch-and-bound";
+	
+	/**
+	 * Engine that evaluates all the combinations of things in Gray code order, without keeping them in memory
+	 */
+	public static final String ENGINE_GRAY_CODE = "gray-code";
+	
+	/**
+	 * Engine that evaluates all the combinations of things in blocks, with SIMD instructions on Java 17+ when the
+	 * jdk.incubator.vector module is available
+	 */
+	public static final String ENGINE_HALF_TABLE = "half-table";
+	
+	
 	// currency symbol that will be in the input file
 	private String currencySymbol;
 	
+	// max number of things that a package can have in the input file
+	private int maxThings;
+	
+	// the engine that assembles the packages
+	private String engine;
+	
+	// max number of decimals of weights and costs, used by the engines that work with integers
+	private int decimalScale;
+	
+	// max milliseconds to assemble the package of a line, 0 for no limit
+	private long lineTimeBudgetMillis;
+	
+	// number of threads that assemble the package of a single line
+	private int packageParallelism;
+	
+	// number of threads that parse and solve the chunks of a memory-mapped input file, 0 to read it as a stream
+	private int mappedInputThreads;
+	
+	// compress with gzip the output written to an OutputStream
+	private boolean gzipOutput;
+	
+	// threads and queues of the pipeline of reader, parsers, solvers and writer
+	private int pipelineParserThreads;
+	private int pipelineSolverThreads;
+	private int pipelineQueueSize;
+	private int pipelineBatchLines;
+	
+	// number of files of a batch packed at the same time
+	private int batchThreads;
+	
+	// lines between the checkpoints of an output file, and if the packing starts from the last checkpoint
+	private long checkpointLines;
+	private boolean resume;
+	
+	// the wrong lines are written as the placeholder and given to the error sink, instead of stopping the packing
+	private boolean lenient;
+	private String errorPlaceholder;
+	private Consumer<LineError> errorSink;
+	
+	// the decimals of the input are written with a comma, and the attributes of the things separated by semicolons
+	private boolean decimalComma;
+	
+	// the lines of an input file are indexed while they are read, to solve any line later without reading the others
+	private boolean lineIndex;
+	
+	// the pool that solves the requests already in memory, null for the common pool
+	private ForkJoinPool forkJoinPool;
+	
+	// the stages of the pipeline run on virtual threads, and the parsing and solving on a pool shared by all packers
+	private boolean virtualThreads;
+	
 	
 	/**
 	 * Default constructor, private to force Builder.build
 	 */
 	private PackerOpts(Builder builder) {
 		this.currencySymbol = builder.currencySymbol;
+		this.maxThings = builder.maxThings;
+		this.engine = builder.engine;
+		this.decimalScale = builder.decimalScale;
+		this.lineTimeBudgetMillis = builder.lineTimeBudgetMillis;
+		this.packageParallelism = builder.packageParallelism;
+		this.mappedInputThreads = builder.mappedInputThreads;
+		this.gzipOutput = builder.gzipOutput;
+		this.pipelineParserThreads = builder.pipelineParserThreads;
+		this.pipelineSolverThreads = builder.pipelineSolverThreads;
+		this.pipelineQueueSize = builder.pipelineQueueSize;
+		this.pipelineBatchLines = builder.pipelineBatchLines;
+		this.batchThreads = builder.batchThreads;
+		this.checkpointLines = builder.checkpointLines;
+		this.resume = builder.resume;
+		this.lenient = builder.lenient;
+		this.errorPlaceholder = builder.errorPlaceholder;
+		this.errorSink = builder.errorSink;
+		this.decimalComma = builder.decimalComma;
+		this.lineIndex = builder.lineIndex;
+		this.forkJoinPool = builder.forkJoinPool;
+		this.virtualThreads = builder.virtualThreads;
 	}
 	
 	
@@ -38,6 +158,181 @@ public class PackerOpts {
 	}
 	
 	
+	/**
+	 * @return the max number of things that a package can have in the input file
+	 */
+	public int getMaxThings() {
+		return maxThings;
+	}
+	
+	
+	/**
+	 * @return the name of the engine that assembles the packages
+	 */
+	public String getEngine() {
+		return engine;
+	}
+	
+	
+	/**
+	 * @return the max number of decimals of weights and costs
+	 */
+	public int getDecimalScale() {
+		return decimalScale;
+	}
+	
+	
+	/**
+	 * @return the max milliseconds to assemble the package of a line, 0 for no limit. With a limit the packages are
+	 * assembled with {@link #ENGINE_BRANCH_AND_BOUND}, whatever the {@link #getEngine() engine}
+	 */
+	public long getLineTimeBudgetMillis() {
+		return lineTimeBudgetMillis;
+	}
+	
+	
+	/**
+	 * @return the number of threads that assemble the package of a single line
+	 */
+	public int getPackageParallelism() {
+		return packageParallelism;
+	}
+	
+	
+	/**
+	 * @return the number of threads that parse and solve the chunks of a memory-mapped input file, 0 to read the
+	 * file as a stream in the calling thread
+	 */
+	public int getMappedInputThreads() {
+		return mappedInputThreads;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the packages written to an OutputStream are compressed with gzip
+	 */
+	public boolean isGzipOutput() {
+		return gzipOutput;
+	}
+	
+	
+	/**
+	 * @return the number of threads that parse the lines in the pipeline, 0 to parse and solve the lines in the
+	 * calling thread
+	 */
+	public int getPipelineParserThreads() {
+		return pipelineParserThreads;
+	}
+	
+	
+	/**
+	 * @return the number of threads that assemble the packages in the pipeline
+	 */
+	public int getPipelineSolverThreads() {
+		return pipelineSolverThreads;
+	}
+	
+	
+	/**
+	 * @return the number of batches of lines that each queue of the pipeline can hold
+	 */
+	public int getPipelineQueueSize() {
+		return pipelineQueueSize;
+	}
+	
+	
+	/**
+	 * @return the number of lines of each batch of the pipeline
+	 */
+	public int getPipelineBatchLines() {
+		return pipelineBatchLines;
+	}
+	
+	
+	/**
+	 * @return the number of files that {@link BatchPacker} packs at the same time
+	 */
+	public int getBatchThreads() {
+		return batchThreads;
+	}
+	
+	
+	/**
+	 * @return the number of lines between the checkpoints saved packing to an output file, 0 for no checkpoints
+	 */
+	public long getCheckpointLines() {
+		return checkpointLines;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the packing to an output file starts from its last checkpoint
+	 */
+	public boolean isResume() {
+		return resume;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if a wrong line doesn't stop the packing
+	 */
+	public boolean isLenient() {
+		return lenient;
+	}
+	
+	
+	/**
+	 * @return what is written in the output for a wrong line in lenient mode
+	 */
+	public String getErrorPlaceholder() {
+		return errorPlaceholder;
+	}
+	
+	
+	/**
+	 * @return who receives the errors of the wrong lines in lenient mode, <code>null</code> to log them
+	 */
+	public Consumer<LineError> getErrorSink() {
+		return errorSink;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the input is written like "81,5 : (1;53,38;45,10€)"
+	 */
+	public boolean isDecimalComma() {
+		return decimalComma;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the index of the lines is saved next to the input file when it's read
+	 */
+	public boolean isLineIndex() {
+		return lineIndex;
+	}
+	
+	
+	/**
+	 * @return the pool that solves the {@link com.mobiquityinc.packer.entities.PackageRequest requests} of
+	 * {@link Packer#pack(java.util.List, PackerOpts)}, <code>null</code> for {@link ForkJoinPool#commonPool()}. With a
+	 * {@link #getPackageParallelism() package parallelism} it also evaluates the combinations of the gray code engine
+	 */
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the reader, the parsers and the solvers of the pipeline are virtual threads, and
+	 * the parsing and the solving of the batches run on a bounded pool shared by all the packers. Only on Java 21 or
+	 * newer, the pipeline runs on its own platform threads in older versions
+	 */
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+	
+	
 	/**
 	 * Utility method to get the default options for the Packer
 	 *
@@ -65,6 +360,105 @@ public class PackerOpts {
 		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
 		public String currencySymbol;
 		
+		// the challenge allows up to 15 things for package, but lists of up to 40 things can be combined
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int maxThings = DEFAULT_MAX_THINGS;
+		
+		// ENGINE_AUTO, one of the ENGINE_* constants or the name of a PackingSolver registered with the ServiceLoader.
+		// If the engine can't assemble a package, the engine with the lowest estimated cost is used instead
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public String engine = ENGINE_POWERSET;
+		
+		// the input has at most 2 decimals, things with more decimals are assembled with the powerset engine
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int decimalScale = 2;
+		
+		// with a time budget the packages are assembled with branch and bound, that can stop when the budget runs out
+		// and return the better package found so far, flagged as not optimal in its PackageSolution. It takes the place
+		// of the engine of the options, the other engines can't stop
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public long lineTimeBudgetMillis = 0L;
+		
+		// with more than 1 thread, the gray code engine splits the combinations of a package with many things in
+		// sub-ranges evaluated in parallel, for files with few big lines
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int packageParallelism = 1;
+		
+		// with 1 or more threads the input file is memory-mapped and split in chunks of whole lines, parsed and solved
+		// in parallel, for big files with many lines. The packages are still given in the order of the lines
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int mappedInputThreads = 0;
+		
+		// the packages written to an OutputStream are compressed with gzip in their own thread. The input is always
+		// decompressed when it starts with the gzip magic bytes
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public boolean gzipOutput = false;
+		
+		// with 1 or more parser threads, the lines are read by a thread in batches, parsed by the parser threads,
+		// solved by the solver threads and given in order to the consumer. The bounded queues between the stages keep
+		// the batches in memory under 2 * pipelineQueueSize + parser threads + solver threads
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int pipelineParserThreads = 0;
+		
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int pipelineSolverThreads = Runtime.getRuntime().availableProcessors();
+		
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int pipelineQueueSize = 16;
+		
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int pipelineBatchLines = 256;
+		
+		// the files of a batch are packed by this number of threads, the biggest files first
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public int batchThreads = Runtime.getRuntime().availableProcessors();
+		
+		// packing an input file to an output file, a checkpoint is saved next to the output every checkpointLines
+		// lines, and with resume the packing starts from the last one. The lines are read in the calling thread and
+		// written as plain text, so checkpoints can't be used with gzipOutput, the pipeline or the mapped input
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public long checkpointLines = 0L;
+		
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public boolean resume = false;
+		
+		// in lenient mode a wrong line is written as the errorPlaceholder, its line, column and reason are given to
+		// the errorSink (or logged when it's null), and the packing goes on. The errors are created without their
+		// stack trace, so many wrong lines don't slow down the packing. The sink is called by the calling thread
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public boolean lenient = false;
+		
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public String errorPlaceholder = "ERROR";
+		
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public Consumer<LineError> errorSink;
+		
+		// the EU feeds write the decimals with a comma, like "81,5 : (1;53,38;45,10€)". The attributes of the things
+		// are separated by semicolons then, and the currency symbol can still be before or after the cost
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public boolean decimalComma = false;
+		
+		// reading a whole input file, the bytes where its lines start are saved next to it (input.txt.idx), so
+		// Packer.solveLine can solve any line of a big file without reading the lines before it. The compressed input
+		// files are not indexed
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public boolean lineIndex = false;
+		
+		// the requests of Packer.pack(List, PackerOpts) are solved in this pool, split in tasks while it has idle
+		// threads. It's not shut down by the packer. The common pool is used when it's null. With packageParallelism
+		// greater than 1 the gray code engine splits the combinations of a package in this pool too, or in a pool
+		// shared by all the packers when it's null
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public ForkJoinPool forkJoinPool;
+		
+		// on Java 21 or newer, the stages of the pipeline are virtual threads: the reader waiting for the input doesn't
+		// hold a platform thread, and thousands of packers can run at the same time. The parsing and the solving of the
+		// batches, that are CPU bound, run on a pool shared by all of them with a thread for each processor. It needs
+		// the pipeline, and it's ignored in older Java versions
+		@SuppressWarnings({"squid:ClassVariableVisibilityCheck"})
+		public boolean virtualThreads = false;
+		
 		
 		/**
 		 * A consumer to avoid every getter and setter of this builder
@@ -83,6 +477,53 @@ public class PackerOpts {
 		 * @return the PackerOpts built
 		 */
 		public PackerOpts build() {
+			if(maxThings < 0 || maxThings > MeetInTheMiddlePackageBuilder.MAX_THINGS) {
+				throw new IllegalArgumentException(String.format("Max things must be between 0 and %d, was %d",
+						MeetInTheMiddlePackageBuilder.MAX_THINGS, maxThings));
+			}
+			if(PackerUtils.isStringEmptyOrNull(engine)) {
+				throw new IllegalArgumentException("Engine cannot be null or empty");
+			}
+			if(decimalScale < 0 || decimalScale > 9) {
+				throw new IllegalArgumentException(String.format("Decimal scale must be between 0 and 9, was %d", decimalScale));
+			}
+			if(lineTimeBudgetMillis < 0) {
+				throw new IllegalArgumentException(String.format("Line time budget can't be negative, was %d", lineTimeBudgetMillis));
+			}
+			if(packageParallelism < 1) {
+				throw new IllegalArgumentException(String.format("Package parallelism must be at least 1, was %d", packageParallelism));
+			}
+			if(mappedInputThreads < 0) {
+				throw new IllegalArgumentException(String.format("Mapped input threads can't be negative, was %d", mappedInputThreads));
+			}
+			if(pipelineParserThreads < 0) {
+				throw new IllegalArgumentException(String.format("Pipeline parser threads can't be negative, was %d", pipelineParserThreads));
+			}
+			if(pipelineSolverThreads < 1 || pipelineQueueSize < 1 || pipelineBatchLines < 1) {
+				throw new IllegalArgumentException(String.format("Pipeline solver threads, queue size and batch lines must be at least 1, were %d, %d and %d",
+						pipelineSolverThreads, pipelineQueueSize, pipelineBatchLines));
+			}
+			if(batchThreads < 1) {
+				throw new IllegalArgumentException(String.format("Batch threads must be at least 1, was %d", batchThreads));
+			}
+			if(checkpointLines < 0) {
+				throw new IllegalArgumentException(String.format("Checkpoint lines can't be negative, was %d", checkpointLines));
+			}
+			if(lenient && PackerUtils.isStringEmptyOrNull(errorPlaceholder)) {
+				throw new IllegalArgumentException("Error placeholder cannot be null or empty");
+			}
+			if(decimalComma && currencySymbol != null && (currencySymbol.contains(";") || currencySymbol.contains(","))) {
+				throw new IllegalArgumentException(String.format("Currency symbol can't have separators with decimal comma, was \"%s\"", currencySymbol));
+			}
+			if(pipelineParserThreads > 0 && mappedInputThreads > 0) {
+				throw new IllegalArgumentException("Mapped input threads and pipeline parser threads can't be used together");
+			}
+			if(virtualThreads && pipelineParserThreads < 1) {
+				throw new IllegalArgumentException("Virtual threads need the pipeline, pipeline parser threads must be at least 1");
+			}
+			if((checkpointLines > 0 || resume) && (gzipOutput || pipelineParserThreads > 0 || mappedInputThreads > 0)) {
+				throw new IllegalArgumentException("Checkpoints can't be used with gzip output, pipeline parser threads or mapped input threads");
+			}
 			return new PackerOpts(this);
 		}
 	}
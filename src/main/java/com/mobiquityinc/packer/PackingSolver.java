@@ -0,0 +1,64 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Service Provider Interface of the engines that assemble the packages.
+ * <p>
+ * Engines are found with the {@link java.util.ServiceLoader}: to add a new one, implement this interface in a public
+ * class with a public no-args constructor and list it in a
+ * <code>META-INF/services/com.mobiquityinc.packer.PackingSolver</code> file. The engine can then be chosen by its
+ * {@link #getName() name} with {@link PackerOpts.Builder#engine}, or it can be chosen automatically with
+ * {@link PackerOpts#ENGINE_AUTO} when its {@link #estimateCost(PackageProfile) estimated cost} is the lowest one.
+ * <p>
+ * A new instance of every engine is created for each {@link Packer}, and it's used by one thread at time, so engines
+ * can keep state between packages and don't need to be thread safe.
+ *
+ * @author Hector Blanco
+ */
+public interface PackingSolver {
+	
+	/**
+	 * @return the unique name of this engine, used to choose it in the options
+	 */
+	String getName();
+	
+	
+	/**
+	 * Called once, before any package is assembled, with the options of the Packer that uses this engine.
+	 *
+	 * @param opts the options of the Packer
+	 */
+	default void configure(PackerOpts opts) {
+		// most engines don't need any option
+	}
+	
+	
+	/**
+	 * Estimate the cost of assembling a package with this engine. The unit is not relevant, as long as it's
+	 * comparable with the estimates of the other engines: the built-in engines estimate the number of elementary
+	 * operations (one combination evaluated, one cell of a table...).
+	 *
+	 * @param profile the profile of the package to assemble
+	 * @return the estimated cost, {@link Double#POSITIVE_INFINITY} if this engine can't assemble the package
+	 */
+	double estimateCost(PackageProfile profile);
+	
+	
+	/**
+	 * Assemble a package choosing the most optimized combination of things based on their weight and cost and
+	 * the total weight of the package: the combination with the higher cost and, with the same cost, the lighter one.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return a combination of the thing's indexes, separated by commas, that will compose the package
+	 * @throws APIException In case of any error during package assemble
+	 */
+	Optional<String> solve(List<Thing> things, double packageWeight) throws APIException;
+	
+}
@@ -0,0 +1,94 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+
+/**
+ * Chooses the {@link PackingSolver engine} that assembles each package: the engine pinned in the
+ * {@link PackerOpts#getEngine() options}, or the one with the lowest estimated cost with {@link PackerOpts#ENGINE_AUTO}.
+ * When the pinned engine can't assemble a package (too many things, too many decimals...) the cheapest one is used.
+ * <p>
+ * The engines are loaded with the {@link ServiceLoader}, a new instance for each selector.
+ *
+ * @author Hector Blanco
+ */
+class PackingSolverSelector {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(PackingSolverSelector.class);
+	
+	// the engines, by name, in the order they are found
+	private final Map<String, PackingSolver> solvers = new LinkedHashMap<>();
+	
+	// the engine pinned in the options, null with ENGINE_AUTO
+	private final PackingSolver pinned;
+	
+	
+	/**
+	 * Load all the engines available and configure them with the options.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param opts the options of the Packer
+	 * @throws APIException if the engine of the options is not found
+	 */
+	PackingSolverSelector(PackerOpts opts) throws APIException {
+		for(PackingSolver solver : ServiceLoader.load(PackingSolver.class, PackingSolver.class.getClassLoader())) {
+			if(solvers.containsKey(solver.getName())) {
+				LOGGER.warn("Engine {} is already registered, {} ignored", solver.getName(), solver.getClass().getName());
+				continue;
+			}
+			solver.configure(opts);
+			solvers.put(solver.getName(), solver);
+		}
+		LOGGER.debug("Engines found: {}", solvers.keySet());
+		
+		if(PackerOpts.ENGINE_AUTO.equals(opts.getEngine())) {
+			pinned = null;
+		} else {
+			pinned = solvers.get(opts.getEngine());
+			if(pinned == null) {
+				throw new APIException(String.format("Unknown engine: %s", opts.getEngine()));
+			}
+		}
+	}
+	
+	
+	/**
+	 * Choose the engine to assemble a package.
+	 *
+	 * @param things        The available things from which to choose which ones will be used to assemble the package
+	 * @param packageWeight The max weight that the package can take
+	 * @return the engine that will assemble the package
+	 * @throws APIException if no engine can assemble the package
+	 */
+	PackingSolver select(List<Thing> things, double packageWeight) throws APIException {
+		PackageProfile profile = new PackageProfile(things, packageWeight);
+		if(pinned != null && pinned.estimateCost(profile) < Double.POSITIVE_INFINITY) {
+			return pinned;
+		}
+		
+		PackingSolver cheapest = null;
+		double cheapestCost = Double.POSITIVE_INFINITY;
+		for(PackingSolver solver : solvers.values()) {
+			double cost = solver.estimateCost(profile);
+			if(cost < cheapestCost) {
+				cheapest = solver;
+				cheapestCost = cost;
+			}
+		}
+		if(cheapest == null) {
+			throw new APIException(String.format("No engine can assemble package %s %s", packageWeight, profile));
+		}
+		LOGGER.debug("Package {} assembled with engine {}, estimated cost {}", profile, cheapest.getName(), cheapestCost);
+		return cheapest;
+	}
+	
+}
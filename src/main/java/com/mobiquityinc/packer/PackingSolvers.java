@@ -0,0 +1,291 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * The {@link PackingSolver engines} shipped with this library, registered for the {@link java.util.ServiceLoader} in
+ * <code>META-INF/services/com.mobiquityinc.packer.PackingSolver</code>.
+ * <p>
+ * Their {@link PackingSolver#estimateCost(PackageProfile) estimated costs} are the number of combinations, table cells
+ * or nodes that they visit, weighted by how expensive each one of them is compared to the others. They are meant to
+ * choose the right order of magnitude, not to be precise.
+ *
+ * @author Hector Blanco
+ */
+public final class PackingSolvers {
+	
+	/**
+	 * Private constructor, this class only holds the engines
+	 */
+	private PackingSolvers() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Evaluates all the combinations of things, up to 15 things, and pairs the combinations of two halves of the list
+	 * after that.
+	 */
+	public static final class Powerset implements PackingSolver {
+		
+		// up to this number of things all the combinations are evaluated
+		private static final int MAX_THINGS_FOR_POWERSET = 15;
+		
+		// builder reused for every package, to reuse its tables
+		private final BitmaskPackageBuilder packageBuilder = new BitmaskPackageBuilder();
+		
+		
+		@Override
+		public String getName() {
+			return PackerOpts.ENGINE_POWERSET;
+		}
+		
+		
+		@Override
+		public double estimateCost(PackageProfile profile) {
+			if(profile.getNOfThings() <= MAX_THINGS_FOR_POWERSET) {
+				return pow2(profile.getNOfThings());
+			}
+			return MeetInTheMiddle.estimate(profile);
+		}
+		
+		
+		@Override
+		public Optional<String> solve(List<Thing> things, double packageWeight) throws APIException {
+			if(things.size() <= MAX_THINGS_FOR_POWERSET) {
+				return packageBuilder.resolveBetterPackage(things, packageWeight);
+			}
+			return MeetInTheMiddlePackageBuilder.assemblePackage(things, packageWeight);
+		}
+	}
+	
+	
+	/**
+	 * Pairs the combinations of two halves of the list of things.
+	 */
+	public static final class MeetInTheMiddle implements PackingSolver {
+		
+		@Override
+		public String getName() {
+			return PackerOpts.ENGINE_MEET_IN_THE_MIDDLE;
+		}
+		
+		
+		@Override
+		public double estimateCost(PackageProfile profile) {
+			return estimate(profile);
+		}
+		
+		
+		@Override
+		public Optional<String> solve(List<Thing> things, double packageWeight) throws APIException {
+			return MeetInTheMiddlePackageBuilder.assemblePackage(things, packageWeight);
+		}
+		
+		
+		/**
+		 * Both halves are combined and sorted, then every combination of the first half does a binary search on the
+		 * second one.
+		 */
+		private static double estimate(PackageProfile profile) {
+			int nOfThings = profile.getNOfThings();
+			if(nOfThings > MeetInTheMiddlePackageBuilder.MAX_THINGS) {
+				return Double.POSITIVE_INFINITY;
+			}
+			double firstHalf = pow2((nOfThings + 1) / 2);
+			double secondHalf = pow2(nOfThings / 2);
+			return (firstHalf + secondHalf) * (nOfThings / 2D + 1D) + 64D;
+		}
+	}
+	
+	
+	/**
+	 * Scales weights and costs to integers and fills a table with a cell for every weight up to the package weight.
+	 */
+	public static final class DynamicProgramming implements PackingSolver {
+		
+		private DynamicProgrammingPackageBuilder builder;
+		private DecimalScale scale;
+		private int decimalScale;
+		
+		
+		@Override
+		public String getName() {
+			return PackerOpts.ENGINE_DYNAMIC_PROGRAMMING;
+		}
+		
+		
+		@Override
+		public void configure(PackerOpts opts) {
+			decimalScale = opts.getDecimalScale();
+			builder = new DynamicProgrammingPackageBuilder(decimalScale);
+			scale = new DecimalScale(decimalScale);
+		}
+		
+		
+		@Override
+		public double estimateCost(PackageProfile profile) {
+			if(builder == null || profile.getNOfThings() > DynamicProgrammingPackageBuilder.MAX_THINGS
+					|| !profile.fitsScale(decimalScale)) {
+				return Double.POSITIVE_INFINITY;
+			}
+			long capacity = scale.scaledCapacity(profile.getPackageWeight());
+			if(capacity > DynamicProgrammingPackageBuilder.MAX_SCALED_WEIGHT) {
+				return Double.POSITIVE_INFINITY;
+			}
+			// one pass over the table for each thing, plus filling it and reading it at the end
+			return (profile.getNOfThings() + 2D) * (capacity + 1D);
+		}
+		
+		
+		@Override
+		public Optional<String> solve(List<Thing> things, double packageWeight) throws APIException {
+			return builder.resolveBetterPackage(things, packageWeight);
+		}
+	}
+	
+	
+	/**
+	 * Searches the combinations sorted by cost/weight ratio, skipping the ones that can't beat the better package.
+	 */
+	public static final class BranchAndBound implements PackingSolver {
+		
+		@Override
+		public String getName() {
+			return PackerOpts.ENGINE_BRANCH_AND_BOUND;
+		}
+		
+		
+		@Override
+		public double estimateCost(PackageProfile profile) {
+			int nOfThings = profile.getNOfThings();
+			if(nOfThings > BranchAndBoundPackageBuilder.MAX_THINGS) {
+				return Double.POSITIVE_INFINITY;
+			}
+			// when everything fits the first branch is the better one, and the bound cuts all the others. The fewer
+			// things fit together, the fewer branches are visited: the search is exponential in how many things fit
+			double ratio = Math.min(1D, profile.getCapacityRatio());
+			double branches = ratio >= 1D ? 1D : Math.pow(2D, nOfThings * ratio / 2D);
+			return (double) nOfThings * nOfThings * branches + 64D;
+		}
+		
+		
+		@Override
+		public Optional<String> solve(List<Thing> things, double packageWeight) throws APIException {
+			return BranchAndBoundPackageBuilder.assemblePackage(things, packageWeight);
+		}
+	}
+	
+	
+	/**
+	 * Evaluates all the combinations in Gray code order, with integer sums and without keeping them in memory.
+	 */
+	public static final class GrayCode implements PackingSolver {
+		
+		// with more things than this, the combinations are split between the threads
+		private static final int PARALLEL_THINGS = 16;
+		
+		// the pools of each package parallelism, shared by all the engines and created the first time that a package is
+		// split. Their workers end when they are idle
+		private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+		
+		private GrayCodePackageBuilder builder;
+		private int decimalScale;
+		private int parallelism;
+		
+		// the pool of the options, null for the shared pools
+		private ForkJoinPool optionsPool;
+		
+		// splits the combinations between the threads, created the first time that a package is split
+		private GrayCodePackageBuilder parallelBuilder;
+		
+		
+		@Override
+		public String getName() {
+			return PackerOpts.ENGINE_GRAY_CODE;
+		}
+		
+		
+		@Override
+		public void configure(PackerOpts opts) {
+			decimalScale = opts.getDecimalScale();
+			parallelism = opts.getPackageParallelism();
+			optionsPool = opts.getForkJoinPool();
+			builder = new GrayCodePackageBuilder(decimalScale);
+		}
+		
+		
+		@Override
+		public double estimateCost(PackageProfile profile) {
+			if(builder == null || profile.getNOfThings() > GrayCodePackageBuilder.MAX_THINGS
+					|| !profile.fitsScale(decimalScale)) {
+				return Double.POSITIVE_INFINITY;
+			}
+			// one addition per combination instead of a table lookup, split between the threads with many things
+			double threads = profile.getNOfThings() > PARALLEL_THINGS ? parallelism : 1D;
+			return pow2(profile.getNOfThings()) * 0.5D / threads + 64D;
+		}
+		
+		
+		@Override
+		public Optional<String> solve(List<Thing> things, double packageWeight) throws APIException {
+			if(parallelism > 1 && things.size() > PARALLEL_THINGS) {
+				return getParallelBuilder().resolveBetterPackage(things, packageWeight);
+			}
+			return builder.resolveBetterPackage(things, packageWeight);
+		}
+		
+		
+		private GrayCodePackageBuilder getParallelBuilder() {
+			if(parallelBuilder == null) {
+				ForkJoinPool pool = optionsPool != null ? optionsPool : POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+				parallelBuilder = new GrayCodePackageBuilder(decimalScale, pool);
+			}
+			return parallelBuilder;
+		}
+	}
+	
+	
+	/**
+	 * Evaluates all the combinations in blocks, with SIMD instructions when the Vector API is available.
+	 */
+	public static final class HalfTable implements PackingSolver {
+		
+		@Override
+		public String getName() {
+			return PackerOpts.ENGINE_HALF_TABLE;
+		}
+		
+		
+		@Override
+		public double estimateCost(PackageProfile profile) {
+			int nOfThings = profile.getNOfThings();
+			if(nOfThings > HalfTablePackageBuilder.MAX_THINGS) {
+				return Double.POSITIVE_INFINITY;
+			}
+			// the table of the first half is built once, then scanned for every combination of the second half
+			double perCombination = HalfTableKernel.isVectorized() ? 0.2D : 0.7D;
+			return pow2(nOfThings) * perCombination + pow2((nOfThings + 1) / 2) * 2D + 256D;
+		}
+		
+		
+		@Override
+		public Optional<String> solve(List<Thing> things, double packageWeight) throws APIException {
+			return HalfTablePackageBuilder.assemblePackage(things, packageWeight);
+		}
+	}
+	
+	
+	private static double pow2(int exponent) {
+		return Math.scalb(1D, exponent);
+	}
+	
+}
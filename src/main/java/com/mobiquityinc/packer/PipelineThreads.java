@@ -0,0 +1,75 @@
+package com.mobiquityinc.packer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Threads of the {@link PipelinedPacker}: the executor of its stages, and where the parsing and the solving of the
+ * batches run.
+ * <p>
+ * This is the plain Java 8 implementation, every stage has its own platform thread and the batches are parsed and
+ * solved in them. The library is a multi-release jar, and on Java 21 or newer this class is replaced by a version that,
+ * with {@link PackerOpts#isVirtualThreads()}, runs the stages on virtual threads and the batches on a pool shared by
+ * all the packers.
+ *
+ * @author Hector Blanco
+ */
+final class PipelineThreads {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(PipelineThreads.class);
+	
+	// the missing virtual threads are logged only once
+	private static final AtomicBoolean WARNED = new AtomicBoolean();
+	
+	
+	/**
+	 * Private constructor to prevent new instances of this utility class
+	 */
+	private PipelineThreads() {
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the stages of the pipeline can run on virtual threads
+	 */
+	static boolean isVirtualAvailable() {
+		return false;
+	}
+	
+	
+	/**
+	 * @param opts      the options of the pipeline
+	 * @param nOfStages the number of threads of the stages of the pipeline
+	 * @return the executor that runs the stages of the pipeline
+	 */
+	static ExecutorService newStageExecutor(PackerOpts opts, int nOfStages) {
+		if(opts.isVirtualThreads() && WARNED.compareAndSet(false, true)) {
+			LOGGER.warn("Virtual threads need Java 21 or newer, the pipeline runs on platform threads");
+		}
+		return Executors.newFixedThreadPool(nOfStages, runnable -> {
+			// a reader blocked on the input must not keep the JVM alive
+			Thread thread = new Thread(runnable, "packer-pipeline");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	
+	/**
+	 * Parse or solve a batch, in the thread of the stage.
+	 *
+	 * @param opts the options of the pipeline
+	 * @param work the parsing or the solving of a batch, that doesn't throw exceptions
+	 * @throws InterruptedException if the stage is interrupted waiting for the work
+	 */
+	static void compute(PackerOpts opts, Runnable work) throws InterruptedException {
+		work.run();
+	}
+	
+}
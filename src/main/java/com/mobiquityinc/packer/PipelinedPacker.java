@@ -0,0 +1,352 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * Creates the packages of an input in a pipeline of stages, each one in its own threads:
+ * <ol>
+ * <li>a reader thread copies the lines in batches</li>
+ * <li>a pool of parser threads decodes the things of the lines of each batch</li>
+ * <li>a pool of solver threads assembles the packages of each batch</li>
+ * <li>the calling thread gives the packages to the consumer, taking the batches in order from a ring buffer</li>
+ * </ol>
+ * The stages are connected by bounded queues, and the reader can't start a batch while the ring buffer has no room
+ * for it: a slow stage stops the reader, so the batches in memory don't depend on the size of the input.
+ * <p>
+ * The error of a line is given to the consumer after the packages of the lines before it, like reading the input in
+ * the calling thread. In {@link PackerOpts#isLenient() lenient mode} the errors of the lines of a batch are given to
+ * the error sink by the calling thread, after the packages of the batch.
+ * <p>
+ * The threads of the stages are given by {@link PipelineThreads}: on Java 21 or newer, with
+ * {@link PackerOpts#isVirtualThreads()}, they are virtual threads and the batches are parsed and solved in a pool
+ * shared by all the pipelines.
+ *
+ * @author Hector Blanco
+ */
+class PipelinedPacker {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedPacker.class);
+	
+	// the options of the packers of the parsers and the solvers
+	private final PackerOpts opts;
+	
+	
+	/**
+	 * Constructor with the options of the Packer.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param opts the options of the Packer, with the threads and queues of the pipeline
+	 */
+	PipelinedPacker(PackerOpts opts) {
+		this.opts = opts;
+	}
+	
+	
+	/**
+	 * Read the lines of the input, and based on the "things" inside them, calculate the optimal package of each line
+	 * and give it to the consumer, in the same order of the lines.
+	 *
+	 * @param it        the lines of the input
+	 * @param consumer  the consumer of the packages
+	 * @param errorSink who receives the errors of the wrong lines in lenient mode
+	 * @throws APIException in case of any error during package creation, the first one in the order of the lines
+	 * @throws IOException  in case of an I/O error reading the input
+	 */
+	void createAllPackages(ByteLineIterator it, Consumer<PackageSolution> consumer, Consumer<LineError> errorSink)
+			throws APIException, IOException {
+		int nOfParsers = opts.getPipelineParserThreads();
+		int nOfSolvers = opts.getPipelineSolverThreads();
+		int queueSize = opts.getPipelineQueueSize();
+		
+		// every batch read is in a queue, in a thread or in the ring buffer, until the consumer takes it
+		int window = 2 * queueSize + nOfParsers + nOfSolvers;
+		Semaphore permits = new Semaphore(window);
+		BlockingQueue<Batch> toParse = new ArrayBlockingQueue<>(queueSize);
+		BlockingQueue<Batch> toSolve = new ArrayBlockingQueue<>(queueSize);
+		RingBuffer solved = new RingBuffer(window);
+		AtomicInteger runningParsers = new AtomicInteger(nOfParsers);
+		
+		ExecutorService executor = PipelineThreads.newStageExecutor(opts, 1 + nOfParsers + nOfSolvers);
+		try {
+			executor.execute(() -> read(it, permits, toParse, solved));
+			for(int i = 0; i < nOfParsers; i++) {
+				executor.execute(() -> parse(toParse, toSolve, runningParsers));
+			}
+			for(int i = 0; i < nOfSolvers; i++) {
+				executor.execute(() -> solve(toSolve, solved));
+			}
+			
+			for(long sequence = 0; ; sequence++) {
+				Batch batch = solved.take(sequence);
+				if(batch == null) {
+					return;
+				}
+				batch.solutions.forEach(consumer);
+				batch.lineErrors.forEach(errorSink);
+				permits.release();
+				batch.throwError();
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Interrupted while creating the packages", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	/**
+	 * Copy the lines in batches, until the end of the input or its first error.
+	 */
+	private void read(ByteLineIterator it, Semaphore permits, BlockingQueue<Batch> toParse, RingBuffer solved) {
+		int batchLines = opts.getPipelineBatchLines();
+		long sequence = 0;
+		try {
+			boolean hasNext = true;
+			while(hasNext) {
+				permits.acquire();
+				Batch batch = new Batch(sequence, sequence * batchLines + 1, batchLines);
+				try {
+					while((hasNext = it.hasNext()) && batch.nOfLines < batchLines) {
+						it.nextLine();
+						batch.addLine(it.getBuffer(), it.getLineStart(), it.getLineEnd());
+					}
+				} catch(IOException | RuntimeException e) {
+					batch.error = e;
+					hasNext = false;
+				}
+				toParse.put(batch);
+				sequence++;
+			}
+			toParse.put(Batch.END);
+			LOGGER.debug("Input read in {} batches", sequence);
+			solved.end(sequence);
+		} catch(InterruptedException e) {
+			// the consumer stopped
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	
+	/**
+	 * Parse the lines of the batches, each batch until its first wrong line. The last parser to end tells the
+	 * solvers that there are no more batches.
+	 */
+	private void parse(BlockingQueue<Batch> toParse, BlockingQueue<Batch> toSolve, AtomicInteger runningParsers) {
+		Packer packer = new Packer(opts);
+		try {
+			Batch batch;
+			while((batch = toParse.take()) != Batch.END) {
+				Batch current = batch;
+				PipelineThreads.compute(opts, () -> current.parse(packer, opts.isLenient()));
+				toSolve.put(batch);
+			}
+			toParse.put(Batch.END);
+			if(runningParsers.decrementAndGet() == 0) {
+				toSolve.put(Batch.END);
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	
+	/**
+	 * Assemble the packages of the parsed lines of the batches, with a packer for each thread because the engines
+	 * can't be shared between threads.
+	 */
+	private void solve(BlockingQueue<Batch> toSolve, RingBuffer solved) {
+		Packer packer = new Packer(opts);
+		try {
+			Batch batch;
+			while((batch = toSolve.take()) != Batch.END) {
+				Batch current = batch;
+				PipelineThreads.compute(opts, () -> current.solve(packer, opts.isLenient()));
+				solved.put(batch);
+			}
+			toSolve.put(Batch.END);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	
+	/**
+	 * A batch of lines, that is parsed and solved in place. Its error is after all its lines.
+	 */
+	private static final class Batch {
+		
+		// put after the last batch, to stop the parsers and the solvers
+		private static final Batch END = new Batch(-1L, 0L, 0);
+		
+		private final long sequence;
+		private final long firstLineNumber;
+		
+		// the lines, one after the other
+		private byte[] bytes = new byte[256];
+		private int[] lineEnds;
+		private int nOfLines;
+		
+		// the things and the weight of each line
+		private final List<List<Thing>> things = new ArrayList<>();
+		private double[] packageWeights;
+		
+		private final List<PackageSolution> solutions = new ArrayList<>();
+		private final List<LineError> lineErrors = new ArrayList<>();
+		private Exception error;
+		
+		
+		private Batch(long sequence, long firstLineNumber, int batchLines) {
+			this.sequence = sequence;
+			this.firstLineNumber = firstLineNumber;
+			this.lineEnds = new int[batchLines];
+		}
+		
+		
+		private void addLine(byte[] buffer, int start, int end) {
+			int from = nOfLines == 0 ? 0 : lineEnds[nOfLines - 1];
+			int length = end - start;
+			if(from + length > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, from + length));
+			}
+			System.arraycopy(buffer, start, bytes, from, length);
+			lineEnds[nOfLines++] = from + length;
+		}
+		
+		
+		/**
+		 * Parse the lines until the first wrong one, that is the error of the batch: it comes before the error
+		 * reading the lines after it. In lenient mode the wrong lines have no things, and their errors are kept.
+		 */
+		private void parse(Packer packer, boolean lenient) {
+			packageWeights = new double[nOfLines];
+			try {
+				for(int i = 0; i < nOfLines; i++) {
+					int lineStart = i == 0 ? 0 : lineEnds[i - 1];
+					List<Thing> lineThings = new ArrayList<>();
+					try {
+						packageWeights[i] = packer.parseLine(bytes, lineStart, lineEnds[i], lineThings);
+					} catch(APIException e) {
+						if(!lenient) {
+							throw e;
+						}
+						lineErrors.add(packer.toLineError(e, firstLineNumber + i, bytes, lineStart));
+						lineThings = null;
+					}
+					things.add(lineThings);
+				}
+			} catch(APIException | RuntimeException e) {
+				error = e;
+			}
+			// the lines are not needed anymore
+			bytes = null;
+		}
+		
+		
+		/**
+		 * Assemble the packages of the parsed lines, until the first error.
+		 */
+		private void solve(Packer packer, boolean lenient) {
+			try {
+				for(int i = 0; i < things.size(); i++) {
+					solutions.add(things.get(i) == null ? packer.errorPlaceholder() : solve(packer, lenient, i));
+				}
+			} catch(APIException | RuntimeException e) {
+				error = e;
+			}
+			things.clear();
+		}
+		
+		
+		private PackageSolution solve(Packer packer, boolean lenient, int line) throws APIException {
+			try {
+				return packer.assemblePackage(things.get(line), packageWeights[line]);
+			} catch(APIException e) {
+				if(!lenient) {
+					throw e;
+				}
+				lineErrors.add(new LineError(firstLineNumber + line, LineError.WHOLE_LINE, e.getMessage()));
+				return packer.errorPlaceholder();
+			}
+		}
+		
+		
+		private void throwError() throws APIException, IOException {
+			if(error instanceof APIException) {
+				throw (APIException) error;
+			}
+			if(error instanceof IOException) {
+				throw (IOException) error;
+			}
+			if(error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+		}
+	}
+	
+	
+	/**
+	 * The solved batches, each one in the slot of its sequence number until the consumer takes it. The reader doesn't
+	 * start more batches than slots, so the slot of a batch is always free.
+	 */
+	private static final class RingBuffer {
+		
+		private final Batch[] slots;
+		
+		// number of batches of the input, -1 until the reader ends
+		private long nOfBatches = -1L;
+		
+		
+		private RingBuffer(int size) {
+			this.slots = new Batch[size];
+		}
+		
+		
+		private synchronized void put(Batch batch) {
+			slots[(int) (batch.sequence % slots.length)] = batch;
+			notifyAll();
+		}
+		
+		
+		private synchronized void end(long batches) {
+			nOfBatches = batches;
+			notifyAll();
+		}
+		
+		
+		/**
+		 * @return the batch with that sequence number, waiting for it, or <code>null</code> after the last batch
+		 */
+		private synchronized Batch take(long sequence) throws InterruptedException {
+			int slot = (int) (sequence % slots.length);
+			while(slots[slot] == null) {
+				if(sequence == nOfBatches) {
+					return null;
+				}
+				wait();
+			}
+			Batch batch = slots[slot];
+			slots[slot] = null;
+			return batch;
+		}
+	}
+	
+}
@@ -0,0 +1,425 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.Shard;
+import com.mobiquityinc.packer.exception.APIException;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+
+/**
+ * Packs a big input file in {@link Shard shards}, byte ranges of whole lines that can be packed on different machines
+ * and merged in a single output later:
+ * <ol>
+ * <li>{@link #plan(Path, int)} cuts the file in shards of about the same size</li>
+ * <li>{@link #pack(Path, Shard, Path, PackerOpts)} packs each shard to its own output, with a <code>.shard</code>
+ * file next to it that tells which lines of the input are in the output</li>
+ * <li>{@link #merge(List, Path)} checks that the outputs are all the shards of the same input, and concatenates them
+ * in the order of the lines. The merged output is the same of {@link Packer#pack(String, PackerOpts)}</li>
+ * </ol>
+ * A shard can also be given as any byte range, the range is moved forward to the start of the lines. The shards are
+ * read in the calling thread, and the input file can't be compressed.
+ * <p>
+ * It can be used from the command line:
+ * <pre>
+ * java -cp packer.jar com.mobiquityinc.packer.ShardedPacker plan &lt;input&gt; &lt;shards&gt;
+ * java -cp packer.jar com.mobiquityinc.packer.ShardedPacker pack &lt;input&gt; &lt;start&gt; &lt;end&gt; &lt;output&gt; [first line]
+ * java -cp packer.jar com.mobiquityinc.packer.ShardedPacker merge &lt;output&gt; &lt;shard output&gt;...
+ * </pre>
+ * The plan prints the start, end and first line of each shard, the first line given to <code>pack</code> saves
+ * counting the lines before the shard.
+ *
+ * @author Hector Blanco
+ */
+public final class ShardedPacker {
+	
+	// LOGGER
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardedPacker.class);
+	
+	/**
+	 * Extension added to the name of a shard output to name the file that describes it
+	 */
+	public static final String SHARD_EXTENSION = ".shard";
+	
+	// the properties of a shard output
+	private static final String INPUT_SIZE = "inputSize";
+	private static final String START = "start";
+	private static final String END = "end";
+	private static final String FIRST_LINE_NUMBER = "firstLineNumber";
+	private static final String N_OF_LINES = "nOfLines";
+	
+	// bytes read at once counting the lines
+	private static final int SCAN_SIZE = 64 * 1024;
+	
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private ShardedPacker() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Cut the input file in shards of about the same size. There are less shards when the file has less lines.
+	 *
+	 * @param input     the input file
+	 * @param nOfShards the number of shards
+	 * @return the shards, in the order of the file
+	 * @throws APIException if the file can't be read, or it's compressed
+	 */
+	public static List<Shard> plan(Path input, int nOfShards) throws APIException {
+		if(nOfShards < 1) {
+			throw new APIException(String.format("Number of shards must be at least 1, was %d", nOfShards));
+		}
+		try(FileChannel channel = openInput(input)) {
+			long size = channel.size();
+			List<Shard> shards = new ArrayList<>();
+			long start = 0L;
+			long firstLineNumber = 1L;
+			for(int i = 1; i <= nOfShards && start < size; i++) {
+				long end = i == nOfShards ? size : Math.max(start, lineStartAtOrAfter(channel, size * i / nOfShards, size));
+				if(end > start) {
+					shards.add(new Shard(start, end, firstLineNumber));
+					firstLineNumber += countLines(channel, start, end);
+					start = end;
+				}
+			}
+			if(shards.isEmpty()) {
+				// an empty file has an empty shard, and its merged output is empty
+				shards.add(new Shard(0L, 0L, 1L));
+			}
+			LOGGER.debug("File {} cut in {} shards", input, shards.size());
+			return shards;
+		} catch(IOException e) {
+			throw new APIException("Error reading input file", e);
+		}
+	}
+	
+	
+	/**
+	 * The shard with the lines that start in the byte range <code>[start, end)</code>, counting the lines before it.
+	 *
+	 * @param input the input file
+	 * @param start the first byte of the range
+	 * @param end   the byte after the range
+	 * @return the shard, empty if no line starts in the range
+	 * @throws APIException if the range is not in the file, or the file can't be read or it's compressed
+	 */
+	public static Shard shard(Path input, long start, long end) throws APIException {
+		try(FileChannel channel = openInput(input)) {
+			Shard shard = snap(channel, start, end, 0L);
+			return new Shard(shard.getStart(), shard.getEnd(), countLines(channel, 0L, shard.getStart()) + 1L);
+		} catch(IOException e) {
+			throw new APIException("Error reading input file", e);
+		}
+	}
+	
+	
+	/**
+	 * Pack the lines of a shard to an output file, and write the <code>.shard</code> file that describes it once the
+	 * output is complete. The line numbers of the {@link PackerOpts#isLenient() lenient} errors are the ones of the
+	 * whole file. The output can't be {@link PackerOpts#isGzipOutput() compressed}.
+	 *
+	 * @param input   the input file
+	 * @param shard   the shard to pack, the range is moved forward to the start of the lines
+	 * @param output  the output file of the shard
+	 * @param options the {@link PackerOpts options} to the packer
+	 * @return the number of lines packed
+	 * @throws APIException in case of any error during package creation, or reading and writing the files
+	 */
+	public static long pack(Path input, Shard shard, Path output, PackerOpts options) throws APIException {
+		if(options.isGzipOutput()) {
+			throw new APIException("The output of a shard can't be compressed");
+		}
+		Packer packer = new Packer(options);
+		Consumer<LineError> errorSink = packer.getErrorSink();
+		long linesBefore = shard.getFirstLineNumber() - 1L;
+		Path descriptor = descriptorOf(output);
+		long[] nOfLines = {0L};
+		try(FileChannel channel = openInput(input);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8))) {
+			Files.deleteIfExists(descriptor);
+			long size = channel.size();
+			Shard snapped = snap(channel, shard.getStart(), shard.getEnd(), shard.getFirstLineNumber());
+			LOGGER.debug("Packing shard {} of {}", snapped, input);
+			
+			channel.position(snapped.getStart());
+			InputStream range = new BoundedInputStream(Channels.newInputStream(channel), snapped.getEnd() - snapped.getStart());
+			PackageWriter packageWriter = new PackageWriter(writer, () -> false);
+			try(ByteLineIterator it = new ByteLineIterator(range)) {
+				packer.createAllPackages(it, solution -> {
+					packageWriter.accept(solution);
+					nOfLines[0]++;
+				}, error -> errorSink.accept(new LineError(linesBefore + error.getLineNumber(), error.getColumn(), error.getReason())));
+			} catch(UncheckedIOException e) {
+				throw new APIException("Error writing output", e.getCause());
+			}
+			packageWriter.finish();
+			writer.flush();
+			
+			Properties properties = new Properties();
+			properties.setProperty(INPUT_SIZE, Long.toString(size));
+			properties.setProperty(START, Long.toString(snapped.getStart()));
+			properties.setProperty(END, Long.toString(snapped.getEnd()));
+			properties.setProperty(FIRST_LINE_NUMBER, Long.toString(snapped.getFirstLineNumber()));
+			properties.setProperty(N_OF_LINES, Long.toString(nOfLines[0]));
+			writeDescriptor(descriptor, properties);
+		} catch(IOException e) {
+			throw new APIException("Error packing the shard", e);
+		}
+		return nOfLines[0];
+	}
+	
+	
+	/**
+	 * Concatenate the outputs of the shards in the order of the lines, checking that they are all the shards of the
+	 * same input file. The outputs can be given in any order.
+	 *
+	 * @param shardOutputs the outputs of the shards, with their <code>.shard</code> file next to them
+	 * @param output       the merged output
+	 * @return the number of lines of the merged output
+	 * @throws APIException if a shard output is not complete, or there are missing or overlapping shards
+	 */
+	public static long merge(List<Path> shardOutputs, Path output) throws APIException {
+		List<ShardOutput> shards = new ArrayList<>();
+		for(Path shardOutput : shardOutputs) {
+			shards.add(readDescriptor(shardOutput));
+		}
+		shards.sort(Comparator.comparingLong(shard -> shard.start));
+		checkComplete(shards);
+		
+		long nOfLines = 0L;
+		try(OutputStream stream = Files.newOutputStream(output)) {
+			byte[] separator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+			for(ShardOutput shard : shards) {
+				if(shard.nOfLines == 0L) {
+					continue;
+				}
+				if(nOfLines > 0L) {
+					stream.write(separator);
+				}
+				Files.copy(shard.output, stream);
+				nOfLines += shard.nOfLines;
+			}
+		} catch(IOException e) {
+			throw new APIException(String.format("Output file %s can't be written", output), e);
+		}
+		return nOfLines;
+	}
+	
+	
+	/**
+	 * Command line interface: plans the shards of a file, packs a shard, or merges the outputs of the shards.
+	 *
+	 * @param args the command and its arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			PackerOpts options = new PackerOpts.Builder().with(obj -> obj.currencySymbol = "€").build();
+			if(args.length == 3 && "plan".equals(args[0])) {
+				for(Shard shard : plan(Paths.get(args[1]), Integer.parseInt(args[2]))) {
+					System.out.println(shard.getStart() + " " + shard.getEnd() + " " + shard.getFirstLineNumber());
+				}
+			} else if((args.length == 5 || args.length == 6) && "pack".equals(args[0])) {
+				Path input = Paths.get(args[1]);
+				long start = Long.parseLong(args[2]);
+				long end = Long.parseLong(args[3]);
+				Shard shard = args.length == 6 ? new Shard(start, end, Long.parseLong(args[5])) : shard(input, start, end);
+				System.out.println(pack(input, shard, Paths.get(args[4]), options) + " lines");
+			} else if(args.length >= 3 && "merge".equals(args[0])) {
+				List<Path> shardOutputs = new ArrayList<>();
+				for(int i = 2; i < args.length; i++) {
+					shardOutputs.add(Paths.get(args[i]));
+				}
+				System.out.println(merge(shardOutputs, Paths.get(args[1])) + " lines");
+			} else {
+				System.err.println("Usage: ShardedPacker plan <input> <shards>");
+				System.err.println("       ShardedPacker pack <input> <start> <end> <output> [first line]");
+				System.err.println("       ShardedPacker merge <output> <shard output>...");
+				System.exit(2);
+			}
+		} catch(APIException | IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+	
+	
+	private static FileChannel openInput(Path input) throws APIException, IOException {
+		if(input == null || !Files.isRegularFile(input)) {
+			throw new APIException(String.format("File %s not found", input));
+		}
+		if(GzipStreams.isGzip(input.toFile())) {
+			throw new APIException("A compressed input file can't be packed in shards");
+		}
+		return FileChannel.open(input, StandardOpenOption.READ);
+	}
+	
+	
+	/**
+	 * Move both ends of the range forward to the start of a line, or to the end of the file.
+	 */
+	private static Shard snap(FileChannel channel, long start, long end, long firstLineNumber) throws APIException, IOException {
+		long size = channel.size();
+		if(start < 0 || end < start || end > size) {
+			throw new APIException(String.format("Range [%d, %d) is not in the input file of %d bytes", start, end, size));
+		}
+		return new Shard(lineStartAtOrAfter(channel, start, size), lineStartAtOrAfter(channel, end, size), firstLineNumber);
+	}
+	
+	
+	/**
+	 * @return the given position if a line starts there, or the start of the next line
+	 */
+	private static long lineStartAtOrAfter(FileChannel channel, long position, long size) throws IOException {
+		if(position <= 0L || position >= size) {
+			return Math.max(0L, Math.min(position, size));
+		}
+		// from the byte before, the next line starts at the position only if that byte ends a line
+		return MappedFilePacker.nextLineStart(channel, position - 1L, size);
+	}
+	
+	
+	/**
+	 * Count the lines in <code>[start, end)</code> like {@link ByteLineIterator} reads them: "\r\n" ends a single
+	 * line, and the last line can be without line terminator.
+	 */
+	private static long countLines(FileChannel channel, long start, long end) throws IOException {
+		ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+		long nOfLines = 0L;
+		boolean afterCarriageReturn = false;
+		byte last = '\n';
+		long position = start;
+		while(position < end) {
+			scan.clear();
+			scan.limit((int) Math.min(SCAN_SIZE, end - position));
+			int read = channel.read(scan, position);
+			if(read <= 0) {
+				break;
+			}
+			for(int i = 0; i < read; i++) {
+				byte b = scan.get(i);
+				if(b == '\r' || (b == '\n' && !afterCarriageReturn)) {
+					nOfLines++;
+				}
+				afterCarriageReturn = b == '\r';
+				last = b;
+			}
+			position += read;
+		}
+		return last == '\n' || last == '\r' ? nOfLines : nOfLines + 1L;
+	}
+	
+	
+	private static Path descriptorOf(Path output) {
+		return output.resolveSibling(output.getFileName() + SHARD_EXTENSION);
+	}
+	
+	
+	/**
+	 * Write the descriptor to a temporary file and move it, so a descriptor always describes a complete output.
+	 */
+	private static void writeDescriptor(Path descriptor, Properties properties) throws IOException {
+		Path temporary = descriptor.resolveSibling(descriptor.getFileName() + ".tmp");
+		try(OutputStream stream = Files.newOutputStream(temporary)) {
+			properties.store(stream, null);
+		}
+		Files.move(temporary, descriptor, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	
+	private static ShardOutput readDescriptor(Path shardOutput) throws APIException {
+		Path descriptor = descriptorOf(shardOutput);
+		if(!Files.exists(descriptor)) {
+			throw new APIException(String.format("Shard output %s is not complete", shardOutput));
+		}
+		Properties properties = new Properties();
+		try(InputStream stream = Files.newInputStream(descriptor)) {
+			properties.load(stream);
+		} catch(IOException e) {
+			throw new APIException(String.format("Shard descriptor %s can't be read", descriptor), e);
+		}
+		ShardOutput shard = new ShardOutput();
+		shard.output = shardOutput;
+		shard.inputSize = getLong(properties, INPUT_SIZE, descriptor);
+		shard.start = getLong(properties, START, descriptor);
+		shard.end = getLong(properties, END, descriptor);
+		shard.firstLineNumber = getLong(properties, FIRST_LINE_NUMBER, descriptor);
+		shard.nOfLines = getLong(properties, N_OF_LINES, descriptor);
+		return shard;
+	}
+	
+	
+	/**
+	 * The shards must cover the whole input, one after the other, without missing or repeated lines.
+	 */
+	private static void checkComplete(List<ShardOutput> shards) throws APIException {
+		if(shards.isEmpty()) {
+			throw new APIException("There are no shard outputs to merge");
+		}
+		long inputSize = shards.get(0).inputSize;
+		long position = 0L;
+		long lineNumber = 1L;
+		for(ShardOutput shard : shards) {
+			if(shard.inputSize != inputSize) {
+				throw new APIException(String.format("Shard output %s is not of the same input file", shard.output));
+			}
+			if(shard.start != position || shard.firstLineNumber != lineNumber) {
+				throw new APIException(String.format("Shard output %s starts at byte %d and line %d, expected byte %d and line %d",
+						shard.output, shard.start, shard.firstLineNumber, position, lineNumber));
+			}
+			position = shard.end;
+			lineNumber += shard.nOfLines;
+		}
+		if(position != inputSize) {
+			throw new APIException(String.format("Shard outputs end at byte %d, the input file has %d bytes", position, inputSize));
+		}
+	}
+	
+	
+	private static long getLong(Properties properties, String key, Path descriptor) throws APIException {
+		try {
+			return Long.parseLong(properties.getProperty(key));
+		} catch(NumberFormatException e) {
+			throw new APIException(String.format("Shard descriptor %s property %s is not valid: %s", descriptor, key, properties.getProperty(key)), e);
+		}
+	}
+	
+	
+	/**
+	 * An output of a shard, and what its descriptor tells about it.
+	 */
+	private static final class ShardOutput {
+		private Path output;
+		private long inputSize;
+		private long start;
+		private long end;
+		private long firstLineNumber;
+		private long nOfLines;
+	}
+	
+}
@@ -0,0 +1,120 @@
+package com.mobiquityinc.packer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * An InputStream with the UTF-8 bytes of the characters of a Reader. Each read returns as soon as the Reader gives
+ * some characters, without waiting to fill a buffer, so the lines of a Reader that blocks (a socket or a pipe) are
+ * packed as they arrive.
+ *
+ * @author Hector Blanco
+ */
+class Utf8ReaderInputStream extends InputStream {
+	
+	// characters read from the reader at a time
+	private static final int CHARS_SIZE = 8 * 1024;
+	
+	private final Reader reader;
+	
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	
+	// characters read from the reader and not encoded yet
+	private final CharBuffer chars = CharBuffer.allocate(CHARS_SIZE);
+	
+	// bytes encoded and not read yet, ready to be read
+	private final ByteBuffer bytes = ByteBuffer.allocate(CHARS_SIZE * 3);
+	
+	private boolean endOfInput;
+	
+	
+	/**
+	 * Constructor with the reader to encode.
+	 * Not intended to be used outside of this library.
+	 *
+	 * @param reader the reader to encode, closed with this stream
+	 */
+	Utf8ReaderInputStream(Reader reader) {
+		this.reader = reader;
+		// both buffers start empty, ready to be read from
+		bytes.limit(0);
+	}
+	
+	
+	@Override
+	public int read() throws IOException {
+		byte[] oneByte = new byte[1];
+		int read = read(oneByte, 0, 1);
+		return read < 0 ? -1 : oneByte[0] & 0xFF;
+	}
+	
+	
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if(length == 0) {
+			return 0;
+		}
+		while(!bytes.hasRemaining()) {
+			if(!encodeMore()) {
+				return -1;
+			}
+		}
+		int read = Math.min(length, bytes.remaining());
+		bytes.get(buffer, offset, read);
+		return read;
+	}
+	
+	
+	@Override
+	public int available() {
+		return bytes.remaining();
+	}
+	
+	
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+	
+	
+	/**
+	 * Read the characters the reader has ready, waiting only for the first one, and encode them. A high surrogate at
+	 * the end waits for its pair in the next read.
+	 *
+	 * @return <code>false</code> if the reader has no more characters and all of them are encoded
+	 */
+	private boolean encodeMore() throws IOException {
+		if(endOfInput) {
+			return false;
+		}
+		int read = reader.read(chars.array(), chars.position(), chars.remaining());
+		if(read > 0) {
+			chars.position(chars.position() + read);
+		}
+		endOfInput = read < 0;
+		
+		chars.flip();
+		bytes.clear();
+		CoderResult result = encoder.encode(chars, bytes, endOfInput);
+		if(endOfInput) {
+			result = encoder.flush(bytes);
+		}
+		if(result.isError()) {
+			result.throwException();
+		}
+		chars.compact();
+		bytes.flip();
+		return true;
+	}
+	
+}
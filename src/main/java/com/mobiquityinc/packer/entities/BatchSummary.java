@@ -0,0 +1,52 @@
+package com.mobiquityinc.packer.entities;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+/**
+ * The result of packing a batch of input files: the result of each file, in the order of the input files, and how
+ * long the whole batch took.
+ *
+ * @author Hector Blanco
+ */
+public class BatchSummary {
+	
+	private List<FileSummary> files;
+	private long elapsedMillis;
+	
+	
+	public BatchSummary(List<FileSummary> files, long elapsedMillis) {
+		this.files = files;
+		this.elapsedMillis = elapsedMillis;
+	}
+	
+	
+	public List<FileSummary> getFiles() {
+		return files;
+	}
+	
+	
+	/**
+	 * @return the files that failed, in the order of the input files
+	 */
+	public List<FileSummary> getFailures() {
+		return files.stream().filter(FileSummary::isError).collect(Collectors.toList());
+	}
+	
+	
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+	
+	
+	@Override
+	public String toString() {
+		StringBuilder summary = new StringBuilder();
+		for(FileSummary file : files) {
+			summary.append(file).append(System.lineSeparator());
+		}
+		return summary.append(files.size()).append(" files, ").append(getFailures().size()).append(" failed, ")
+				.append(elapsedMillis).append(" ms").toString();
+	}
+}
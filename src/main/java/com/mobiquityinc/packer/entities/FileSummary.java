@@ -0,0 +1,66 @@
+package com.mobiquityinc.packer.entities;
+
+import com.mobiquityinc.packer.exception.APIException;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+
+/**
+ * The result of packing an input file of a batch: where its packages were written, how long it took and its error,
+ * if it failed.
+ *
+ * @author Hector Blanco
+ */
+public class FileSummary {
+	
+	private Path input;
+	private Path output;
+	private long elapsedMillis;
+	private APIException error;
+	
+	
+	public FileSummary(Path input, Path output, long elapsedMillis, APIException error) {
+		this.input = input;
+		this.output = output;
+		this.elapsedMillis = elapsedMillis;
+		this.error = error;
+	}
+	
+	
+	public Path getInput() {
+		return input;
+	}
+	
+	
+	/**
+	 * @return the file with the packages, removed if the input failed
+	 */
+	public Path getOutput() {
+		return output;
+	}
+	
+	
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+	
+	
+	/**
+	 * @return why the input file failed, or an Optional.empty if its packages were written
+	 */
+	public Optional<APIException> getError() {
+		return Optional.ofNullable(error);
+	}
+	
+	
+	public boolean isError() {
+		return error != null;
+	}
+	
+	
+	@Override
+	public String toString() {
+		return input + " -> " + (error == null ? output.toString() : "error: " + error.getMessage()) + " (" + elapsedMillis + " ms)";
+	}
+}
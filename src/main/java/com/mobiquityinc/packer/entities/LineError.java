@@ -0,0 +1,71 @@
+package com.mobiquityinc.packer.entities;
+
+import java.util.Objects;
+
+
+/**
+ * A line of the input that couldn't be packed in lenient mode: its number, the column where the error was found and
+ * the reason.
+ *
+ * @author Hector Blanco
+ */
+public class LineError {
+	
+	/**
+	 * The column of the errors of the whole line, like a package that no engine can assemble
+	 */
+	public static final int WHOLE_LINE = 0;
+	
+	private long lineNumber;
+	private int column;
+	private String reason;
+	
+	
+	public LineError(long lineNumber, int column, String reason) {
+		this.lineNumber = lineNumber;
+		this.column = column;
+		this.reason = reason;
+	}
+	
+	
+	/**
+	 * @return the number of the line, starting from 1
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+	
+	
+	/**
+	 * @return the column of the line where the error was found, starting from 1, or {@link #WHOLE_LINE}
+	 */
+	public int getColumn() {
+		return column;
+	}
+	
+	
+	public String getReason() {
+		return reason;
+	}
+	
+	
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+		LineError other = (LineError) o;
+		return lineNumber == other.lineNumber && column == other.column && reason.equals(other.reason);
+	}
+	
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(lineNumber, column, reason);
+	}
+	
+	
+	@Override
+	public String toString() {
+		return "line " + lineNumber + ", column " + column + ": " + reason;
+	}
+}
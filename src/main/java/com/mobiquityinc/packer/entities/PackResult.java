@@ -0,0 +1,77 @@
+package com.mobiquityinc.packer.entities;
+
+import com.mobiquityinc.packer.exception.APIException;
+
+import java.util.Optional;
+
+
+/**
+ * The result of a line of the input file: its {@link PackageSolution package}, or the error that prevented to
+ * assemble it.
+ *
+ * @author Hector Blanco
+ */
+public class PackResult {
+	
+	private long lineNumber;
+	private PackageSolution solution;
+	private APIException error;
+	
+	
+	/**
+	 * @param lineNumber the number of the line, starting from 1
+	 * @param solution   the package assembled for the line
+	 */
+	public PackResult(long lineNumber, PackageSolution solution) {
+		this.lineNumber = lineNumber;
+		this.solution = solution;
+	}
+	
+	
+	/**
+	 * @param lineNumber the number of the line, starting from 1
+	 * @param error      why the package of the line could not be assembled
+	 */
+	public PackResult(long lineNumber, APIException error) {
+		this.lineNumber = lineNumber;
+		this.error = error;
+	}
+	
+	
+	/**
+	 * @return the number of the line in the input file, starting from 1
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+	
+	
+	/**
+	 * @return the package of the line, or an Optional.empty if the line has an error
+	 */
+	public Optional<PackageSolution> getSolution() {
+		return Optional.ofNullable(solution);
+	}
+	
+	
+	/**
+	 * @return why the package of the line could not be assembled, or an Optional.empty if the line has a package
+	 */
+	public Optional<APIException> getError() {
+		return Optional.ofNullable(error);
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the package of the line could not be assembled
+	 */
+	public boolean isError() {
+		return error != null;
+	}
+	
+	
+	@Override
+	public String toString() {
+		return lineNumber + ": " + (error == null ? solution : "[error: " + error.getMessage() + "]");
+	}
+}
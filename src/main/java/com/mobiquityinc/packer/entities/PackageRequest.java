@@ -0,0 +1,57 @@
+package com.mobiquityinc.packer.entities;
+
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * A package to assemble that is already in memory, like a line of the input file: the max weight of the package and
+ * the things from which to choose.
+ *
+ * @author Hector Blanco
+ */
+public class PackageRequest {
+	
+	private Double packageWeight;
+	private List<Thing> things;
+	
+	
+	public PackageRequest(Double packageWeight, List<Thing> things) {
+		this.packageWeight = packageWeight;
+		this.things = things;
+	}
+	
+	
+	/**
+	 * @return the max weight that the package can take
+	 */
+	public Double getPackageWeight() {
+		return packageWeight;
+	}
+	
+	
+	public List<Thing> getThings() {
+		return things;
+	}
+	
+	
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+		PackageRequest other = (PackageRequest) o;
+		return Objects.equals(packageWeight, other.packageWeight) && Objects.equals(things, other.things);
+	}
+	
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(packageWeight, things);
+	}
+	
+	
+	@Override
+	public String toString() {
+		return packageWeight + " : " + things;
+	}
+}
@@ -0,0 +1,129 @@
+package com.mobiquityinc.packer.entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * The package assembled for a line of the input file: the indexes of its things, its weight and cost, and if it's
+ * the better package or only the better one found within the time budget of the line.
+ *
+ * @author Hector Blanco
+ */
+public class PackageSolution {
+	
+	/**
+	 * What is written in the output when no thing fits inside the package
+	 */
+	public static final String NO_THINGS = "-";
+	
+	private String combination;
+	private Double weight;
+	private Double cost;
+	private boolean optimal;
+	// the indexes of the combination, split from it the first time they're asked for if not given
+	private List<Integer> indexes;
+	
+	
+	public PackageSolution(String combination, Double weight, Double cost, boolean optimal) {
+		this.combination = combination;
+		this.weight = weight;
+		this.cost = cost;
+		this.optimal = optimal;
+	}
+	
+	
+	/**
+	 * Constructor with the indexes of the combination already decoded, so they are not split from it again.
+	 *
+	 * @param combination the thing's indexes separated by commas
+	 * @param indexes     the same thing's indexes
+	 * @param weight      the weight of the package
+	 * @param cost        the cost of the package
+	 * @param optimal     <code>false</code> if the time budget of the line ran out
+	 */
+	public PackageSolution(String combination, List<Integer> indexes, Double weight, Double cost, boolean optimal) {
+		this(combination, weight, cost, optimal);
+		this.indexes = Collections.unmodifiableList(indexes);
+	}
+	
+	
+	/**
+	 * @return the thing's indexes separated by commas, {@link #NO_THINGS} if the package is empty, or the error
+	 * placeholder of the options for a wrong line in lenient mode
+	 */
+	public String getCombination() {
+		return combination;
+	}
+	
+	
+	/**
+	 * @return the thing's indexes, empty if the package is empty or is the placeholder of a wrong line. The list can't
+	 * be modified
+	 */
+	public List<Integer> getIndexes() {
+		if(indexes == null) {
+			indexes = Collections.unmodifiableList(splitIndexes(combination));
+		}
+		return indexes;
+	}
+	
+	
+	private static List<Integer> splitIndexes(String combination) {
+		if(NO_THINGS.equals(combination)) {
+			return Collections.emptyList();
+		}
+		List<Integer> split = new ArrayList<>();
+		for(String index : combination.split(",")) {
+			split.add(Integer.valueOf(index));
+		}
+		return split;
+	}
+	
+	
+	public Double getWeight() {
+		return weight;
+	}
+	
+	
+	public Double getCost() {
+		return cost;
+	}
+	
+	
+	/**
+	 * @return <code>false</code> if the time budget of the line ran out, and a better package could exist. The
+	 * placeholder of a wrong line in lenient mode is always optimal, its error is given to the error sink
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+	
+	
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+		PackageSolution other = (PackageSolution) o;
+		
+		// solutions are equals if they have the same combination, weight, cost and optimal flag
+		return getCombination().equals(other.getCombination())
+				&& getWeight().equals(other.getWeight())
+				&& getCost().equals(other.getCost())
+				&& isOptimal() == other.isOptimal();
+	}
+	
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(getCombination(), getWeight(), getCost(), isOptimal());
+	}
+	
+	
+	@Override
+	public String toString() {
+		return "[" + combination + ", " + weight + ", " + cost + (optimal ? "" : ", not optimal") + "]";
+	}
+}
@@ -0,0 +1,69 @@
+package com.mobiquityinc.packer.entities;
+
+import java.util.Objects;
+
+
+/**
+ * A byte range <code>[start, end)</code> of an input file made of whole lines, packed on its own and merged with the
+ * others later: both ends are at the start of a line or at the end of the file.
+ *
+ * @author Hector Blanco
+ */
+public class Shard {
+	
+	private long start;
+	private long end;
+	private long firstLineNumber;
+	
+	
+	public Shard(long start, long end, long firstLineNumber) {
+		this.start = start;
+		this.end = end;
+		this.firstLineNumber = firstLineNumber;
+	}
+	
+	
+	/**
+	 * @return the byte of the file where the first line of the shard starts
+	 */
+	public long getStart() {
+		return start;
+	}
+	
+	
+	/**
+	 * @return the byte after the last line of the shard
+	 */
+	public long getEnd() {
+		return end;
+	}
+	
+	
+	/**
+	 * @return the number in the whole file of the first line of the shard, starting from 1
+	 */
+	public long getFirstLineNumber() {
+		return firstLineNumber;
+	}
+	
+	
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+		Shard other = (Shard) o;
+		return start == other.start && end == other.end && firstLineNumber == other.firstLineNumber;
+	}
+	
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(start, end, firstLineNumber);
+	}
+	
+	
+	@Override
+	public String toString() {
+		return "[" + start + ", " + end + ") from line " + firstLineNumber;
+	}
+}
@@ -23,4 +23,18 @@ public class APIException extends Exception {
 		super(message, cause);
 	}
 	
+	
+	/**
+	 * Exception without the stack trace when <code>writableStackTrace</code> is <code>false</code>, for the errors
+	 * that are expected many times and only their message is needed. The suppressed exceptions are kept, as in any
+	 * other exception.
+	 *
+	 * @param message            the detail message
+	 * @param cause              the cause, can be <code>null</code>
+	 * @param writableStackTrace whether or not the stack trace should be filled
+	 */
+	public APIException(String message, Throwable cause, boolean writableStackTrace) {
+		super(message, cause, true, writableStackTrace);
+	}
+	
 }
@@ -23,4 +23,17 @@ public class IncorrectThingDefinition extends APIException {
 		super(message, cause);
 	}
 	
+	
+	/**
+	 * Exception without the stack trace when <code>writableStackTrace</code> is <code>false</code>, for the errors
+	 * that are expected many times and only their message is needed.
+	 *
+	 * @param message            the detail message
+	 * @param cause              the cause, can be <code>null</code>
+	 * @param writableStackTrace whether or not the stack trace should be filled
+	 */
+	public IncorrectThingDefinition(String message, Throwable cause, boolean writableStackTrace) {
+		super(message, cause, writableStackTrace);
+	}
+	
 }
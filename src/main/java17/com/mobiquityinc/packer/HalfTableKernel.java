@@ -0,0 +1,80 @@
+package com.mobiquityinc.packer;
+
+
+/**
+ * Kernel of {@link HalfTablePackageBuilder}: finds the best entry of a table of combinations that still fits in the
+ * package together with a combination of a given weight.
+ * <p>
+ * Java 17+ version of the kernel, packed in the multi-release jar. When the <code>jdk.incubator.vector</code> module
+ * is available the tables are evaluated by {@link VectorHalfTableKernel}, otherwise with the same loop of the Java 8
+ * version.
+ *
+ * @author Hector Blanco
+ */
+final class HalfTableKernel {
+	
+	// under this number of entries the vector setup costs more than the loop
+	private static final int MIN_VECTORIZED_LENGTH = 64;
+	
+	// the Vector API classes can be touched only if the module was added to the boot layer
+	private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+	
+	
+	/**
+	 * Private constructor to prevent new instances of this utility class
+	 */
+	private HalfTableKernel() {
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the kernel evaluates the tables with SIMD instructions
+	 */
+	static boolean isVectorized() {
+		return VECTORIZED;
+	}
+	
+	
+	/**
+	 * Find, among the entries [from, length) of the table, the one with the highest cost that fits in the package
+	 * together with a combination of the given weight. With the same cost the lighter entry wins, and with the same
+	 * cost and weight the first one.
+	 *
+	 * @param baseWeight    the weight of the combination that the entries are added to
+	 * @param weights       weights of the entries
+	 * @param costs         costs of the entries
+	 * @param from          first entry to evaluate
+	 * @param length        number of entries of the table
+	 * @param packageWeight the max weight that the package can take
+	 * @return the position of the best entry, -1 if no entry fits
+	 */
+	static int bestFit(double baseWeight, double[] weights, double[] costs, int from, int length, double packageWeight) {
+		if(VECTORIZED && length - from >= MIN_VECTORIZED_LENGTH) {
+			return VectorHalfTableKernel.bestFit(baseWeight, weights, costs, from, length, packageWeight);
+		}
+		return scalarBestFit(baseWeight, weights, costs, from, length, packageWeight);
+	}
+	
+	
+	/**
+	 * Same loop of the Java 8 version of this class.
+	 */
+	static int scalarBestFit(double baseWeight, double[] weights, double[] costs, int from, int length, double packageWeight) {
+		int best = -1;
+		double bestCost = Double.NEGATIVE_INFINITY;
+		double bestWeight = Double.POSITIVE_INFINITY;
+		for(int i = from; i < length; i++) {
+			double weight = weights[i];
+			if(baseWeight + weight <= packageWeight) {
+				double cost = costs[i];
+				if(cost > bestCost || (cost == bestCost && weight < bestWeight)) {
+					best = i;
+					bestCost = cost;
+					bestWeight = weight;
+				}
+			}
+		}
+		return best;
+	}
+	
+}
@@ -0,0 +1,95 @@
+package com.mobiquityinc.packer;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * Implementation of {@link HalfTableKernel#bestFit} with the Vector API, evaluating as many entries at once as the
+ * CPU lanes allow. Only loaded when the <code>jdk.incubator.vector</code> module is available.
+ * <p>
+ * The best entry is found in three passes over the table, each one a masked reduction: the max cost of the entries
+ * that fit, the min weight of the entries that fit with that cost, and the first entry that fits with that cost and
+ * weight. The result is always the same entry of the scalar loop.
+ *
+ * @author Hector Blanco
+ */
+final class VectorHalfTableKernel {
+	
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	
+	
+	/**
+	 * Private constructor to prevent new instances of this utility class
+	 */
+	private VectorHalfTableKernel() {
+	}
+	
+	
+	/**
+	 * @see HalfTableKernel#bestFit(double, double[], double[], int, int, double)
+	 */
+	static int bestFit(double baseWeight, double[] weights, double[] costs, int from, int length, double packageWeight) {
+		int upperBound = from + SPECIES.loopBound(length - from);
+		
+		// max cost of the entries that fit
+		DoubleVector maxCosts = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+		int i = from;
+		for(; i < upperBound; i += SPECIES.length()) {
+			VectorMask<Double> fits = fits(baseWeight, weights, i, packageWeight);
+			maxCosts = maxCosts.lanewise(VectorOperators.MAX, DoubleVector.fromArray(SPECIES, costs, i), fits);
+		}
+		double maxCost = maxCosts.reduceLanes(VectorOperators.MAX);
+		for(; i < length; i++) {
+			if(baseWeight + weights[i] <= packageWeight && costs[i] > maxCost) {
+				maxCost = costs[i];
+			}
+		}
+		if(maxCost == Double.NEGATIVE_INFINITY) {
+			return -1;
+		}
+		
+		// min weight of the entries that fit with the max cost
+		DoubleVector minWeights = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+		for(i = from; i < upperBound; i += SPECIES.length()) {
+			VectorMask<Double> candidates = candidates(baseWeight, weights, costs, i, packageWeight, maxCost);
+			minWeights = minWeights.lanewise(VectorOperators.MIN, DoubleVector.fromArray(SPECIES, weights, i), candidates);
+		}
+		double minWeight = minWeights.reduceLanes(VectorOperators.MIN);
+		for(; i < length; i++) {
+			if(baseWeight + weights[i] <= packageWeight && costs[i] == maxCost && weights[i] < minWeight) {
+				minWeight = weights[i];
+			}
+		}
+		
+		// first entry that fits with the max cost and the min weight
+		for(i = from; i < upperBound; i += SPECIES.length()) {
+			VectorMask<Double> best = candidates(baseWeight, weights, costs, i, packageWeight, maxCost)
+					.and(DoubleVector.fromArray(SPECIES, weights, i).compare(VectorOperators.EQ, minWeight));
+			if(best.anyTrue()) {
+				return i + best.firstTrue();
+			}
+		}
+		for(; i < length; i++) {
+			if(baseWeight + weights[i] <= packageWeight && costs[i] == maxCost && weights[i] == minWeight) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	
+	private static VectorMask<Double> fits(double baseWeight, double[] weights, int i, double packageWeight) {
+		return DoubleVector.fromArray(SPECIES, weights, i).add(baseWeight).compare(VectorOperators.LE, packageWeight);
+	}
+	
+	
+	private static VectorMask<Double> candidates(double baseWeight, double[] weights, double[] costs, int i,
+												 double packageWeight, double maxCost) {
+		return fits(baseWeight, weights, i, packageWeight)
+				.and(DoubleVector.fromArray(SPECIES, costs, i).compare(VectorOperators.EQ, maxCost));
+	}
+	
+}
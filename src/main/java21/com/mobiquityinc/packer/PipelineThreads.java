@@ -0,0 +1,94 @@
+package com.mobiquityinc.packer;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Threads of the {@link PipelinedPacker}: the executor of its stages, and where the parsing and the solving of the
+ * batches run.
+ * <p>
+ * Java 21+ version of the class, packed in the multi-release jar. With {@link PackerOpts#isVirtualThreads()} every
+ * stage is a virtual thread: the reader blocked on the input and the stages waiting on the queues don't hold a platform
+ * thread, so thousands of callers can pack at the same time. The parsing and the solving of the batches, that are CPU
+ * bound, are sent to a pool of platform threads shared by all the pipelines, with a thread for each processor, and the
+ * stage waits for them unmounted. The carriers of the virtual threads are left for the I/O, and the CPU work doesn't
+ * grow with the number of callers. Without the option, the stages are platform threads like the Java 8 version.
+ *
+ * @author Hector Blanco
+ */
+final class PipelineThreads {
+	
+	/**
+	 * Private constructor to prevent new instances of this utility class
+	 */
+	private PipelineThreads() {
+	}
+	
+	
+	/**
+	 * @return <code>true</code> if the stages of the pipeline can run on virtual threads
+	 */
+	static boolean isVirtualAvailable() {
+		return true;
+	}
+	
+	
+	/**
+	 * @param opts      the options of the pipeline
+	 * @param nOfStages the number of threads of the stages of the pipeline
+	 * @return the executor that runs the stages of the pipeline
+	 */
+	static ExecutorService newStageExecutor(PackerOpts opts, int nOfStages) {
+		if(opts.isVirtualThreads()) {
+			return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("packer-pipeline-", 0L).factory());
+		}
+		return Executors.newFixedThreadPool(nOfStages, runnable -> {
+			// a reader blocked on the input must not keep the JVM alive
+			Thread thread = new Thread(runnable, "packer-pipeline");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	
+	/**
+	 * Parse or solve a batch: in the shared pool from a virtual thread, in the thread of the stage otherwise.
+	 *
+	 * @param opts the options of the pipeline
+	 * @param work the parsing or the solving of a batch, that doesn't throw exceptions
+	 * @throws InterruptedException if the stage is interrupted waiting for the work
+	 */
+	static void compute(PackerOpts opts, Runnable work) throws InterruptedException {
+		if(!opts.isVirtualThreads() || !Thread.currentThread().isVirtual()) {
+			work.run();
+			return;
+		}
+		Future<?> future = ComputePool.POOL.submit(work);
+		try {
+			future.get();
+		} catch(InterruptedException e) {
+			// the pipeline is stopping: the batch is not needed anymore, and must not keep a thread of the pool
+			future.cancel(true);
+			throw e;
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	
+	/**
+	 * The pool shared by all the pipelines, created the first time that a virtual stage computes a batch.
+	 */
+	private static final class ComputePool {
+		
+		private static final ExecutorService POOL = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors(), Thread.ofPlatform().name("packer-compute-", 0L).daemon().factory());
+	}
+	
+}
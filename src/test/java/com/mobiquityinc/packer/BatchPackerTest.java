@@ -0,0 +1,134 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.BatchSummary;
+import com.mobiquityinc.packer.entities.FileSummary;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link BatchPacker}.
+ *
+ * @author Hector Blanco
+ */
+class BatchPackerTest {
+	
+	private static final String INPUT_ASSIGNMENT_PATH = "./src/test/resources/assignment_input.txt";
+	private static final String INPUT_CUSTOM_PATH = "./src/test/resources/input_custom.txt";
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN a directory with a wrong file THEN packs the other files and summarizes the error")
+	void packDirectory() throws IOException, APIException {
+		// given
+		Path inputDir = Files.createDirectory(tempDir.resolve("in"));
+		Files.copy(Paths.get(INPUT_ASSIGNMENT_PATH), inputDir.resolve("a.txt"));
+		Files.write(inputDir.resolve("b.txt"), "wrong line".getBytes(StandardCharsets.UTF_8));
+		Files.copy(Paths.get(INPUT_CUSTOM_PATH), inputDir.resolve("c.txt"));
+		Path outputDir = tempDir.resolve("out");
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.batchThreads = 2;
+		}).build();
+		
+		// when
+		BatchSummary summary = BatchPacker.packAll(inputDir.toString(), outputDir, opts);
+		
+		// then
+		List<FileSummary> files = summary.getFiles();
+		assertEquals(Arrays.asList(inputDir.resolve("a.txt"), inputDir.resolve("b.txt"), inputDir.resolve("c.txt")),
+				Arrays.asList(files.get(0).getInput(), files.get(1).getInput(), files.get(2).getInput()));
+		assertEquals(Packer.pack(INPUT_ASSIGNMENT_PATH), read(outputDir.resolve("a.txt.out")));
+		assertEquals(Packer.pack(INPUT_CUSTOM_PATH), read(outputDir.resolve("c.txt.out")));
+		
+		assertEquals(1, summary.getFailures().size());
+		assertTrue(files.get(1).isError());
+		assertEquals("Incorrect input format in input line, expected format [packageWeight : thingsList]",
+				files.get(1).getError().get().getMessage());
+		assertFalse(Files.exists(outputDir.resolve("b.txt.out")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a glob THEN finds the files that match it")
+	void findInputsByGlob() throws IOException, APIException {
+		// given
+		Path inputDir = Files.createDirectories(tempDir.resolve("in").resolve("sub"));
+		Files.write(tempDir.resolve("in").resolve("a.txt"), new byte[0]);
+		Files.write(tempDir.resolve("in").resolve("b.csv"), new byte[0]);
+		Files.write(inputDir.resolve("c.txt"), new byte[0]);
+		
+		// when
+		List<Path> inputs = BatchPacker.findInputs(tempDir.resolve("in") + "/*.txt");
+		List<Path> allInputs = BatchPacker.findInputs(tempDir.resolve("in") + "/**.txt");
+		
+		// then
+		assertEquals(Arrays.asList(tempDir.resolve("in").resolve("a.txt")), inputs);
+		assertEquals(Arrays.asList(tempDir.resolve("in").resolve("a.txt"), inputDir.resolve("c.txt")), allInputs);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN files with the same name in different directories THEN their outputs keep the directories")
+	void outputsKeepTheDirectories() throws IOException, APIException {
+		// given
+		Path inputDir = tempDir.resolve("in");
+		Files.createDirectories(inputDir.resolve("x"));
+		Files.createDirectories(inputDir.resolve("y"));
+		Files.copy(Paths.get(INPUT_ASSIGNMENT_PATH), inputDir.resolve("x").resolve("a.txt"));
+		Files.copy(Paths.get(INPUT_CUSTOM_PATH), inputDir.resolve("y").resolve("a.txt"));
+		Path outputDir = tempDir.resolve("out");
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> obj.currencySymbol = "€").build();
+		
+		// when
+		BatchSummary summary = BatchPacker.packAll(inputDir + "/**.txt", outputDir, opts);
+		
+		// then
+		assertTrue(summary.getFailures().isEmpty());
+		assertEquals(Packer.pack(INPUT_ASSIGNMENT_PATH), read(outputDir.resolve("x").resolve("a.txt.out")));
+		assertEquals(Packer.pack(INPUT_CUSTOM_PATH), read(outputDir.resolve("y").resolve("a.txt.out")));
+		
+		// and the same input twice has a single output file
+		APIException exception = assertThrows(APIException.class, () -> BatchPacker.packAll(
+				Arrays.asList(inputDir.resolve("x").resolve("a.txt"), inputDir.resolve("x").resolve("a.txt")), outputDir, opts));
+		assertTrue(exception.getMessage().endsWith("have the same output file " + outputDir.resolve("a.txt.out")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a directory with the files written by the packers THEN they are not inputs")
+	void skipOwnFiles() throws IOException, APIException {
+		// given
+		Path inputDir = Files.createDirectory(tempDir.resolve("in"));
+		for(String name : Arrays.asList("a.txt", "a.txt.out", "b.txt.out.gz", "a.txt.idx", "a.txt.out.checkpoint", "a.txt.idx.tmp")) {
+			Files.write(inputDir.resolve(name), new byte[0]);
+		}
+		
+		// when
+		List<Path> inputs = BatchPacker.findInputs(inputDir.toString());
+		
+		// then
+		assertEquals(Arrays.asList(inputDir.resolve("a.txt")), inputs);
+	}
+	
+	
+	private static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+	
+}
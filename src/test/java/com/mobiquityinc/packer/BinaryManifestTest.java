@@ -0,0 +1,164 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link BinaryManifest}.
+ *
+ * @author Hector Blanco
+ */
+class BinaryManifestTest {
+	
+	private static final String INPUT_CUSTOM_PATH = "./src/test/resources/input_custom.txt";
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN a converted input THEN returns the same packages of the text input")
+	void samePackagesOfTextInput() throws APIException {
+		// given
+		Path manifest = tempDir.resolve("input_custom.bin");
+		long nOfPackages = BinaryManifest.convert(Paths.get(INPUT_CUSTOM_PATH), manifest, PackerOpts.defaultOptions());
+		
+		// when
+		ByteBuffer buffer = ByteBuffer.wrap(readAllBytes(manifest));
+		String packages = Packer.pack(buffer, PackerOpts.defaultOptions());
+		
+		// then
+		assertEquals(7L, nOfPackages);
+		assertEquals(Packer.pack(INPUT_CUSTOM_PATH), packages);
+		assertEquals(0, buffer.position());
+		assertEquals(Packer.solve(INPUT_CUSTOM_PATH, PackerOpts.defaultOptions()), Packer.solve(buffer, PackerOpts.defaultOptions()));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a line THEN writes little-endian fixed-width fields")
+	void littleEndianFields() throws IOException, APIException {
+		// given
+		Path input = Files.write(tempDir.resolve("line.txt"), "81 : (1,53.38,€45) (2,88.62,€98)".getBytes(StandardCharsets.UTF_8));
+		Path manifest = tempDir.resolve("line.bin");
+		
+		// when
+		BinaryManifest.convert(input, manifest, PackerOpts.defaultOptions());
+		
+		// then
+		ByteBuffer buffer = ByteBuffer.wrap(readAllBytes(manifest)).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(8 + 12 + 2 * 20, buffer.remaining());
+		byte[] magic = new byte[4];
+		buffer.get(magic);
+		assertArrayEquals(BinaryManifest.MAGIC, magic);
+		assertEquals(BinaryManifest.VERSION, buffer.getInt());
+		assertEquals(81D, buffer.getDouble());
+		assertEquals(2, buffer.getInt());
+		assertEquals(1, buffer.getInt());
+		assertEquals(53.38D, buffer.getDouble());
+		assertEquals(45D, buffer.getDouble());
+		assertEquals(2, buffer.getInt());
+		assertEquals(88.62D, buffer.getDouble());
+		assertEquals(98D, buffer.getDouble());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a wrong manifest THEN thrown APIException")
+	void wrongManifest() throws APIException {
+		// given
+		Path manifest = tempDir.resolve("input_custom.bin");
+		BinaryManifest.convert(Paths.get(INPUT_CUSTOM_PATH), manifest, PackerOpts.defaultOptions());
+		byte[] bytes = readAllBytes(manifest);
+		
+		// when the magic is wrong
+		byte[] wrongMagic = bytes.clone();
+		wrongMagic[0] = 'X';
+		APIException apiException = assertThrows(APIException.class, () -> Packer.pack(ByteBuffer.wrap(wrongMagic), PackerOpts.defaultOptions()));
+		assertEquals("Input is not a binary manifest", apiException.getMessage());
+		
+		// when the version is unknown
+		byte[] wrongVersion = bytes.clone();
+		wrongVersion[4] = 2;
+		apiException = assertThrows(APIException.class, () -> Packer.pack(ByteBuffer.wrap(wrongVersion), PackerOpts.defaultOptions()));
+		assertEquals("Unsupported binary manifest version 2", apiException.getMessage());
+		
+		// when the last package is cut
+		byte[] truncated = Arrays.copyOf(bytes, bytes.length - 5);
+		apiException = assertThrows(APIException.class, () -> Packer.pack(ByteBuffer.wrap(truncated), PackerOpts.defaultOptions()));
+		assertEquals("Binary manifest is truncated", apiException.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a manifest with wrong values THEN thrown APIException with the errors of the text input")
+	void wrongValues() {
+		// when the capacity is negative or not a number
+		assertEquals("Package weight is negative: \"-81.0\"", packError(manifest(-81D, 1, 53.38D, 45D)));
+		assertEquals("Incorrect format for package weight: \"NaN\"", packError(manifest(Double.NaN, 1, 53.38D, 45D)));
+		
+		// when the number of things is negative or over the max
+		assertEquals("Package 81.0 has a negative number of things: -1", packError(manifest(81D, -1)));
+		assertEquals("Package 81.0 has more than 15 things to be chosen.", packError(manifest(81D, 16)));
+		
+		// when a thing is wrong
+		assertEquals("Thing's index is negative: \"-1\"", packError(manifest(81D, -1, 53.38D, 45D)));
+		assertEquals("Thing's weight is negative: \"-53.38\"", packError(manifest(81D, 1, -53.38D, 45D)));
+		assertEquals("Incorrect format for thing's weight: \"Infinity\"",
+				packError(manifest(81D, 1, Double.POSITIVE_INFINITY, 45D)));
+		assertEquals("Thing's cost is negative: \"-45.0\"", packError(manifest(81D, 1, 53.38D, -45D)));
+		assertEquals("Incorrect format for thing's cost: \"NaN\"", packError(manifest(81D, 1, 53.38D, Double.NaN)));
+	}
+	
+	
+	/**
+	 * A manifest with a package of the given capacity and number of things, without the things
+	 */
+	private static ByteBuffer manifest(double capacity, int nOfThings) {
+		ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(BinaryManifest.MAGIC).putInt(BinaryManifest.VERSION).putDouble(capacity).putInt(nOfThings);
+		buffer.flip();
+		return buffer;
+	}
+	
+	
+	/**
+	 * A manifest with a package of the given capacity and a thing with the given fields
+	 */
+	private static ByteBuffer manifest(double capacity, int index, double weight, double cost) {
+		ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(BinaryManifest.MAGIC).putInt(BinaryManifest.VERSION).putDouble(capacity).putInt(1);
+		buffer.putInt(index).putDouble(weight).putDouble(cost);
+		buffer.flip();
+		return buffer;
+	}
+	
+	
+	private static String packError(ByteBuffer manifest) {
+		return assertThrows(APIException.class, () -> Packer.pack(manifest, PackerOpts.defaultOptions())).getMessage();
+	}
+	
+	
+	private static byte[] readAllBytes(Path path) {
+		try {
+			return Files.readAllBytes(path);
+		} catch(IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+	
+}
@@ -0,0 +1,123 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link BitmaskPackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class BitmaskPackageBuilderTest {
+	
+	// the builder to test
+	private BitmaskPackageBuilder builder;
+	
+	
+	@BeforeEach
+	void setUp() {
+		builder = new BitmaskPackageBuilder();
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a list of things with only one thing which weighs less than the package " +
+			"THEN chose this thing as the better things combination for the package")
+	void resolveBetterPackageWithOnlyOneThingThatSuits() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 10D, 10D));
+		things.add(new Thing(2, 15D, 500D));
+		
+		// when
+		Optional<String> betterPackage = builder.resolveBetterPackage(things, 10D);
+		
+		// then
+		assertEquals("1", betterPackage.orElseGet(() -> fail("Should had chosen the combination [1]")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN things with the same cost and weight THEN chose the first combination created, like PackageBuilder")
+	void resolveBetterPackageWithTies() throws APIException {
+		// given [1] and [3,4] have the same cost and weight
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 10D, 40D));
+		things.add(new Thing(2, 15D, 500D));
+		things.add(new Thing(3, 5D, 20D));
+		things.add(new Thing(4, 5D, 20D));
+		
+		// when
+		Optional<String> betterPackage = builder.resolveBetterPackage(things, 10D);
+		
+		// then
+		assertEquals("1", betterPackage.orElseGet(() -> fail("Should had chosen the combination [1]")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a list of things with no choice that suits the package weight THEN return an Optional.empty")
+	void resolveBetterPackageWithNoPossibilities() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 10D, 10D));
+		things.add(new Thing(2, 15D, 500D));
+		
+		// when
+		Optional<String> betterPackage = builder.resolveBetterPackage(things, 1D);
+		
+		// then
+		assertEquals(Optional.empty(), betterPackage);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN more things than the builder can combine THEN throws APIException")
+	void resolveBetterPackageWithTooManyThings() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		for(int i = 0; i <= BitmaskPackageBuilder.MAX_THINGS; i++) {
+			things.add(new Thing(i + 1, 1D, 1D));
+		}
+		
+		// when
+		APIException exception = assertThrows(APIException.class, () -> builder.resolveBetterPackage(things, 10D));
+		
+		// then
+		assertEquals("Package 10.0 has more than 20 things to be combined.", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages THEN choose the same package of PackageBuilder")
+	void sameChoiceOfPackageBuilder() throws APIException {
+		Random random = new Random(42);
+		for(int run = 0; run < 500; run++) {
+			// given a random package, with few distinct values to have a lot of ties
+			int nOfThings = 1 + random.nextInt(12);
+			List<Thing> things = new ArrayList<>();
+			for(int i = 0; i < nOfThings; i++) {
+				things.add(new Thing(i + 1, (double) random.nextInt(20), (double) random.nextInt(10)));
+			}
+			double packageWeight = random.nextInt(50);
+			
+			// when the same builder is reused for a new package
+			Optional<String> betterPackage = builder.resolveBetterPackage(things, packageWeight);
+			
+			// then
+			assertEquals(PackageBuilder.assemblePackage(things, packageWeight), betterPackage, things.toString());
+		}
+	}
+	
+}
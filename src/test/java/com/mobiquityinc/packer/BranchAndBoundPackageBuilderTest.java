@@ -0,0 +1,154 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link BranchAndBoundPackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class BranchAndBoundPackageBuilderTest {
+	
+	@Test
+	@DisplayName("GIVEN a thing with the best ratio that leaves no room for better things " +
+			"THEN chose the combination with the higher cost")
+	void resolveBetterPackageWhenBestRatioIsNotTheBestChoice() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 6D, 60D));
+		things.add(new Thing(2, 5D, 45D));
+		things.add(new Thing(3, 5D, 45D));
+		
+		// when
+		Optional<String> betterPackage = BranchAndBoundPackageBuilder.assemblePackage(things, 10D);
+		
+		// then
+		assertEquals("2,3", betterPackage.orElseGet(() -> fail("Should had chosen the combination [2,3]")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN two combinations with the same cost THEN chose the lighter one")
+	void resolveBetterPackageWithSameCost() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 9D, 40D));
+		things.add(new Thing(2, 4D, 20D));
+		things.add(new Thing(3, 4D, 20D));
+		
+		// when
+		Optional<String> betterPackage = BranchAndBoundPackageBuilder.assemblePackage(things, 10D);
+		
+		// then
+		assertEquals("2,3", betterPackage.orElseGet(() -> fail("Should had chosen the combination [2,3]")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a list of things with no choice that suits the package weight THEN return an Optional.empty")
+	void resolveBetterPackageWithNoPossibilities() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 10D, 10D));
+		things.add(new Thing(2, 15D, 500D));
+		
+		// when
+		Optional<String> betterPackage = BranchAndBoundPackageBuilder.assemblePackage(things, 1D);
+		
+		// then
+		assertEquals(Optional.empty(), betterPackage);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages THEN choose a package with the same cost and weight of BitmaskPackageBuilder")
+	void sameCostAndWeightOfBitmaskPackageBuilder() throws APIException {
+		Random random = new Random(11);
+		for(int run = 0; run < 500; run++) {
+			// given a random package
+			int nOfThings = 1 + random.nextInt(16);
+			List<Thing> things = new ArrayList<>();
+			for(int i = 0; i < nOfThings; i++) {
+				things.add(new Thing(i + 1, (double) random.nextInt(30), (double) random.nextInt(100)));
+			}
+			double packageWeight = random.nextInt(100);
+			
+			// when
+			Optional<String> betterPackage = BranchAndBoundPackageBuilder.assemblePackage(things, packageWeight);
+			
+			// then ties can be resolved with another combination, but cost and weight must be the same
+			Optional<String> expected = BitmaskPackageBuilder.assemblePackage(things, packageWeight);
+			assertEquals(expected.isPresent(), betterPackage.isPresent(), things.toString());
+			if(expected.isPresent()) {
+				assertArrayEquals(totals(expected.get(), things), totals(betterPackage.get(), things), things.toString());
+			}
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a deadline that is already over THEN returns the greedy package flagged as not optimal")
+	void resolveBetterPackageAfterDeadline() throws APIException {
+		// given things with the same ratio, that the bound can't cut
+		List<Thing> things = new ArrayList<>();
+		Random random = new Random(3);
+		for(int i = 0; i < 40; i++) {
+			double weight = 1D + random.nextInt(50);
+			things.add(new Thing(i + 1, weight, weight));
+		}
+		BranchAndBoundPackageBuilder builder = new BranchAndBoundPackageBuilder();
+		
+		// when
+		Optional<String> betterPackage = builder.resolveBetterPackage(things, 500.5D, System.nanoTime() - 1L);
+		
+		// then
+		assertFalse(builder.isOptimal());
+		assertTrue(betterPackage.isPresent());
+		assertTrue(totals(betterPackage.get(), things)[0] <= 500.5D);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a deadline far away THEN returns the better package flagged as optimal")
+	void resolveBetterPackageBeforeDeadline() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 6D, 60D));
+		things.add(new Thing(2, 5D, 45D));
+		things.add(new Thing(3, 5D, 45D));
+		BranchAndBoundPackageBuilder builder = new BranchAndBoundPackageBuilder();
+		
+		// when
+		Optional<String> betterPackage = builder.resolveBetterPackage(things, 10D, System.nanoTime() + 60_000_000_000L);
+		
+		// then
+		assertTrue(builder.isOptimal());
+		assertEquals("2,3", betterPackage.orElseGet(() -> fail("Should had chosen the combination [2,3]")));
+	}
+	
+	
+	/**
+	 * Weight and cost of a package, the things of these tests have index = position + 1
+	 */
+	private static double[] totals(String aPackage, List<Thing> things) {
+		double[] totals = new double[2];
+		for(String index : aPackage.split(",")) {
+			Thing thing = things.get(Integer.parseInt(index) - 1);
+			totals[0] += thing.getWeight();
+			totals[1] += thing.getCost();
+		}
+		return totals;
+	}
+	
+}
@@ -0,0 +1,159 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.PackageRequest;
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import com.mobiquityinc.packer.exception.IncorrectThingDefinition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for {@link BulkPacker} and {@link Packer#pack(List, PackerOpts)}.
+ *
+ * @author Hector Blanco
+ */
+class BulkPackerTest {
+	
+	@Test
+	@DisplayName("GIVEN random requests in a pool THEN the packages are the ones of each request alone, in order")
+	void sameAsSequential() throws APIException {
+		// given a few big packages among many small ones
+		Random random = new Random(30);
+		List<PackageRequest> requests = new ArrayList<>();
+		for(int i = 0; i < 2000; i++) {
+			requests.add(randomRequest(random, i % 200 == 0 ? 15 : 1 + random.nextInt(6)));
+		}
+		Set<Thread> workers = ConcurrentHashMap.newKeySet();
+		ForkJoinPool pool = new ForkJoinPool(4, p -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			workers.add(thread);
+			return thread;
+		}, null, false);
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> obj.forkJoinPool = pool).build();
+		
+		// when
+		List<PackageSolution> solutions;
+		try {
+			solutions = Packer.pack(requests, opts);
+		} finally {
+			pool.shutdown();
+		}
+		
+		// then
+		assertFalse(workers.isEmpty());
+		assertEquals(requests.size(), solutions.size());
+		Packer packer = new Packer(PackerOpts.defaultOptions());
+		for(int i = 0; i < requests.size(); i++) {
+			PackageRequest request = requests.get(i);
+			assertEquals(packer.assemblePackage(request.getThings(), request.getPackageWeight()), solutions.get(i),
+					"request " + i);
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN wrong requests THEN pack throws the error of the first one")
+	void firstError() {
+		// given
+		List<PackageRequest> requests = Arrays.asList(
+				new PackageRequest(8D, Collections.singletonList(new Thing(1, 15.3, 34D))),
+				new PackageRequest(8D, Collections.singletonList(new Thing(1, -15.3, 34D))),
+				new PackageRequest(-8D, Collections.singletonList(new Thing(1, 15.3, 34D))));
+		
+		// when
+		APIException apiException = assertThrows(IncorrectThingDefinition.class, () -> Packer.pack(requests, PackerOpts.defaultOptions()));
+		APIException nullInput = assertThrows(APIException.class,
+				() -> Packer.pack((List<PackageRequest>) null, PackerOpts.defaultOptions()));
+		
+		// then
+		assertEquals("Thing's weight is negative: \"-15.3\"", apiException.getMessage());
+		assertEquals("Input cannot be null", nullInput.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN requests with NaN or infinite values THEN pack throws the errors of the lines of an input file")
+	void nonFiniteValues() {
+		// given
+		List<PackageRequest> nanWeight = Collections.singletonList(
+				new PackageRequest(Double.NaN, Collections.singletonList(new Thing(1, 15.3, 34D))));
+		List<PackageRequest> infiniteWeight = Collections.singletonList(
+				new PackageRequest(Double.POSITIVE_INFINITY, Arrays.asList(new Thing(1, 15.3, 34D), new Thing(2, Double.NaN, 3D))));
+		List<PackageRequest> nanThingWeight = Collections.singletonList(
+				new PackageRequest(80D, Arrays.asList(new Thing(1, 15.3, 34D), new Thing(2, Double.NaN, 3D))));
+		List<PackageRequest> infiniteCost = Collections.singletonList(
+				new PackageRequest(80D, Arrays.asList(new Thing(1, 15.3, Double.POSITIVE_INFINITY), new Thing(2, 5D, 3D))));
+		List<PackageRequest> negativeInfiniteCost = Collections.singletonList(
+				new PackageRequest(80D, Collections.singletonList(new Thing(1, 15.3, Double.NEGATIVE_INFINITY))));
+		PackerOpts opts = PackerOpts.defaultOptions();
+		
+		// when
+		APIException nanWeightError = assertThrows(APIException.class, () -> Packer.pack(nanWeight, opts));
+		APIException infiniteWeightError = assertThrows(APIException.class, () -> Packer.pack(infiniteWeight, opts));
+		APIException nanThingWeightError = assertThrows(IncorrectThingDefinition.class, () -> Packer.pack(nanThingWeight, opts));
+		APIException infiniteCostError = assertThrows(IncorrectThingDefinition.class, () -> Packer.pack(infiniteCost, opts));
+		APIException negativeInfiniteCostError = assertThrows(IncorrectThingDefinition.class,
+				() -> Packer.pack(negativeInfiniteCost, opts));
+		
+		// then
+		assertEquals("Incorrect format for package weight: \"NaN\"", nanWeightError.getMessage());
+		assertEquals("Incorrect format for package weight: \"Infinity\"", infiniteWeightError.getMessage());
+		assertEquals("Incorrect format for thing's weight: \"NaN\"", nanThingWeightError.getMessage());
+		assertEquals("Incorrect format for thing's cost: \"Infinity\"", infiniteCostError.getMessage());
+		assertEquals("Incorrect format for thing's cost: \"-Infinity\"", negativeInfiniteCostError.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN lenient mode and wrong requests THEN they get the placeholder and their errors are given in order")
+	void lenientErrors() throws APIException {
+		// given
+		List<PackageRequest> requests = Arrays.asList(
+				null,
+				new PackageRequest(8D, Collections.singletonList(new Thing(1, 15.3, 34D))),
+				new PackageRequest(-8D, Collections.singletonList(new Thing(1, 15.3, 34D))),
+				new PackageRequest(81D, Arrays.asList(new Thing(1, 53.38, 45D), new Thing(2, 88.62, 98D))));
+		List<LineError> errors = new ArrayList<>();
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.lenient = true;
+			obj.errorSink = errors::add;
+		}).build();
+		
+		// when
+		List<PackageSolution> solutions = Packer.pack(requests, opts);
+		
+		// then
+		assertEquals(Arrays.asList("ERROR", "-", "ERROR", "1"), Arrays.asList(solutions.get(0).getCombination(),
+				solutions.get(1).getCombination(), solutions.get(2).getCombination(), solutions.get(3).getCombination()));
+		assertEquals(Arrays.asList(
+				new LineError(1, LineError.WHOLE_LINE, "Package request 1 is incomplete"),
+				new LineError(3, LineError.WHOLE_LINE, "Package weight is negative: \"-8.0\"")), errors);
+		assertEquals(Collections.emptyList(), solutions.get(0).getIndexes());
+		assertTrue(solutions.get(0).isOptimal());
+	}
+	
+	
+	private static PackageRequest randomRequest(Random random, int nOfThings) {
+		List<Thing> things = new ArrayList<>();
+		for(int i = 1; i <= nOfThings; i++) {
+			things.add(new Thing(i, random.nextInt(10000) / 100D, (double) random.nextInt(100)));
+		}
+		return new PackageRequest((double) random.nextInt(100), things);
+	}
+	
+}
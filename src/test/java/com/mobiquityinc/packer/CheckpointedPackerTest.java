@@ -0,0 +1,87 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import static com.mobiquityinc.packer.TestInputs.options;
+import static com.mobiquityinc.packer.TestInputs.randomLines;
+import static com.mobiquityinc.packer.TestInputs.read;
+import static com.mobiquityinc.packer.TestInputs.write;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link CheckpointedPacker}.
+ *
+ * @author Hector Blanco
+ */
+class CheckpointedPackerTest {
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN a packing that stops THEN resuming from the checkpoint writes the same output of a packing that never stopped")
+	void resumeFromCheckpoint() throws IOException, APIException {
+		// given a line that stops the packing, replaced later by a right line of the same size
+		String rightLine = "50 : (1,53.38,€45)";
+		String wrongLine = "wrong line..........";
+		String content = randomLines(new Random(19), 1000);
+		Path input = tempDir.resolve("input.txt");
+		Path output = tempDir.resolve("output.txt");
+		Path checkpoint = tempDir.resolve("output.txt" + CheckpointedPacker.CHECKPOINT_EXTENSION);
+		write(input, content + wrongLine + "\r\n" + content);
+		
+		// when
+		assertThrows(APIException.class, () -> Packer.pack(input, output, checkpointOptions(false)));
+		Properties saved = new Properties();
+		try(InputStream stream = Files.newInputStream(checkpoint)) {
+			saved.load(stream);
+		}
+		
+		write(input, content + rightLine + "\r\n" + content);
+		Packer.pack(input, output, checkpointOptions(true));
+		
+		// then
+		assertEquals("1000", saved.getProperty("lineNumber"));
+		assertEquals(Packer.pack(input.toString()), read(output));
+		assertFalse(Files.exists(checkpoint));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a checkpoint of another input THEN thrown APIException")
+	void checkpointOfAnotherInput() throws IOException, APIException {
+		// given
+		Path input = tempDir.resolve("input.txt");
+		Path output = tempDir.resolve("output.txt");
+		write(input, randomLines(new Random(20), 300) + "wrong line");
+		assertThrows(APIException.class, () -> Packer.pack(input, output, checkpointOptions(false)));
+		
+		// when
+		write(input, randomLines(new Random(21), 300));
+		APIException apiException = assertThrows(APIException.class, () -> Packer.pack(input, output, checkpointOptions(true)));
+		
+		// then
+		assertEquals(String.format("Checkpoint %s.checkpoint is not of this input file", output), apiException.getMessage());
+	}
+	
+	
+	private static PackerOpts checkpointOptions(boolean resume) {
+		return options(obj -> {
+			obj.checkpointLines = 100;
+			obj.resume = resume;
+		});
+	}
+	
+}
@@ -0,0 +1,121 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link DynamicProgrammingPackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class DynamicProgrammingPackageBuilderTest {
+	
+	// the builder to test, with weights and costs scaled to hundredths
+	private final DynamicProgrammingPackageBuilder builder = new DynamicProgrammingPackageBuilder(2);
+	
+	
+	@Test
+	@DisplayName("GIVEN things with more decimals than the scale THEN the builder doesn't support them")
+	void supportsOnlyTheConfiguredScale() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 53.38, 45D));
+		things.add(new Thing(2, 88.62, 98.5));
+		
+		// then
+		assertTrue(builder.supports(things, 81D));
+		
+		// given a thing with 3 decimals
+		things.add(new Thing(3, 10.125, 1D));
+		
+		// then
+		assertFalse(builder.supports(things, 81D));
+		APIException exception = assertThrows(APIException.class, () -> builder.resolveBetterPackage(things, 81D));
+		assertEquals("Package 81.0 can't be scaled to integers with a factor of 100", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN things that cost nothing THEN chose the lightest thing, like PackageBuilder")
+	void resolveBetterPackageWithZeroCost() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 5D, 0D));
+		things.add(new Thing(2, 3D, 0D));
+		things.add(new Thing(3, 15D, 10D));
+		
+		// when
+		Optional<String> betterPackage = builder.resolveBetterPackage(things, 10D);
+		
+		// then
+		assertEquals(PackageBuilder.assemblePackage(things, 10D), betterPackage);
+		assertEquals(Optional.of("2"), betterPackage);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a list of things with no choice that suits the package weight THEN return an Optional.empty")
+	void resolveBetterPackageWithNoPossibilities() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 10D, 10D));
+		things.add(new Thing(2, 15D, 500D));
+		
+		// when
+		Optional<String> betterPackage = builder.resolveBetterPackage(things, 1D);
+		
+		// then
+		assertEquals(Optional.empty(), betterPackage);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages with 2 decimals THEN choose a package with the same cost and weight of BitmaskPackageBuilder")
+	void sameCostAndWeightOfBitmaskPackageBuilder() throws APIException {
+		Random random = new Random(13);
+		for(int run = 0; run < 500; run++) {
+			// given a random package
+			int nOfThings = 1 + random.nextInt(16);
+			List<Thing> things = new ArrayList<>();
+			for(int i = 0; i < nOfThings; i++) {
+				things.add(new Thing(i + 1, random.nextInt(3000) / 100D, random.nextInt(10000) / 100D));
+			}
+			double packageWeight = random.nextInt(100);
+			
+			// when
+			Optional<String> betterPackage = builder.resolveBetterPackage(things, packageWeight);
+			
+			// then ties can be resolved with another combination, but cost and weight must be the same
+			Optional<String> expected = BitmaskPackageBuilder.assemblePackage(things, packageWeight);
+			assertEquals(expected.isPresent(), betterPackage.isPresent(), things.toString());
+			if(expected.isPresent()) {
+				assertArrayEquals(totals(expected.get(), things), totals(betterPackage.get(), things), things.toString());
+			}
+		}
+	}
+	
+	
+	/**
+	 * Weight and cost of a package in hundredths, the things of these tests have index = position + 1
+	 */
+	private static long[] totals(String aPackage, List<Thing> things) {
+		long[] totals = new long[2];
+		for(String index : aPackage.split(",")) {
+			Thing thing = things.get(Integer.parseInt(index) - 1);
+			totals[0] += Math.round(thing.getWeight() * 100);
+			totals[1] += Math.round(thing.getCost() * 100);
+		}
+		return totals;
+	}
+	
+}
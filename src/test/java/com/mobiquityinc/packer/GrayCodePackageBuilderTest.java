@@ -0,0 +1,106 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link GrayCodePackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class GrayCodePackageBuilderTest {
+	
+	// the builder to test, with weights and costs scaled to hundredths
+	private final GrayCodePackageBuilder builder = new GrayCodePackageBuilder(2);
+	
+	
+	@Test
+	@DisplayName("isCreatedBefore: GIVEN all the combinations of 4 things " +
+			"THEN the order is the same in which PackageBuilder creates them")
+	void combinationsOrder() {
+		// PackageBuilder creates [1], [1,2], [2], [1,3], [1,2,3], [2,3], [3], [1,4] ...
+		long[] expectedOrder = {1, 3, 2, 5, 7, 6, 4, 9, 11, 10, 13, 15, 14, 12, 8};
+		for(int i = 0; i < expectedOrder.length; i++) {
+			for(int j = 0; j < expectedOrder.length; j++) {
+				assertEquals(i < j, BitmaskPackageBuilder.isCreatedBefore(expectedOrder[i], expectedOrder[j]),
+						expectedOrder[i] + " before " + expectedOrder[j]);
+			}
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN things with more decimals than the scale THEN the builder doesn't support them")
+	void supportsOnlyTheConfiguredScale() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 53.38, 45D));
+		things.add(new Thing(2, 10.125, 1D));
+		
+		// then
+		assertFalse(builder.supports(things));
+		assertThrows(APIException.class, () -> builder.resolveBetterPackage(things, 81D));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages with 2 decimals THEN choose the same package of PackageBuilder")
+	void sameChoiceOfPackageBuilder() throws APIException {
+		Random random = new Random(17);
+		for(int run = 0; run < 500; run++) {
+			// given a random package, with few distinct values to have a lot of ties
+			int nOfThings = 1 + random.nextInt(12);
+			List<Thing> things = new ArrayList<>();
+			for(int i = 0; i < nOfThings; i++) {
+				things.add(new Thing(i + 1, random.nextInt(20) / 4D, (double) random.nextInt(10)));
+			}
+			double packageWeight = random.nextInt(20);
+			
+			// when
+			Optional<String> betterPackage = builder.resolveBetterPackage(things, packageWeight);
+			
+			// then
+			assertEquals(PackageBuilder.assemblePackage(things, packageWeight), betterPackage, things.toString());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages with many things THEN the parallel builder chooses the same package of the sequential one")
+	void sameChoiceInParallel() throws APIException {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			GrayCodePackageBuilder parallelBuilder = new GrayCodePackageBuilder(2, pool);
+			Random random = new Random(10);
+			for(int run = 0; run < 60; run++) {
+				// given a random package, with few distinct values to have a lot of ties between the sub-ranges
+				int nOfThings = 17 + random.nextInt(4);
+				List<Thing> things = new ArrayList<>();
+				for(int i = 0; i < nOfThings; i++) {
+					things.add(new Thing(i + 1, (double) random.nextInt(6), (double) random.nextInt(4)));
+				}
+				double packageWeight = random.nextInt(30);
+				
+				// when
+				Optional<String> betterPackage = parallelBuilder.resolveBetterPackage(things, packageWeight);
+				
+				// then
+				assertEquals(builder.resolveBetterPackage(things, packageWeight), betterPackage, things.toString());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+}
@@ -0,0 +1,138 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.exception.APIException;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link GzipStreams}.
+ *
+ * @author Hector Blanco
+ */
+class GzipStreamsTest {
+	
+	private static final String INPUT_CUSTOM_PATH = "./src/test/resources/input_custom.txt";
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN a gzip input file THEN returns the same packages of the plain file")
+	void gzipInputFile() throws IOException, APIException {
+		// given
+		Path compressed = tempDir.resolve("input_custom.txt.gz");
+		Files.write(compressed, gzip(Files.readAllBytes(Paths.get(INPUT_CUSTOM_PATH))));
+		PackerOpts mapped = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.mappedInputThreads = 2;
+		}).build();
+		
+		// when
+		String packages = Packer.pack(compressed.toString());
+		
+		// then
+		String expected = Packer.pack(INPUT_CUSTOM_PATH);
+		assertEquals(expected, packages);
+		assertEquals(expected, Packer.pack(compressed.toString(), mapped));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a gzip output THEN writes the packages compressed")
+	void gzipOutput() throws IOException, APIException {
+		// given
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.gzipOutput = true;
+		}).build();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		// when
+		try(InputStream input = new ByteArrayInputStream(gzip(Files.readAllBytes(Paths.get(INPUT_CUSTOM_PATH))))) {
+			Packer.pack(input, output, opts);
+		}
+		
+		// then
+		try(InputStream packages = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+			assertEquals(Packer.pack(INPUT_CUSTOM_PATH), IOUtils.toString(packages, StandardCharsets.UTF_8));
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN many chunks THEN decompress and compress the same bytes")
+	void manyChunks() throws IOException {
+		// given
+		byte[] bytes = new byte[3 * 1024 * 1024 + 17];
+		Random random = new Random(16);
+		for(int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) ('0' + random.nextInt(10));
+		}
+		
+		// when
+		byte[] decompressed;
+		try(InputStream input = GzipStreams.decompressIfGzip(new ByteArrayInputStream(gzip(bytes)))) {
+			decompressed = IOUtils.toByteArray(input);
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try(OutputStream output = GzipStreams.compress(compressed)) {
+			output.write(bytes, 0, 1000);
+			output.flush();
+			output.write(bytes, 1000, bytes.length - 1000);
+		}
+		
+		// then
+		assertArrayEquals(bytes, decompressed);
+		try(InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+			assertArrayEquals(bytes, IOUtils.toByteArray(input));
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a plain or a corrupted input THEN reads it as it is or thrown IOException")
+	void plainAndCorruptedInput() throws IOException {
+		// a plain input is not decompressed, even if it's shorter than the magic bytes
+		try(InputStream input = GzipStreams.decompressIfGzip(new ByteArrayInputStream("8".getBytes(StandardCharsets.UTF_8)))) {
+			assertEquals("8", IOUtils.toString(input, StandardCharsets.UTF_8));
+		}
+		
+		// a corrupted input thrown the error of the decompression thread
+		byte[] compressed = gzip(new byte[100_000]);
+		byte[] corrupted = Arrays.copyOf(compressed, compressed.length / 2);
+		try(InputStream input = GzipStreams.decompressIfGzip(new ByteArrayInputStream(corrupted))) {
+			IOException e = assertThrows(IOException.class, () -> IOUtils.toByteArray(input));
+			assertEquals("Error decompressing the input", e.getMessage());
+		}
+	}
+	
+	
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try(OutputStream output = new GZIPOutputStream(compressed)) {
+			output.write(bytes);
+		}
+		return compressed.toByteArray();
+	}
+	
+}
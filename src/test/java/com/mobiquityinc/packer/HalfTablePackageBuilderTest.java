@@ -0,0 +1,80 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link HalfTablePackageBuilder} and its {@link HalfTableKernel}.
+ *
+ * @author Hector Blanco
+ */
+class HalfTablePackageBuilderTest {
+	
+	@Test
+	@DisplayName("bestFit: GIVEN entries with the same cost THEN return the lighter one, and the first one with the same weight")
+	void bestFitTies() {
+		// given
+		double[] weights = {0D, 5D, 4D, 4D, 9D, 3D};
+		double[] costs = {0D, 10D, 10D, 10D, 50D, 1D};
+		
+		// when only 6 of weight are left in the package
+		int best = HalfTableKernel.bestFit(4D, weights, costs, 0, weights.length, 10D);
+		
+		// then
+		assertEquals(2, best);
+		
+		// when no entry fits
+		assertEquals(-1, HalfTableKernel.bestFit(4D, weights, costs, 1, weights.length, 6D));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages THEN choose a package with the same cost and weight of BitmaskPackageBuilder")
+	void sameCostAndWeightOfBitmaskPackageBuilder() throws APIException {
+		Random random = new Random(19);
+		for(int run = 0; run < 500; run++) {
+			// given a random package
+			int nOfThings = 1 + random.nextInt(16);
+			List<Thing> things = new ArrayList<>();
+			for(int i = 0; i < nOfThings; i++) {
+				things.add(new Thing(i + 1, (double) random.nextInt(30), (double) random.nextInt(100)));
+			}
+			double packageWeight = random.nextInt(100);
+			
+			// when
+			Optional<String> betterPackage = HalfTablePackageBuilder.assemblePackage(things, packageWeight);
+			
+			// then ties can be resolved with another combination, but cost and weight must be the same
+			Optional<String> expected = BitmaskPackageBuilder.assemblePackage(things, packageWeight);
+			assertEquals(expected.isPresent(), betterPackage.isPresent(), things.toString());
+			if(expected.isPresent()) {
+				assertArrayEquals(totals(expected.get(), things), totals(betterPackage.get(), things), things.toString());
+			}
+		}
+	}
+	
+	
+	/**
+	 * Weight and cost of a package, the things of these tests have index = position + 1
+	 */
+	private static double[] totals(String aPackage, List<Thing> things) {
+		double[] totals = new double[2];
+		for(String index : aPackage.split(",")) {
+			Thing thing = things.get(Integer.parseInt(index) - 1);
+			totals[0] += thing.getWeight();
+			totals[1] += thing.getCost();
+		}
+		return totals;
+	}
+	
+}
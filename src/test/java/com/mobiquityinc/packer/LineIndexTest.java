@@ -0,0 +1,190 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.PackResult;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.mobiquityinc.packer.TestInputs.randomLines;
+import static com.mobiquityinc.packer.TestInputs.write;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for {@link LineIndex} and {@link Packer#solveLine(Path, long, PackerOpts)}.
+ *
+ * @author Hector Blanco
+ */
+class LineIndexTest {
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN an indexed file THEN the index has the byte where each line starts")
+	void lineOffsets() throws IOException, APIException {
+		// given lines of any length, with every line terminator and the last one without it
+		Random random = new Random(27);
+		String[] terminators = {"\n", "\r", "\r\n"};
+		StringBuilder content = new StringBuilder();
+		List<Long> offsets = new ArrayList<>();
+		long offset = 0L;
+		for(int line = 0; line < 1000; line++) {
+			offsets.add(offset);
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(10) == 0 ? 100_000 : random.nextInt(200);
+			for(int i = 0; i < length; i++) {
+				text.append(i % 7 == 0 ? '€' : 'a');
+			}
+			if(line < 999) {
+				text.append(terminators[random.nextInt(terminators.length)]);
+			}
+			content.append(text);
+			offset += text.toString().getBytes(StandardCharsets.UTF_8).length;
+		}
+		Path input = write(tempDir.resolve("input.txt"), content.toString());
+		
+		// when
+		LineIndex.build(input);
+		
+		// then
+		try(LineIndex index = LineIndex.open(input)) {
+			assertEquals(1000L, index.getNOfLines());
+			for(int line = 1; line <= 1000; line++) {
+				assertEquals(offsets.get(line - 1).longValue(), index.getLineOffset(line), "line " + line);
+			}
+			APIException apiException = assertThrows(APIException.class, () -> index.getLineOffset(1001));
+			assertEquals("Line 1001 is not in the input file, it has 1000 lines", apiException.getMessage());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN an input indexed by many threads at the same time THEN the index is whole and no temporary file is left")
+	void concurrentBuilds() throws IOException, APIException, InterruptedException, ExecutionException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), randomLines(new Random(30), 20000));
+		
+		// when
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> builds = new ArrayList<>();
+			for(int i = 0; i < 8; i++) {
+				builds.add(executor.submit(() -> {
+					LineIndex.build(input);
+					return null;
+				}));
+			}
+			for(Future<?> build : builds) {
+				build.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		
+		// then
+		try(LineIndex index = LineIndex.open(input)) {
+			assertEquals(20000L, index.getNOfLines());
+			assertEquals(0L, index.getLineOffset(1));
+		}
+		try(Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(Arrays.asList(input, LineIndex.indexOf(input)), files.sorted().collect(Collectors.toList()));
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a file packed with line index THEN solveLine gives the same result of the line in the stream")
+	void solveLineLikeStream() throws IOException, APIException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), randomLines(new Random(28), 500) + "wrong line");
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.lineIndex = true;
+		}).build();
+		List<String> expected;
+		try(Stream<PackResult> results = Packer.stream(input, opts)) {
+			expected = results.map(LineIndexTest::describe).collect(Collectors.toList());
+		}
+		
+		// when
+		Packer.pack(input.toString(), new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.lineIndex = true;
+			obj.lenient = true;
+		}).build());
+		FileTime indexed = Files.getLastModifiedTime(LineIndex.indexOf(input));
+		
+		// then every line is solved from the index saved by the packing, that is not written again
+		for(int line = 1; line <= expected.size(); line++) {
+			assertEquals(expected.get(line - 1), describe(Packer.solveLine(input, line, opts)), "line " + line);
+		}
+		assertEquals(indexed, Files.getLastModifiedTime(LineIndex.indexOf(input)));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN an input file changed after it was indexed THEN solveLine indexes it again")
+	void staleIndex() throws IOException, APIException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), "8 : (1,15.3,€34)\n81 : (1,53.38,€45) (2,88.62,€98)");
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> obj.currencySymbol = "€").build();
+		assertEquals("-", Packer.solveLine(input, 1, opts).getSolution().get().getCombination());
+		
+		// when the first line is longer, and the file looks older
+		write(tempDir.resolve("input.txt"), "81 : (1,53.38,€45) (2,88.62,€98)\n8 : (1,15.3,€34)");
+		Files.setLastModifiedTime(input, FileTime.fromMillis(0L));
+		
+		// then
+		assertEquals("1", Packer.solveLine(input, 1, opts).getSolution().get().getCombination());
+		assertEquals("-", Packer.solveLine(input, 2, opts).getSolution().get().getCombination());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a stream that stops before the end of the file THEN the index is not saved")
+	void incompleteIndex() throws IOException, APIException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), randomLines(new Random(29), 100));
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.lineIndex = true;
+		}).build();
+		
+		// when
+		try(Stream<PackResult> results = Packer.stream(input, opts)) {
+			results.findFirst();
+		}
+		
+		// then
+		assertFalse(Files.exists(LineIndex.indexOf(input)));
+		try(Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(1L, files.count());
+		}
+	}
+	
+	
+	private static String describe(PackResult result) {
+		return result.getLineNumber() + " " + result.getSolution().map(Object::toString)
+				.orElseGet(() -> result.getError().get().getMessage());
+	}
+	
+}
@@ -0,0 +1,273 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import com.mobiquityinc.packer.exception.IncorrectThingDefinition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for the byte-level parsing of the input: {@link ByteLineIterator}, {@link AsciiNumbers} and
+ * {@link Packer#parseLine(byte[], int, int, List)}.
+ *
+ * @author Hector Blanco
+ */
+class LineParsingTest {
+	
+	// pieces of lines, valid and not, to build random lines
+	private static final String[] PIECES = {"81", " ", ":", "(", ")", ",", "€", "$", "53.38", "7", ".5", "1.", "-1",
+			"1e2", "0x10", "+3", "abc", "00012.50", "1,2,3", "(1,53.38,€45)", "(2, 88.62 ,€ 98)", "(3,78.48,3€)",
+			"\t", "٣", "NaN", "((", "))", "9999999999", "12345678901234567890.5"};
+	
+	
+	@Test
+	@DisplayName("GIVEN decimals in plain format THEN decodes the same double of Double.parseDouble")
+	void parseDecimalLikeDouble() {
+		Random random = new Random(5);
+		for(int run = 0; run < 100_000; run++) {
+			// given
+			String decimal = random.nextInt(1_000_000) + "." + random.nextInt(1000);
+			if(run % 3 == 0) {
+				decimal = Long.toString(random.nextLong() & Long.MAX_VALUE) + "." + random.nextInt(100);
+			}
+			byte[] bytes = decimal.getBytes(StandardCharsets.US_ASCII);
+			
+			// when
+			double value = AsciiNumbers.parseDecimal(bytes, 0, bytes.length);
+			
+			// then the value is the same, or it's not decoded
+			if(!Double.isNaN(value)) {
+				assertEquals(Double.parseDouble(decimal), value, decimal);
+			}
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN decimals with a comma THEN decodes the same double of Double.parseDouble with a point")
+	void parseDecimalCommaLikeDouble() {
+		Random random = new Random(7);
+		for(int run = 0; run < 10_000; run++) {
+			// given
+			String decimal = random.nextInt(1_000_000) + "." + random.nextInt(1000);
+			byte[] bytes = decimal.replace('.', ',').getBytes(StandardCharsets.US_ASCII);
+			
+			// when
+			double value = AsciiNumbers.parseDecimal(bytes, 0, bytes.length, (byte) ',');
+			
+			// then
+			assertEquals(Double.parseDouble(decimal), value, decimal);
+			assertTrue(Double.isNaN(AsciiNumbers.parseDecimal(bytes, 0, bytes.length)), decimal);
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN numbers in any format THEN they are checked as Integer.parseInt and Double.parseDouble decode them")
+	void checkNumbers() {
+		for(String number : new String[]{"", " ", ".", "-", "+", "-1", "+1", " 1 ", "007", "1e2", "1.5E-3", ".5", "5.", "1.2.3",
+				"0x10", "0x1p3", "1 2", "1d", "NaN", "-Infinity", "x", "€1", "1,5", "2147483647", "2147483648", "-2147483648",
+				"-2147483649", "000000000002147483647", "12345678901234567890", "١٢"}) {
+			assertEquals(decodes(() -> Integer.parseInt(number)), AsciiNumbers.isInt(number), number);
+			assertEquals(decodes(() -> Double.parseDouble(number)), AsciiNumbers.isDecimal(number), number);
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN numbers in other formats THEN they are not decoded")
+	void parseOtherFormats() {
+		for(String number : new String[]{"", ".", "-1", "+1", "1e2", "1.2.3", "0x10", "1 2", "12345678901234567890"}) {
+			byte[] bytes = number.getBytes(StandardCharsets.US_ASCII);
+			assertTrue(Double.isNaN(AsciiNumbers.parseDecimal(bytes, 0, bytes.length)), number);
+			assertEquals(AsciiNumbers.NOT_DECODED, AsciiNumbers.parseIndex(bytes, 0, bytes.length), number);
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN lines with every line terminator THEN reads the same lines of a BufferedReader")
+	void readLinesLikeBufferedReader() throws IOException {
+		Random random = new Random(9);
+		String[] pieces = {"a", "bb", "€", "\n", "\r", "\r\n", "\n\n", "\r\r"};
+		for(int run = 0; run < 2000; run++) {
+			// given
+			StringBuilder input = new StringBuilder();
+			int nOfPieces = random.nextInt(20);
+			for(int i = 0; i < nOfPieces; i++) {
+				input.append(pieces[random.nextInt(pieces.length)]);
+			}
+			
+			// when
+			List<String> lines = new ArrayList<>();
+			byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+			try(ByteLineIterator it = new ByteLineIterator(new ByteArrayInputStream(bytes))) {
+				while(it.hasNext()) {
+					it.nextLine();
+					lines.add(it.getLine());
+				}
+			}
+			
+			// then
+			List<String> expected = new ArrayList<>();
+			try(BufferedReader reader = new BufferedReader(new StringReader(input.toString()))) {
+				for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+					expected.add(line);
+				}
+			}
+			assertEquals(expected, lines, input.toString());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a line longer than the buffer THEN reads it whole")
+	void readLineLongerThanBuffer() throws IOException {
+		// given
+		StringBuilder longLine = new StringBuilder();
+		for(int i = 0; i < 100_000; i++) {
+			longLine.append(i % 10);
+		}
+		String input = "first\r\n" + longLine + "\r\nlast";
+		
+		// when
+		List<String> lines = new ArrayList<>();
+		try(ByteLineIterator it = new ByteLineIterator(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))) {
+			while(it.hasNext()) {
+				it.nextLine();
+				lines.add(it.getLine());
+			}
+		}
+		
+		// then
+		assertEquals(3, lines.size());
+		assertEquals(longLine.toString(), lines.get(1));
+		assertEquals("last", lines.get(2));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random lines THEN parses the same things, or throws the same error, of split and regular expressions")
+	void parseLineLikeSplitAndRegex() {
+		Packer packer = new Packer(new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.maxThings = 40;
+		}).build());
+		Random random = new Random(13);
+		for(int run = 0; run < 50_000; run++) {
+			// given a random line, starting most of the times like a valid one
+			StringBuilder line = new StringBuilder(random.nextInt(4) == 0 ? "" : "81 : ");
+			int nOfPieces = random.nextInt(8);
+			for(int i = 0; i < nOfPieces; i++) {
+				line.append(PIECES[random.nextInt(PIECES.length)]);
+			}
+			
+			// when
+			String parsed = parse(packer, line.toString());
+			
+			// then
+			assertEquals(parseWithRegex(packer, line.toString()), parsed, line.toString());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random lines with decimal comma THEN parses the same things, or throws the same error, of the lines with decimal point")
+	void parseDecimalCommaLikeDecimalPoint() {
+		Packer pointPacker = new Packer(new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.maxThings = 40;
+		}).build());
+		Packer commaPacker = new Packer(new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.maxThings = 40;
+			obj.decimalComma = true;
+		}).build());
+		Random random = new Random(17);
+		for(int run = 0; run < 50_000; run++) {
+			// given a random line, and the same line with the separators of the EU feeds
+			StringBuilder line = new StringBuilder(random.nextInt(4) == 0 ? "" : "81.5 : ");
+			int nOfPieces = random.nextInt(8);
+			for(int i = 0; i < nOfPieces; i++) {
+				line.append(PIECES[random.nextInt(PIECES.length)]);
+			}
+			String commaLine = line.toString().replace(',', ';').replace('.', ',');
+			
+			// when
+			String parsed = parse(pointPacker, line.toString());
+			String commaParsed = parse(commaPacker, commaLine);
+			
+			// then the same things, or an error of the same class
+			if(parsed.startsWith(APIException.class.getSimpleName()) || parsed.startsWith(IncorrectThingDefinition.class.getSimpleName())) {
+				assertEquals(parsed.substring(0, parsed.indexOf(':')), commaParsed.substring(0, commaParsed.indexOf(':')), commaLine);
+			} else {
+				assertEquals(parsed, commaParsed, commaLine);
+			}
+		}
+	}
+	
+	
+	/**
+	 * The things parsed from the bytes of the line, or the error
+	 */
+	private static String parse(Packer packer, String line) {
+		byte[] bytes = ("##" + line + "##").getBytes(StandardCharsets.UTF_8);
+		List<Thing> things = new ArrayList<>();
+		try {
+			double packageWeight = packer.parseLine(bytes, 2, bytes.length - 2, things);
+			return packageWeight + " " + things;
+		} catch(APIException e) {
+			return e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
+	
+	
+	/**
+	 * The things parsed with the String methods of the line, or the error, like Packer did before parsing bytes
+	 */
+	private static String parseWithRegex(Packer packer, String line) {
+		try {
+			String[] split = line.split(":");
+			if(split.length != 2) {
+				throw new APIException("Incorrect input format in input line, expected format [packageWeight : thingsList]");
+			}
+			double packageWeight = packer.extractPackageWeightFromInput(split[0]);
+			List<Thing> things = new ArrayList<>();
+			Matcher matcher = Pattern.compile("\\(([^)]+)\\)").matcher(line);
+			while(matcher.find()) {
+				if(things.size() >= 40) {
+					throw new APIException(String.format("Package %s has more than %d things to be chosen.", packageWeight, 40));
+				}
+				things.add(packer.extractThingFromInput(matcher.group(1)));
+			}
+			return packageWeight + " " + things;
+		} catch(APIException e) {
+			return e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
+	
+	
+	private static boolean decodes(Runnable parse) {
+		try {
+			parse.run();
+			return true;
+		} catch(NumberFormatException e) {
+			return false;
+		}
+	}
+	
+}
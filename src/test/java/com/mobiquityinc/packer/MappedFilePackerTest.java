@@ -0,0 +1,122 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static com.mobiquityinc.packer.TestInputs.options;
+import static com.mobiquityinc.packer.TestInputs.randomLines;
+import static com.mobiquityinc.packer.TestInputs.write;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link MappedFilePacker}.
+ *
+ * @author Hector Blanco
+ */
+class MappedFilePackerTest {
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN a file with every line terminator THEN the chunks start after a line terminator")
+	void splitInChunksOnLineBoundaries() throws IOException {
+		// given
+		String content = "81 : (1,53.38,€45)\r\n8 : (1,15.3,€34)\r75 : (1,85.31,€29)\n56 : (1,90.72,€13)";
+		Path input = write(tempDir.resolve("terminators.txt"), content);
+		
+		try(FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+			// when
+			List<Long> boundaries = MappedFilePacker.splitInChunks(channel, 7);
+			
+			// then
+			byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+			assertEquals(0L, boundaries.get(0).longValue());
+			assertEquals(bytes.length, boundaries.get(boundaries.size() - 1).longValue());
+			for(int i = 1; i < boundaries.size() - 1; i++) {
+				int boundary = boundaries.get(i).intValue();
+				byte previous = bytes[boundary - 1];
+				assertTrue(previous == '\n' || previous == '\r' && bytes[boundary] != '\n', "Chunk starts at " + boundary);
+			}
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a file with many lines THEN returns the same packages in the same order of the sequential reading")
+	void samePackagesOfSequentialReading() throws IOException, APIException {
+		// given
+		Path input = write(tempDir.resolve("many_lines.txt"), randomLines(new Random(12), 5000));
+		
+		// when
+		String packages = Packer.pack(input.toString(), mappedOptions(4));
+		
+		// then
+		assertEquals(Packer.pack(input.toString(), mappedOptions(0)), packages);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN errors in more than one chunk THEN throws the error of the first line")
+	void firstErrorInLineOrder() throws IOException {
+		// given
+		StringBuilder content = new StringBuilder();
+		for(int line = 0; line < 1000; line++) {
+			content.append(line == 300 ? "B" : "").append(line == 900 ? "C" : "").append("8 : (1,15.3,€34)\n");
+		}
+		Path input = write(tempDir.resolve("errors.txt"), content.toString());
+		
+		// when
+		APIException exception = assertThrows(APIException.class, () -> Packer.pack(input.toString(), mappedOptions(4)));
+		
+		// then
+		assertEquals("Incorrect format for package weight: \"B8\"", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a wrong line in a chunk THEN gives the packages of the lines before it, as the sequential reading")
+	void packagesBeforeTheError() throws IOException {
+		// given
+		StringBuilder content = new StringBuilder();
+		for(int line = 0; line < 1000; line++) {
+			content.append(line == 700 ? "B" : "").append(line % 100).append(" : (1,15.3,€34) (2,20.5,€40)\n");
+		}
+		Path input = write(tempDir.resolve("partial.txt"), content.toString());
+		List<PackageSolution> mapped = new ArrayList<>();
+		List<PackageSolution> sequential = new ArrayList<>();
+		
+		// when
+		assertThrows(APIException.class, () -> new Packer(mappedOptions(4)).createAllPackages(input.toString(), mapped::add));
+		assertThrows(APIException.class, () -> new Packer(mappedOptions(0)).createAllPackages(input.toString(), sequential::add));
+		
+		// then
+		assertEquals(700, mapped.size());
+		assertEquals(sequential.stream().map(PackageSolution::getCombination).collect(Collectors.toList()),
+				mapped.stream().map(PackageSolution::getCombination).collect(Collectors.toList()));
+	}
+	
+	
+	/**
+	 * Options with the given number of threads of the memory-mapped input
+	 */
+	private static PackerOpts mappedOptions(int mappedInputThreads) {
+		return options(obj -> obj.mappedInputThreads = mappedInputThreads);
+	}
+	
+}
@@ -0,0 +1,115 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link MeetInTheMiddlePackageBuilder}.
+ *
+ * @author Hector Blanco
+ */
+class MeetInTheMiddlePackageBuilderTest {
+	
+	@Test
+	@DisplayName("GIVEN a list of things with the better combination in both halves THEN chose the things of both halves")
+	void resolveBetterPackageWithThingsInBothHalves() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 10D, 10D));
+		things.add(new Thing(2, 5D, 20D));
+		things.add(new Thing(3, 15D, 500D));
+		things.add(new Thing(4, 5D, 20D));
+		
+		// when
+		Optional<String> betterPackage = MeetInTheMiddlePackageBuilder.assemblePackage(things, 10D);
+		
+		// then
+		assertEquals("2,4", betterPackage.orElseGet(() -> fail("Should had chosen the combination [2,4]")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a list of things with no choice that suits the package weight THEN return an Optional.empty")
+	void resolveBetterPackageWithNoPossibilities() throws APIException {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 10D, 10D));
+		things.add(new Thing(2, 15D, 500D));
+		things.add(new Thing(3, 5D, 20D));
+		
+		// when
+		Optional<String> betterPackage = MeetInTheMiddlePackageBuilder.assemblePackage(things, 1D);
+		
+		// then
+		assertEquals(Optional.empty(), betterPackage);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN more things than the builder can combine THEN throws APIException")
+	void resolveBetterPackageWithTooManyThings() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		for(int i = 0; i <= MeetInTheMiddlePackageBuilder.MAX_THINGS; i++) {
+			things.add(new Thing(i + 1, 1D, 1D));
+		}
+		
+		// when
+		APIException exception = assertThrows(APIException.class,
+				() -> MeetInTheMiddlePackageBuilder.assemblePackage(things, 10D));
+		
+		// then
+		assertEquals("Package 10.0 has more than 40 things to be combined.", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages THEN choose a package with the same cost and weight of BitmaskPackageBuilder")
+	void sameCostAndWeightOfBitmaskPackageBuilder() throws APIException {
+		Random random = new Random(7);
+		for(int run = 0; run < 500; run++) {
+			// given a random package
+			int nOfThings = 1 + random.nextInt(16);
+			List<Thing> things = new ArrayList<>();
+			for(int i = 0; i < nOfThings; i++) {
+				things.add(new Thing(i + 1, (double) random.nextInt(30), (double) random.nextInt(100)));
+			}
+			double packageWeight = random.nextInt(100);
+			
+			// when
+			Optional<String> betterPackage = MeetInTheMiddlePackageBuilder.assemblePackage(things, packageWeight);
+			
+			// then ties can be resolved with another combination, but cost and weight must be the same
+			Optional<String> expected = BitmaskPackageBuilder.assemblePackage(things, packageWeight);
+			assertEquals(expected.isPresent(), betterPackage.isPresent(), things.toString());
+			if(expected.isPresent()) {
+				assertArrayEquals(totals(expected.get(), things), totals(betterPackage.get(), things), things.toString());
+			}
+		}
+	}
+	
+	
+	/**
+	 * Weight and cost of a package, the things of these tests have index = position + 1
+	 */
+	private static double[] totals(String aPackage, List<Thing> things) {
+		double[] totals = new double[2];
+		for(String index : aPackage.split(",")) {
+			Thing thing = things.get(Integer.parseInt(index) - 1);
+			totals[0] += thing.getWeight();
+			totals[1] += thing.getCost();
+		}
+		return totals;
+	}
+	
+}
@@ -0,0 +1,267 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.PackageSolution;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * Test class for the classes of the multi-release jar in <code>META-INF/versions</code>. The tests run with the
+ * classes in a directory, where the JVM never loads the versioned classes: these tests pack them in a multi-release
+ * jar and run the {@link Check checks} in another JVM with the jar in the classpath.
+ *
+ * @author Hector Blanco
+ */
+class MultiReleaseJarTest {
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN the multi-release jar on Java 17+ THEN the Vector API kernel gives the entry of the scalar loop")
+	void vectorKernel() throws IOException, InterruptedException, URISyntaxException {
+		// given
+		assumeTrue(javaVersion() >= 17 && Files.isDirectory(classesDir().resolve("META-INF/versions/17")),
+				"Java 17 classes not built");
+		Path jar = multiReleaseJar();
+		
+		// when
+		List<String> output = run(jar, Arrays.asList("--add-modules", "jdk.incubator.vector"), "kernel");
+		
+		// then
+		assertEquals(Arrays.asList("vectorized: true", "mismatches: 0"), output);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN the multi-release jar on Java 21+ THEN the pipeline runs its stages on virtual threads and gives the packages of the sequential reading")
+	void virtualPipeline() throws IOException, InterruptedException, URISyntaxException {
+		// given
+		assumeTrue(javaVersion() >= 21 && Files.isDirectory(classesDir().resolve("META-INF/versions/21")),
+				"Java 21 classes not built");
+		Path jar = multiReleaseJar();
+		
+		// when
+		List<String> output = run(jar, Arrays.asList("--add-modules", "jdk.incubator.vector"), "pipeline");
+		
+		// then
+		assertEquals(Arrays.asList("virtual available: true", "virtual stages: true", "compute pool: true",
+				"mismatches: 0"), output);
+	}
+	
+	
+	/**
+	 * Pack the classes of the library in a multi-release jar, like the jar plugin does
+	 */
+	private Path multiReleaseJar() throws IOException, URISyntaxException {
+		Path classes = classesDir();
+		Path jar = tempDir.resolve("packer.jar");
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(new Attributes.Name("Multi-Release"), "true");
+		try(JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar), manifest);
+		    Stream<Path> files = Files.walk(classes)) {
+			for(Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				String name = classes.relativize(file).toString().replace(File.separatorChar, '/');
+				if(!name.equals("META-INF/MANIFEST.MF")) {
+					output.putNextEntry(new JarEntry(name));
+					Files.copy(file, output);
+					output.closeEntry();
+				}
+			}
+		}
+		return jar;
+	}
+	
+	
+	/**
+	 * Run a {@link Check} in another JVM, with the jar instead of the classes directory, and return what it prints
+	 */
+	private static List<String> run(Path jar, List<String> jvmOptions, String check)
+			throws IOException, InterruptedException, URISyntaxException {
+		Path classes = classesDir();
+		List<String> classpath = new ArrayList<>();
+		for(String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+			classpath.add(Paths.get(entry).toAbsolutePath().equals(classes) ? jar.toString() : entry);
+		}
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmOptions);
+		command.add("-cp");
+		command.add(String.join(File.pathSeparator, classpath));
+		command.add(Check.class.getName());
+		command.add(check);
+		Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		List<String> lines = new ArrayList<>();
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+				lines.add(line);
+			}
+		}
+		assertEquals(0, process.waitFor(), check);
+		return lines;
+	}
+	
+	
+	private static Path classesDir() throws URISyntaxException {
+		return Paths.get(HalfTableKernel.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toAbsolutePath();
+	}
+	
+	
+	/**
+	 * @return the feature version of the running JVM, 8 for 1.8
+	 */
+	private static int javaVersion() {
+		String version = System.getProperty("java.specification.version");
+		return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+	}
+	
+	
+	/**
+	 * The checks run in the JVM with the multi-release jar, that print their results.
+	 */
+	static final class Check {
+		
+		private Check() {
+		}
+		
+		
+		public static void main(String[] args) throws Exception {
+			if("kernel".equals(args[0])) {
+				checkKernel(System.out);
+			} else if("pipeline".equals(args[0])) {
+				checkPipeline(System.out);
+			} else {
+				throw new IllegalArgumentException("Unknown check: " + args[0]);
+			}
+		}
+		
+		
+		/**
+		 * Compare the kernel with the scalar loop of the Java 8 version on random tables, with many ties of cost and
+		 * weight, long enough for the Vector API
+		 */
+		private static void checkKernel(OutputStream out) throws IOException {
+			Random random = new Random(33);
+			int mismatches = 0;
+			for(int run = 0; run < 5000; run++) {
+				int length = 64 + random.nextInt(300);
+				double[] weights = new double[length];
+				double[] costs = new double[length];
+				for(int i = 0; i < length; i++) {
+					weights[i] = random.nextInt(30) + (random.nextBoolean() ? 0.5D : 0D);
+					costs[i] = random.nextInt(20);
+				}
+				int from = random.nextInt(length - 63);
+				double baseWeight = random.nextInt(20);
+				double packageWeight = random.nextInt(60);
+				
+				int expected = scalarBestFit(baseWeight, weights, costs, from, length, packageWeight);
+				if(HalfTableKernel.bestFit(baseWeight, weights, costs, from, length, packageWeight) != expected) {
+					mismatches++;
+				}
+			}
+			String result = "vectorized: " + HalfTableKernel.isVectorized() + "\nmismatches: " + mismatches + "\n";
+			out.write(result.getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+		
+		
+		/**
+		 * Check where the stages and the batches of a pipeline with virtual threads run, and compare its packages with
+		 * the ones of the sequential reading
+		 */
+		private static void checkPipeline(OutputStream out) throws Exception {
+			PackerOpts opts = TestInputs.options(obj -> {
+				obj.pipelineParserThreads = 2;
+				obj.pipelineBatchLines = 50;
+				obj.virtualThreads = true;
+			});
+			ExecutorService stages = PipelineThreads.newStageExecutor(opts, 1);
+			boolean virtualStage;
+			String computeThread;
+			try {
+				String[] names = new String[1];
+				virtualStage = stages.submit(() -> {
+					PipelineThreads.compute(opts, () -> names[0] = Thread.currentThread().getName());
+					// the tests are compiled for Java 8, without Thread.isVirtual
+					return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+				}).get();
+				computeThread = names[0];
+			} finally {
+				stages.shutdown();
+			}
+			
+			Path input = Files.createTempFile("pipeline", ".txt");
+			int mismatches = 0;
+			try {
+				TestInputs.write(input, TestInputs.randomLines(new Random(34), 2000));
+				List<PackageSolution> expected = Packer.solve(input.toString(), TestInputs.options());
+				List<PackageSolution> solutions = Packer.solve(input.toString(), opts);
+				for(int i = 0; i < Math.max(expected.size(), solutions.size()); i++) {
+					if(i >= expected.size() || i >= solutions.size() || !expected.get(i).equals(solutions.get(i))) {
+						mismatches++;
+					}
+				}
+			} finally {
+				Files.delete(input);
+			}
+			String result = "virtual available: " + PipelineThreads.isVirtualAvailable() + "\nvirtual stages: "
+					+ virtualStage + "\ncompute pool: " + computeThread.startsWith("packer-compute-")
+					+ "\nmismatches: " + mismatches + "\n";
+			out.write(result.getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+		
+		
+		/**
+		 * The loop of the Java 8 version of {@link HalfTableKernel#bestFit}
+		 */
+		private static int scalarBestFit(double baseWeight, double[] weights, double[] costs, int from, int length,
+		                                 double packageWeight) {
+			int best = -1;
+			double bestCost = Double.NEGATIVE_INFINITY;
+			double bestWeight = Double.POSITIVE_INFINITY;
+			for(int i = from; i < length; i++) {
+				double weight = weights[i];
+				if(baseWeight + weight <= packageWeight) {
+					double cost = costs[i];
+					if(cost > bestCost || (cost == bestCost && weight < bestWeight)) {
+						best = i;
+						bestCost = cost;
+						bestWeight = weight;
+					}
+				}
+			}
+			return best;
+		}
+	}
+	
+}
@@ -0,0 +1,122 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link PackageReducer}.
+ *
+ * @author Hector Blanco
+ */
+class PackageReducerTest {
+	
+	@Test
+	@DisplayName("GIVEN things heavier than the package THEN removes them keeping the indexes of the others")
+	void reduceThingsHeavierThanPackage() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 53.38D, 45D));
+		things.add(new Thing(2, 88.62D, 98D));
+		things.add(new Thing(3, 78.48D, 80D));
+		things.add(new Thing(4, 72.30D, 76D));
+		
+		// when
+		List<Thing> reduced = PackageReducer.reduce(things, 81D);
+		
+		// then
+		assertEquals(3, reduced.size());
+		assertEquals(Integer.valueOf(1), reduced.get(0).getIndex());
+		assertEquals(Integer.valueOf(3), reduced.get(1).getIndex());
+		assertEquals(Integer.valueOf(4), reduced.get(2).getIndex());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a thing dominated by a lighter and more expensive one and they don't fit together " +
+			"THEN removes the dominated thing")
+	void reduceDominatedThing() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 6D, 10D));
+		things.add(new Thing(2, 5D, 20D));
+		
+		// when
+		List<Thing> reduced = PackageReducer.reduce(things, 10D);
+		
+		// then
+		assertEquals(1, reduced.size());
+		assertEquals(Integer.valueOf(2), reduced.get(0).getIndex());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a dominated thing that fits together with the things that dominate it THEN keeps it")
+	void keepDominatedThingThatFits() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 5D, 10D));
+		things.add(new Thing(2, 4D, 20D));
+		
+		// when
+		List<Thing> reduced = PackageReducer.reduce(things, 10D);
+		
+		// then
+		assertEquals(things, reduced);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN things that fit all together THEN packs all the things with a cost")
+	void packAllThings() {
+		// given
+		List<Thing> things = new ArrayList<>();
+		things.add(new Thing(1, 1D, 10D));
+		things.add(new Thing(2, 2D, 0D));
+		things.add(new Thing(3, 3D, 20D));
+		
+		// when
+		Optional<String> allThings = PackageReducer.packAll(things, 10D);
+		
+		// then
+		assertEquals(Optional.of("1,3"), allThings);
+		assertEquals(Optional.empty(), PackageReducer.packAll(things, 5D));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random packages THEN the reduced things give the same package of PackageBuilder")
+	void sameChoiceOfPackageBuilder() throws APIException {
+		Random random = new Random(8);
+		BitmaskPackageBuilder builder = new BitmaskPackageBuilder();
+		for(int run = 0; run < 1000; run++) {
+			// given a random package, with few distinct values to have a lot of ties and dominated things
+			int nOfThings = 1 + random.nextInt(12);
+			List<Thing> things = new ArrayList<>();
+			for(int i = 0; i < nOfThings; i++) {
+				things.add(new Thing(i + 1, (double) random.nextInt(20), (double) random.nextInt(6)));
+			}
+			double packageWeight = random.nextInt(60);
+			
+			// when
+			List<Thing> reduced = PackageReducer.reduce(things, packageWeight);
+			Optional<String> betterPackage = PackageReducer.packAll(reduced, packageWeight);
+			if(!betterPackage.isPresent()) {
+				betterPackage = builder.resolveBetterPackage(reduced, packageWeight);
+			}
+			
+			// then
+			assertEquals(PackageBuilder.assemblePackage(things, packageWeight), betterPackage, things.toString());
+		}
+	}
+	
+}
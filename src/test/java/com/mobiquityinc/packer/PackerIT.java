@@ -1,12 +1,48 @@
 package com.mobiquityinc.packer;
 
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.PackResult;
+import com.mobiquityinc.packer.entities.PackageSolution;
 import com.mobiquityinc.packer.exception.APIException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -16,11 +52,15 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
  */
 class PackerIT {
 	
+	@TempDir
+	Path tempDir;
+	
 	private static final String INPUT_ASSIGNMENT_PATH = "./src/test/resources/assignment_input.txt";
 	private static final String INPUT_CUSTOM_PATH = "./src/test/resources/input_custom.txt";
 	private static final String INPUT_NEGATIVE_VALUES = "./src/test/resources/input_negative_values.txt";
 	private static final String INPUT_MAX_THINGS = "./src/test/resources/input_max_things.txt";
 	private static final String INPUT_OVER_MAX_THINGS = "./src/test/resources/input_over_max_things.txt";
+	private static final String INPUT_MANY_THINGS = "./src/test/resources/input_many_things.txt";
 	private static final String INPUT_WITHOUT_WEIGHT = "./src/test/resources/input_without_weight.txt";
 	private static final String INPUT_WITHOUT_THINGS_LIST = "./src/test/resources/input_without_things_list.txt";
 	private static final String INPUT_WITHOUT_THINGS_LIST_2 = "./src/test/resources/input_without_things_list_2.txt";
@@ -65,6 +105,32 @@ class PackerIT {
 	}
 	
 	
+	@Test
+	@DisplayName("GIVEN assignment input and the other engines THEN returns assignment expected output")
+	void testAssignmentInputWithEngines() {
+		String expected =
+				"4"+ System.lineSeparator() +
+				"-" + System.lineSeparator() +
+				"2,7" + System.lineSeparator() +
+				"8,9";
+		for(String engine : new String[]{PackerOpts.ENGINE_MEET_IN_THE_MIDDLE, PackerOpts.ENGINE_DYNAMIC_PROGRAMMING,
+				PackerOpts.ENGINE_BRANCH_AND_BOUND, PackerOpts.ENGINE_GRAY_CODE, PackerOpts.ENGINE_HALF_TABLE,
+				PackerOpts.ENGINE_AUTO}) {
+			try {
+				PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+					obj.currencySymbol = "€";
+					obj.engine = engine;
+				}).build();
+				
+				String packages = Packer.pack(INPUT_ASSIGNMENT_PATH, opts);
+				Assertions.assertEquals(expected, packages, engine);
+			} catch(APIException e) {
+				Assertions.fail("Unexpected exception: " + e.getLocalizedMessage());
+			}
+		}
+	}
+	
+	
 	@Test
 	@DisplayName("GIVEN input with negative values THEN thrown APIException")
 	void inputWithNegativeWeight() {
@@ -100,6 +166,293 @@ class PackerIT {
 	}
 	
 	
+	@Test
+	@DisplayName("GIVEN input with more than 15 things and a higher max number of things THEN expected correct calculation")
+	void inputOverDefaultMaxNumberOfThings() {
+		try {
+			PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+				obj.currencySymbol = "€";
+				obj.maxThings = 40;
+			}).build();
+			
+			String expected = "1,2,4,7,14,15,16,17,23,24,30";
+			String packages = Packer.pack(INPUT_MANY_THINGS, opts);
+			Assertions.assertEquals(expected, packages);
+		} catch(APIException e) {
+			Assertions.fail("Unexpected exception: " + e.getLocalizedMessage());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN assignment input and a line time budget THEN returns the optimal packages with their weight and cost")
+	void testAssignmentInputWithTimeBudget() {
+		List<PackageSolution> expected = Arrays.asList(
+				new PackageSolution("4", 72.30D, 76D, true),
+				new PackageSolution("-", 0D, 0D, true),
+				new PackageSolution("2,7", 14.55D + 60.02D, 74D + 74D, true),
+				new PackageSolution("8,9", 19.36D + 6.76D, 79D + 64D, true));
+		try {
+			PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+				obj.currencySymbol = "€";
+				obj.lineTimeBudgetMillis = 1000L;
+			}).build();
+			
+			List<PackageSolution> solutions = Packer.solve(INPUT_ASSIGNMENT_PATH, opts);
+			Assertions.assertEquals(expected, solutions);
+		} catch(APIException e) {
+			Assertions.fail("Unexpected exception: " + e.getLocalizedMessage());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN custom input as a stream, a reader or a path THEN writes the same output of the file path")
+	void testCustomInputStreamed() throws IOException, APIException {
+		String expected = Packer.pack(INPUT_CUSTOM_PATH);
+		PackerOpts opts = PackerOpts.defaultOptions();
+		
+		ByteArrayOutputStream fromStream = new ByteArrayOutputStream();
+		try(InputStream input = Files.newInputStream(Paths.get(INPUT_CUSTOM_PATH))) {
+			Packer.pack(input, fromStream, opts);
+		}
+		assertEquals(expected, new String(fromStream.toByteArray(), StandardCharsets.UTF_8));
+		
+		StringWriter fromReader = new StringWriter();
+		try(Reader input = Files.newBufferedReader(Paths.get(INPUT_CUSTOM_PATH), StandardCharsets.UTF_8)) {
+			Packer.pack(input, fromReader, opts);
+		}
+		assertEquals(expected, fromReader.toString());
+		
+		StringWriter fromPath = new StringWriter();
+		Packer.pack(Paths.get(INPUT_CUSTOM_PATH), fromPath, opts);
+		assertEquals(expected, fromPath.toString());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a piped input THEN writes each package before the next line arrives")
+	void testPipedInputWritesIncrementally() throws Exception {
+		PipedOutputStream lines = new PipedOutputStream();
+		PipedInputStream input = new PipedInputStream(lines);
+		BlockingQueue<String> flushed = new LinkedBlockingQueue<>();
+		Writer output = new StringWriter() {
+			@Override
+			public void flush() {
+				flushed.add(toString());
+			}
+		};
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> packing = executor.submit(() -> {
+				Packer.pack(input, output, PackerOpts.defaultOptions());
+				return null;
+			});
+			
+			// the first package is written while the input is still open
+			lines.write("81 : (1,53.38,€45) (2,88.62,€98)\n".getBytes(StandardCharsets.UTF_8));
+			lines.flush();
+			assertEquals("1", flushed.poll(10, TimeUnit.SECONDS));
+			
+			lines.write("8 : (1,15.3,€34)".getBytes(StandardCharsets.UTF_8));
+			lines.close();
+			packing.get(10, TimeUnit.SECONDS);
+			assertEquals("1" + System.lineSeparator() + "-", output.toString());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a piped reader THEN writes each package before the next line arrives")
+	void testPipedReaderWritesIncrementally() throws Exception {
+		PipedWriter lines = new PipedWriter();
+		PipedReader input = new PipedReader(lines);
+		BlockingQueue<String> flushed = new LinkedBlockingQueue<>();
+		Writer output = new StringWriter() {
+			@Override
+			public void flush() {
+				flushed.add(toString());
+			}
+		};
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> packing = executor.submit(() -> {
+				Packer.pack(input, output, PackerOpts.defaultOptions());
+				return null;
+			});
+			
+			// the first package is written while the reader is still open
+			lines.write("81 : (1,53.38,€45) (2,88.62,€98)\n");
+			lines.flush();
+			assertEquals("1", flushed.poll(10, TimeUnit.SECONDS));
+			
+			lines.write("8 : (1,15.3,€34)");
+			lines.close();
+			packing.get(10, TimeUnit.SECONDS);
+			assertEquals("1" + System.lineSeparator() + "-", output.toString());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN an output that fails THEN thrown APIException")
+	void testOutputError() {
+		Writer output = new StringWriter() {
+			@Override
+			public void write(String str) {
+				throw new UncheckedIOException(new IOException("Disk full"));
+			}
+		};
+		
+		APIException apiException = assertThrows(APIException.class,
+				() -> Packer.pack(Paths.get(INPUT_ASSIGNMENT_PATH), output, PackerOpts.defaultOptions()));
+		assertEquals("Error writing output", apiException.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN assignment input as a stream THEN returns the packages with their line numbers")
+	void testAssignmentInputStream() throws APIException {
+		List<PackageSolution> expected = Packer.solve(INPUT_ASSIGNMENT_PATH, PackerOpts.defaultOptions());
+		
+		try(Stream<PackResult> results = Packer.stream(Paths.get(INPUT_ASSIGNMENT_PATH))) {
+			List<PackResult> resultList = results.collect(Collectors.toList());
+			
+			assertEquals(expected.size(), resultList.size());
+			for(int i = 0; i < resultList.size(); i++) {
+				assertEquals(i + 1, resultList.get(i).getLineNumber());
+				assertEquals(Optional.of(expected.get(i)), resultList.get(i).getSolution());
+			}
+			assertEquals(Arrays.asList(8, 9), resultList.get(3).getSolution().get().getIndexes());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a stream with a wrong line THEN returns its error and goes on with the next lines")
+	void testStreamWithWrongLine() throws IOException, APIException {
+		Path input = Files.write(tempDir.resolve("wrong_line.txt"),
+				"8 : (1,15.3,€34)\nwrong line\n81 : (1,53.38,€45)".getBytes(StandardCharsets.UTF_8));
+		
+		try(Stream<PackResult> results = Packer.stream(input)) {
+			List<PackResult> resultList = results.collect(Collectors.toList());
+			
+			assertEquals(3, resultList.size());
+			assertEquals(Collections.emptyList(), resultList.get(0).getSolution().get().getIndexes());
+			assertTrue(resultList.get(1).isError());
+			assertEquals(2, resultList.get(1).getLineNumber());
+			assertEquals("Incorrect input format in input line, expected format [packageWeight : thingsList]",
+					resultList.get(1).getError().get().getMessage());
+			assertEquals("1", resultList.get(2).getSolution().get().getCombination());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a parallel stream THEN returns the same results in the same order of the lines")
+	void testParallelStream() throws IOException, APIException {
+		Random random = new Random(14);
+		StringBuilder content = new StringBuilder();
+		for(int line = 0; line < 3000; line++) {
+			content.append(random.nextInt(100)).append(" :");
+			int nOfThings = 1 + random.nextInt(12);
+			for(int i = 1; i <= nOfThings; i++) {
+				content.append(" (").append(i).append(',').append(random.nextInt(10000) / 100D)
+						.append(",€").append(random.nextInt(100)).append(')');
+			}
+			content.append('\n');
+		}
+		Path input = Files.write(tempDir.resolve("many_lines.txt"), content.toString().getBytes(StandardCharsets.UTF_8));
+		
+		List<PackageSolution> expected = Packer.solve(input.toString(), PackerOpts.defaultOptions());
+		try(Stream<PackResult> results = Packer.stream(input).parallel()) {
+			List<PackageSolution> solutions = results.map(result -> result.getSolution().get()).collect(Collectors.toList());
+			assertEquals(expected, solutions);
+		}
+		
+		// and the first package stops the reading
+		try(Stream<PackResult> results = Packer.stream(input)) {
+			assertEquals(expected.get(0), results.findFirst().get().getSolution().get());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN lenient mode and wrong lines THEN writes their placeholder and gives their errors to the sink")
+	void testLenientMode() throws IOException, APIException {
+		Path input = Files.write(tempDir.resolve("wrong_lines.txt"), ("81 : (1,53.38,€45) (2,88.62,€98)\n"
+				+ "wrong line\n"
+				+ "8 : (1,15.3,€34)\n"
+				+ "8 : (1,15.3,€34) (2,x,€3)\n"
+				+ "75 : (1,85.31,€29) (2,14.55,€74)").getBytes(StandardCharsets.UTF_8));
+		List<LineError> expectedErrors = Arrays.asList(
+				new LineError(2, 1, "Incorrect input format in input line, expected format [packageWeight : thingsList]"),
+				new LineError(4, 18, "Incorrect format for thing's weight: \"x\""));
+		String expected = "1" + System.lineSeparator() + "ERROR" + System.lineSeparator() + "-"
+				+ System.lineSeparator() + "ERROR" + System.lineSeparator() + "2";
+		
+		// the same placeholders and errors reading the file in the calling thread, in a pipeline or memory-mapped
+		int[][] threads = {{0, 0}, {2, 0}, {0, 2}};
+		for(int[] parsersAndMapped : threads) {
+			List<LineError> errors = new ArrayList<>();
+			PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+				obj.currencySymbol = "€";
+				obj.lenient = true;
+				obj.errorSink = errors::add;
+				obj.pipelineParserThreads = parsersAndMapped[0];
+				obj.pipelineBatchLines = 2;
+				obj.mappedInputThreads = parsersAndMapped[1];
+			}).build();
+			
+			assertEquals(expected, Packer.pack(input.toString(), opts));
+			assertEquals(expectedErrors, errors);
+			
+			// the placeholder has no things, and it's not a package cut by the time budget
+			PackageSolution placeholder = Packer.solve(input.toString(), opts).get(1);
+			assertEquals(Collections.emptyList(), placeholder.getIndexes());
+			assertTrue(placeholder.isOptimal());
+		}
+		
+		// the errors of the lines are created without stack trace
+		Packer lenientPacker = new Packer(new PackerOpts.Builder().with(obj -> obj.lenient = true).build());
+		APIException apiException = assertThrows(APIException.class, () -> lenientPacker.extractThingFromInput("1,x,3"));
+		assertEquals(0, apiException.getStackTrace().length);
+		// nor a NumberFormatException, and they keep the suppressed exceptions
+		assertNull(apiException.getCause());
+		apiException.addSuppressed(new IllegalStateException());
+		assertEquals(1, apiException.getSuppressed().length);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN assignment input with decimal comma THEN returns assignment expected output")
+	void testDecimalComma() throws IOException, APIException {
+		// the assignment input written like the EU feeds, with the currency symbol on both sides of the costs
+		String content = new String(Files.readAllBytes(Paths.get(INPUT_ASSIGNMENT_PATH)), StandardCharsets.UTF_8);
+		Path input = Files.write(tempDir.resolve("decimal_comma.txt"), content.replace(',', ';').replace('.', ',')
+				.replace("€17", "17 €").getBytes(StandardCharsets.UTF_8));
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.decimalComma = true;
+		}).build();
+		String expected = "4" + System.lineSeparator() + "-" + System.lineSeparator() + "2,7"
+				+ System.lineSeparator() + "8,9";
+		
+		assertEquals(expected, Packer.pack(input.toString(), opts));
+		
+		// a point is a thousands separator with decimal comma, it's not read as the decimals
+		Packer packer = new Packer(opts);
+		APIException apiException = assertThrows(APIException.class, () -> packer.extractThingFromInput("1;1.000;€3"));
+		assertEquals("Incorrect format for thing's weight: \"1.000\"", apiException.getMessage());
+	}
+	
+	
 	@Test
 	@DisplayName("GIVEN input without package weight definition THEN thrown APIException")
 	void inputWithoutPackageWeight() {
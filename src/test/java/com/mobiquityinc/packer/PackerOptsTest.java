@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 /**
@@ -51,4 +52,146 @@ class PackerOptsTest {
 		assertEquals(expectedSymbol, opts.getCurrencySymbol());
 	}
 	
-}
\ No newline at end of file
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder without max things THEN options have the default max things")
+	void checkDefaultMaxThings() {
+		assertEquals(PackerOpts.DEFAULT_MAX_THINGS, PackerOpts.defaultOptions().getMaxThings());
+		assertEquals(15, new PackerOpts.Builder().build().getMaxThings());
+	}
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with max things out of range THEN throws IllegalArgumentException")
+	void checkMaxThingsOutOfRange() {
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> obj.maxThings = 41);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Max things must be between 0 and 40, was 41", exception.getMessage());
+	}
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with an empty engine THEN throws IllegalArgumentException")
+	void checkEmptyEngine() {
+		assertEquals(PackerOpts.ENGINE_POWERSET, PackerOpts.defaultOptions().getEngine());
+		
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> obj.engine = " ");
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Engine cannot be null or empty", exception.getMessage());
+	}
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with a negative line time budget THEN throws IllegalArgumentException")
+	void checkNegativeLineTimeBudget() {
+		assertEquals(0L, PackerOpts.defaultOptions().getLineTimeBudgetMillis());
+		
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> obj.lineTimeBudgetMillis = -1L);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Line time budget can't be negative, was -1", exception.getMessage());
+	}
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with package parallelism lower than 1 THEN throws IllegalArgumentException")
+	void checkPackageParallelism() {
+		assertEquals(1, PackerOpts.defaultOptions().getPackageParallelism());
+		
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> obj.packageParallelism = 0);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Package parallelism must be at least 1, was 0", exception.getMessage());
+	}
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with negative mapped input threads THEN throws IllegalArgumentException")
+	void checkMappedInputThreads() {
+		assertEquals(0, PackerOpts.defaultOptions().getMappedInputThreads());
+		
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> obj.mappedInputThreads = -1);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Mapped input threads can't be negative, was -1", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with wrong pipeline threads or queues THEN throws IllegalArgumentException")
+	void checkPipeline() {
+		assertEquals(0, PackerOpts.defaultOptions().getPipelineParserThreads());
+		
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> obj.pipelineParserThreads = -1);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Pipeline parser threads can't be negative, was -1", exception.getMessage());
+		
+		builder = new PackerOpts.Builder().with(obj -> obj.pipelineQueueSize = 0);
+		exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Pipeline solver threads, queue size and batch lines must be at least 1, were "
+				+ Runtime.getRuntime().availableProcessors() + ", 0 and 256", exception.getMessage());
+		
+		builder = new PackerOpts.Builder().with(obj -> {
+			obj.pipelineParserThreads = 2;
+			obj.mappedInputThreads = 2;
+		});
+		exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Mapped input threads and pipeline parser threads can't be used together", exception.getMessage());
+		
+		builder = new PackerOpts.Builder().with(obj -> obj.virtualThreads = true);
+		exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Virtual threads need the pipeline, pipeline parser threads must be at least 1", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with no batch threads THEN throws IllegalArgumentException")
+	void checkBatchThreads() {
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> obj.batchThreads = 0);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Batch threads must be at least 1, was 0", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN checkpoints with gzip output, the pipeline or the mapped input THEN throws IllegalArgumentException")
+	void checkCheckpoints() {
+		String error = "Checkpoints can't be used with gzip output, pipeline parser threads or mapped input threads";
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> {
+			obj.checkpointLines = 100;
+			obj.gzipOutput = true;
+		});
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals(error, exception.getMessage());
+		
+		builder = new PackerOpts.Builder().with(obj -> {
+			obj.resume = true;
+			obj.pipelineParserThreads = 2;
+		});
+		exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals(error, exception.getMessage());
+		
+		builder = new PackerOpts.Builder().with(obj -> {
+			obj.checkpointLines = 100;
+			obj.mappedInputThreads = 2;
+		});
+		exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals(error, exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN lenient builder with empty placeholder THEN throws IllegalArgumentException")
+	void checkErrorPlaceholder() {
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> {
+			obj.lenient = true;
+			obj.errorPlaceholder = "";
+		});
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Error placeholder cannot be null or empty", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("PackerOpts#Builder: GIVEN builder with decimal comma and a comma in the currency symbol THEN throws IllegalArgumentException")
+	void checkDecimalComma() {
+		PackerOpts.Builder builder = new PackerOpts.Builder().with(obj -> {
+			obj.decimalComma = true;
+			obj.currencySymbol = "€,";
+		});
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::build);
+		assertEquals("Currency symbol can't have separators with decimal comma, was \"€,\"", exception.getMessage());
+	}
+	
+}
@@ -1,5 +1,6 @@
 package com.mobiquityinc.packer;
 
+import com.mobiquityinc.packer.entities.PackageSolution;
 import com.mobiquityinc.packer.exception.APIException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -118,4 +122,39 @@ class PackerTest {
 			fail("No exception expected here");
 		}
 	}
-}
\ No newline at end of file
+	
+	
+	@Test
+	@DisplayName("GIVEN an engine that is not registered THEN throws APIException")
+	void unknownEngine() {
+		// Given options with an engine that no PackingSolver provides
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.engine = "quantum";
+		}).build();
+		
+		// When packing a file
+		APIException exception = assertThrows(APIException.class,
+				() -> Packer.pack("./src/test/resources/assignment_input.txt", opts));
+		
+		// Then it should thrown back an APIException
+		assertEquals("Unknown engine: quantum", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN the solutions of a file THEN their indexes are the ones of the combination, decoded once")
+	void indexesOfTheSolutions() throws APIException {
+		// Given the solutions of the assignment input
+		List<PackageSolution> solutions = Packer.solve("./src/test/resources/assignment_input.txt",
+				new PackerOpts.Builder().with(obj -> obj.currencySymbol = "€").build());
+		
+		// Then each one has the indexes of its combination, the same list every time
+		assertEquals(Arrays.asList(4), solutions.get(0).getIndexes());
+		assertEquals(Collections.emptyList(), solutions.get(1).getIndexes());
+		assertEquals(Arrays.asList(2, 7), solutions.get(2).getIndexes());
+		assertEquals(Arrays.asList(8, 9), solutions.get(3).getIndexes());
+		assertSame(solutions.get(3).getIndexes(), solutions.get(3).getIndexes());
+		assertThrows(UnsupportedOperationException.class, () -> solutions.get(3).getIndexes().add(1));
+	}
+}
@@ -0,0 +1,228 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.Thing;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link PackingSolverSelector}.
+ *
+ * @author Hector Blanco
+ */
+class PackingSolverSelectorTest {
+	
+	@Test
+	@DisplayName("GIVEN the engine of a PackingSolver registered by the tests THEN the ServiceLoader finds it")
+	void pinnedEngineFromServiceLoader() throws APIException {
+		// given
+		PackingSolverSelector selector = new PackingSolverSelector(options(FirstThingSolver.NAME, 2));
+		List<Thing> things = things(3, 1D);
+		
+		// when
+		PackingSolver solver = selector.select(things, 10D);
+		
+		// then
+		assertEquals(FirstThingSolver.NAME, solver.getName());
+		assertEquals(Optional.of("1"), solver.solve(things, 10D));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN the auto engine and few things THEN chooses the powerset engine")
+	void autoEngineWithFewThings() throws APIException {
+		// given
+		PackingSolverSelector selector = new PackingSolverSelector(options(PackerOpts.ENGINE_AUTO, 2));
+		
+		// when
+		PackingSolver solver = selector.select(things(5, 0.01D), 100D);
+		
+		// then
+		assertEquals(PackerOpts.ENGINE_POWERSET, solver.getName());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN the auto engine, many things and a small package THEN chooses dynamic programming")
+	void autoEngineWithManyThingsAndSmallPackage() throws APIException {
+		// given
+		PackingSolverSelector selector = new PackingSolverSelector(options(PackerOpts.ENGINE_AUTO, 2));
+		
+		// when
+		PackingSolver solver = selector.select(things(40, 0.01D), 4D);
+		
+		// then
+		assertEquals(PackerOpts.ENGINE_DYNAMIC_PROGRAMMING, solver.getName());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN the auto engine, many things with more decimals than the scale THEN doesn't choose an engine that scales values")
+	void autoEngineWithTooManyDecimals() throws APIException {
+		// given
+		PackingSolverSelector selector = new PackingSolverSelector(options(PackerOpts.ENGINE_AUTO, 2));
+		
+		// when
+		PackingSolver solver = selector.select(things(40, 0.001D), 10D);
+		
+		// then
+		assertNotEquals(PackerOpts.ENGINE_DYNAMIC_PROGRAMMING, solver.getName());
+		assertNotEquals(PackerOpts.ENGINE_GRAY_CODE, solver.getName());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN the auto engine and all the things fit in the package THEN chooses branch and bound")
+	void autoEngineWithEverythingFitting() throws APIException {
+		// given
+		PackingSolverSelector selector = new PackingSolverSelector(options(PackerOpts.ENGINE_AUTO, 2));
+		
+		// when
+		PackingSolver solver = selector.select(things(40, 1.001D), 100_000D);
+		
+		// then
+		assertEquals(PackerOpts.ENGINE_BRANCH_AND_BOUND, solver.getName());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a pinned engine that can't assemble the package THEN chooses another engine")
+	void pinnedEngineThatCanNotAssemble() throws APIException {
+		// given
+		PackingSolverSelector selector = new PackingSolverSelector(options(PackerOpts.ENGINE_GRAY_CODE, 2));
+		
+		// when
+		PackingSolver solver = selector.select(things(5, 0.001D), 10D);
+		
+		// then
+		assertNotEquals(PackerOpts.ENGINE_GRAY_CODE, solver.getName());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN gray code with package parallelism THEN splits only the big packages, in the pool of the options")
+	void grayCodePoolOfTheOptions() throws APIException {
+		// given
+		AtomicInteger workers = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(3, p -> {
+			workers.incrementAndGet();
+			return ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+		}, null, false);
+		try {
+			PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+				obj.engine = PackerOpts.ENGINE_GRAY_CODE;
+				obj.packageParallelism = 3;
+				obj.forkJoinPool = pool;
+			}).build();
+			PackingSolver solver = new PackingSolverSelector(opts).select(things(20, 1D), 30D);
+			
+			// when a small package is assembled, no thread is started
+			Optional<String> small = solver.solve(things(10, 1D), 30D);
+			int workersOfSmall = workers.get();
+			Optional<String> big = solver.solve(things(20, 1D), 30D);
+			
+			// then
+			assertEquals(PackerOpts.ENGINE_GRAY_CODE, solver.getName());
+			assertEquals(0, workersOfSmall);
+			assertTrue(workers.get() > 0);
+			GrayCodePackageBuilder sequential = new GrayCodePackageBuilder(2);
+			assertEquals(sequential.resolveBetterPackage(things(10, 1D), 30D), small);
+			assertEquals(sequential.resolveBetterPackage(things(20, 1D), 30D), big);
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN an engine that is not registered THEN throws APIException")
+	void unknownEngine() {
+		APIException exception = assertThrows(APIException.class, () -> new PackingSolverSelector(options("quantum", 2)));
+		assertEquals("Unknown engine: quantum", exception.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN things with 3 decimals THEN the profile reports 3 decimals")
+	void profileDecimals() {
+		PackageProfile profile = new PackageProfile(things(4, 0.125D), 2.5D);
+		
+		assertEquals(3, profile.getDecimals());
+		assertTrue(profile.fitsScale(3));
+		assertFalse(profile.fitsScale(2));
+		assertEquals(2D, profile.getCapacityRatio(), 1e-9);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a profile whose decimals were not counted THEN fitsScale checks the scale like the counted decimals")
+	void profileScaleBeforeDecimals() {
+		PackageProfile profile = new PackageProfile(things(4, 0.125D), 2.5D);
+		
+		assertTrue(profile.fitsScale(3));
+		assertFalse(profile.fitsScale(2));
+		assertEquals(3, profile.getDecimals());
+		assertTrue(profile.fitsScale(3));
+		assertFalse(profile.fitsScale(2));
+	}
+	
+	
+	/**
+	 * Options with an engine and a decimal scale
+	 */
+	private static PackerOpts options(String engine, int decimalScale) {
+		return new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.engine = engine;
+			obj.decimalScale = decimalScale;
+		}).build();
+	}
+	
+	
+	/**
+	 * Things with index = position + 1, increasing weight and the same cost
+	 */
+	private static List<Thing> things(int nOfThings, double weight) {
+		List<Thing> things = new ArrayList<>();
+		for(int i = 0; i < nOfThings; i++) {
+			things.add(new Thing(i + 1, weight * (i + 1), 10D));
+		}
+		return things;
+	}
+	
+	
+	/**
+	 * An engine registered only for the tests, it always chooses the first thing and it's never the cheapest one.
+	 */
+	public static final class FirstThingSolver implements PackingSolver {
+		
+		static final String NAME = "first-thing";
+		
+		@Override
+		public String getName() {
+			return NAME;
+		}
+		
+		
+		@Override
+		public double estimateCost(PackageProfile profile) {
+			return Double.MAX_VALUE;
+		}
+		
+		
+		@Override
+		public Optional<String> solve(List<Thing> things, double packageWeight) {
+			return things.isEmpty() ? Optional.empty() : Optional.of(things.get(0).getIndex().toString());
+		}
+	}
+	
+}
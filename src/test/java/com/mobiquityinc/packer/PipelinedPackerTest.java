@@ -0,0 +1,98 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.PackageSolution;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.mobiquityinc.packer.TestInputs.options;
+import static com.mobiquityinc.packer.TestInputs.randomLines;
+import static com.mobiquityinc.packer.TestInputs.write;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link PipelinedPacker}.
+ *
+ * @author Hector Blanco
+ */
+class PipelinedPackerTest {
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN a wrong line THEN gives the packages before it and throws its error")
+	void errorAfterThePackagesBefore() throws IOException {
+		// given
+		Path input = write(tempDir.resolve("wrong_line.txt"), randomLines(new Random(18), 1000, 613));
+		
+		// when
+		List<PackageSolution> solutions = new ArrayList<>();
+		APIException apiException = assertThrows(APIException.class,
+				() -> new Packer(pipelineOptions(2, 2, 1, 10)).createAllPackages(input.toString(), solutions::add));
+		
+		// then
+		assertEquals("Incorrect input format in input line, expected format [packageWeight : thingsList]", apiException.getMessage());
+		assertEquals(613, solutions.size());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN virtual threads and many concurrent callers THEN each one gets the packages of the sequential reading")
+	void virtualThreadsWithConcurrentCallers() throws IOException, APIException, InterruptedException, ExecutionException {
+		// given
+		Path input = write(tempDir.resolve("many_lines.txt"), randomLines(new Random(31), 2000));
+		Path wrong = write(tempDir.resolve("wrong_line.txt"), randomLines(new Random(32), 500, 317));
+		List<PackageSolution> expected = Packer.solve(input.toString(), PackerOpts.defaultOptions());
+		PackerOpts opts = options(obj -> {
+			obj.pipelineParserThreads = 2;
+			obj.pipelineBatchLines = 50;
+			obj.virtualThreads = true;
+		});
+		
+		// when
+		ExecutorService callers = Executors.newFixedThreadPool(16);
+		List<Future<List<PackageSolution>>> results = new ArrayList<>();
+		try {
+			for(int i = 0; i < 32; i++) {
+				results.add(callers.submit(() -> Packer.solve(input.toString(), opts)));
+			}
+			List<PackageSolution> solutions = new ArrayList<>();
+			APIException apiException = assertThrows(APIException.class,
+					() -> new Packer(opts).createAllPackages(wrong.toString(), solutions::add));
+			
+			// then
+			for(Future<List<PackageSolution>> result : results) {
+				assertEquals(expected, result.get());
+			}
+			assertEquals("Incorrect input format in input line, expected format [packageWeight : thingsList]", apiException.getMessage());
+			assertEquals(317, solutions.size());
+		} finally {
+			callers.shutdown();
+		}
+	}
+	
+	
+	private static PackerOpts pipelineOptions(int parsers, int solvers, int queueSize, int batchLines) {
+		return options(obj -> {
+			obj.pipelineParserThreads = parsers;
+			obj.pipelineSolverThreads = solvers;
+			obj.pipelineQueueSize = queueSize;
+			obj.pipelineBatchLines = batchLines;
+		});
+	}
+	
+}
@@ -0,0 +1,215 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.packer.entities.LineError;
+import com.mobiquityinc.packer.entities.Shard;
+import com.mobiquityinc.packer.exception.APIException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static com.mobiquityinc.packer.TestInputs.options;
+import static com.mobiquityinc.packer.TestInputs.randomLines;
+import static com.mobiquityinc.packer.TestInputs.read;
+import static com.mobiquityinc.packer.TestInputs.write;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link ShardedPacker}.
+ *
+ * @author Hector Blanco
+ */
+class ShardedPackerTest {
+	
+	@TempDir
+	Path tempDir;
+	
+	
+	@Test
+	@DisplayName("GIVEN a file planned in shards THEN the merged outputs of the shards are the output of the whole file")
+	void planPackAndMerge() throws IOException, APIException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), randomLines(new Random(22), 500) + "7 : (1,3.5,€4)");
+		PackerOpts opts = options();
+		String expected = Packer.pack(input.toString(), opts);
+		
+		for(int nOfShards = 1; nOfShards <= 7; nOfShards++) {
+			// when
+			List<Shard> shards = ShardedPacker.plan(input, nOfShards);
+			List<Path> outputs = new ArrayList<>();
+			for(int i = 0; i < shards.size(); i++) {
+				Path output = tempDir.resolve(nOfShards + "-" + i + ".out");
+				ShardedPacker.pack(input, shards.get(i), output, opts);
+				outputs.add(output);
+			}
+			Collections.reverse(outputs);
+			Path merged = tempDir.resolve(nOfShards + ".out");
+			long nOfLines = ShardedPacker.merge(outputs, merged);
+			
+			// then
+			assertEquals(nOfShards, shards.size());
+			assertEquals(501L, nOfLines);
+			assertEquals(expected, read(merged), "shards: " + nOfShards);
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN random byte ranges THEN they are moved to the start of the lines and count the lines before them")
+	void shardOfAnyRange() throws IOException, APIException {
+		// given
+		byte[] content = randomLines(new Random(23), 200).getBytes(StandardCharsets.UTF_8);
+		Path input = Files.write(tempDir.resolve("input.txt"), content);
+		Random random = new Random(24);
+		for(int run = 0; run < 200; run++) {
+			long start = random.nextInt(content.length);
+			long end = start + random.nextInt(content.length - (int) start + 1);
+			
+			// when
+			Shard shard = ShardedPacker.shard(input, start, end);
+			
+			// then both ends are at the start of a line, and the lines before it are counted like the BufferedReader
+			assertTrue(isLineStart(content, shard.getStart()) && shard.getStart() >= start, shard.toString());
+			assertTrue(isLineStart(content, shard.getEnd()) && shard.getEnd() >= end, shard.toString());
+			String before = new String(content, 0, (int) shard.getStart(), StandardCharsets.UTF_8);
+			assertEquals(countLines(before) + 1, shard.getFirstLineNumber(), shard.toString());
+		}
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN lenient mode and a wrong line in a shard THEN its error has the line number of the whole file")
+	void lenientErrorsOfShards() throws IOException, APIException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), "8 : (1,15.3,€34)\n8 : (1,15.3,€34)\r\nwrong line\n8 : (1,15.3,€34)");
+		List<LineError> errors = new ArrayList<>();
+		PackerOpts opts = new PackerOpts.Builder().with(obj -> {
+			obj.currencySymbol = "€";
+			obj.lenient = true;
+			obj.errorSink = errors::add;
+		}).build();
+		
+		// when
+		Shard shard = ShardedPacker.shard(input, 20, 40);
+		ShardedPacker.pack(input, shard, tempDir.resolve("shard.out"), opts);
+		
+		// then
+		assertEquals(new Shard(39, 50, 3), shard);
+		assertEquals(Collections.singletonList(new LineError(3, 1,
+				"Incorrect input format in input line, expected format [packageWeight : thingsList]")), errors);
+		assertEquals("ERROR", read(tempDir.resolve("shard.out")));
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a missing shard output THEN merge throws APIException")
+	void mergeMissingShard() throws IOException, APIException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), randomLines(new Random(25), 100));
+		List<Shard> shards = ShardedPacker.plan(input, 3);
+		Path first = tempDir.resolve("0.out");
+		Path last = tempDir.resolve("2.out");
+		ShardedPacker.pack(input, shards.get(0), first, options());
+		ShardedPacker.pack(input, shards.get(2), last, options());
+		
+		// when
+		APIException apiException = assertThrows(APIException.class,
+				() -> ShardedPacker.merge(Arrays.asList(first, last), tempDir.resolve("merged.out")));
+		APIException notPacked = assertThrows(APIException.class,
+				() -> ShardedPacker.merge(Arrays.asList(first, tempDir.resolve("1.out"), last), tempDir.resolve("merged.out")));
+		
+		// then
+		assertEquals(String.format("Shard output %s starts at byte %d and line %d, expected byte %d and line %d", last,
+				shards.get(2).getStart(), shards.get(2).getFirstLineNumber(), shards.get(1).getStart(),
+				shards.get(1).getFirstLineNumber()), apiException.getMessage());
+		assertEquals(String.format("Shard output %s is not complete", tempDir.resolve("1.out")), notPacked.getMessage());
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a plan packed by other processes THEN the merged output is the output of the whole file")
+	void packInOtherProcesses() throws IOException, InterruptedException, APIException {
+		// given
+		Path input = write(tempDir.resolve("input.txt"), randomLines(new Random(26), 300));
+		String expected = Packer.pack(input.toString(), options());
+		
+		// when each shard is packed by its own process, like the workers of other machines
+		List<String> plan = run("plan", input.toString(), "3");
+		List<Process> workers = new ArrayList<>();
+		List<String> outputs = new ArrayList<>();
+		for(int i = 0; i < plan.size(); i++) {
+			String[] shard = plan.get(i).split(" ");
+			String output = tempDir.resolve("shard-" + i + ".out").toString();
+			workers.add(start("pack", input.toString(), shard[0], shard[1], output, shard[2]));
+			outputs.add(output);
+		}
+		for(Process worker : workers) {
+			assertEquals(0, worker.waitFor());
+		}
+		outputs.add(0, tempDir.resolve("merged.out").toString());
+		outputs.add(0, "merge");
+		run(outputs.toArray(new String[0]));
+		
+		// then
+		assertEquals(3, plan.size());
+		assertEquals(expected, read(tempDir.resolve("merged.out")));
+	}
+	
+	
+	/**
+	 * Run the command line interface in another JVM, and return what it prints
+	 */
+	private static List<String> run(String... args) throws IOException, InterruptedException {
+		Process process = start(args);
+		List<String> lines = new ArrayList<>();
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+				lines.add(line);
+			}
+		}
+		assertEquals(0, process.waitFor(), String.join(" ", args));
+		return lines;
+	}
+	
+	
+	private static Process start(String... args) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ShardedPacker.class.getName());
+		command.addAll(Arrays.asList(args));
+		return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	}
+	
+	
+	private static boolean isLineStart(byte[] content, long position) {
+		if(position == 0 || position == content.length) {
+			return true;
+		}
+		byte before = content[(int) position - 1];
+		return before == '\n' || (before == '\r' && content[(int) position] != '\n');
+	}
+	
+	
+	private static long countLines(String content) throws IOException {
+		try(BufferedReader reader = new BufferedReader(new StringReader(content))) {
+			return reader.lines().count();
+		}
+	}
+	
+}
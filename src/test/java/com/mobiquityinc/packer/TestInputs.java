@@ -0,0 +1,89 @@
+package com.mobiquityinc.packer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.Consumer;
+
+
+/**
+ * The input files and options shared by the tests of the packers that read files.
+ *
+ * @author Hector Blanco
+ */
+final class TestInputs {
+	
+	// what is written instead of a line to make it wrong
+	private static final String WRONG_LINE = "wrong line";
+	
+	private static final String[] TERMINATORS = {"\n", "\r", "\r\n"};
+	
+	
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private TestInputs() {
+		// nothing to initialize
+	}
+	
+	
+	/**
+	 * Random lines with every line terminator, ending with a line terminator
+	 */
+	static String randomLines(Random random, int nOfLines) {
+		return randomLines(random, nOfLines, -1);
+	}
+	
+	
+	/**
+	 * Random lines with every line terminator, ending with a line terminator, and a wrong line at the given
+	 * position (from 0, -1 for none)
+	 */
+	static String randomLines(Random random, int nOfLines, int wrongLine) {
+		StringBuilder content = new StringBuilder();
+		for(int line = 0; line < nOfLines; line++) {
+			if(line == wrongLine) {
+				content.append(WRONG_LINE);
+			} else {
+				content.append(random.nextInt(100)).append(" :");
+				int nOfThings = 1 + random.nextInt(10);
+				for(int i = 1; i <= nOfThings; i++) {
+					content.append(" (").append(i).append(',').append(random.nextInt(10000) / 100D)
+							.append(",€").append(random.nextInt(100)).append(')');
+				}
+			}
+			content.append(TERMINATORS[random.nextInt(TERMINATORS.length)]);
+		}
+		return content.toString();
+	}
+	
+	
+	static Path write(Path path, String content) throws IOException {
+		return Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+	
+	
+	/**
+	 * Options with the currency of the random lines
+	 */
+	static PackerOpts options() {
+		return options(obj -> {
+		});
+	}
+	
+	
+	/**
+	 * Options with the currency of the random lines, and the given ones
+	 */
+	static PackerOpts options(Consumer<PackerOpts.Builder> with) {
+		return new PackerOpts.Builder().with(obj -> obj.currencySymbol = "€").with(with).build();
+	}
+	
+}
@@ -122,4 +122,23 @@ class ThingCreationTest {
 		assertEquals("Thing's index is negative: \"-2\"", nfException.getMessage());
 	}
 	
+	
+	@Test
+	@DisplayName("GIVEN thing definition with values that are not a number or infinite THEN throws IncorrectThingDefinition")
+	void checkThingCreationWithoutNonFiniteValues() {
+		// given
+		Packer packer = new Packer(PackerOpts.defaultOptions());
+		
+		//when
+		IncorrectThingDefinition nfException = assertThrows(IncorrectThingDefinition.class,
+				() -> packer.extractThingFromInput("2, NaN, €98"));
+		//then
+		assertEquals("Incorrect format for thing's weight: \"NaN\"", nfException.getMessage());
+		
+		//when
+		nfException = assertThrows(IncorrectThingDefinition.class, () -> packer.extractThingFromInput("2, 88.62, €Infinity"));
+		//then
+		assertEquals("Incorrect format for thing's cost: \"€Infinity\"", nfException.getMessage());
+	}
+	
 }
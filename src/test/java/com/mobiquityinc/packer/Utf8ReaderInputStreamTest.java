@@ -0,0 +1,68 @@
+package com.mobiquityinc.packer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test class for @{@link Utf8ReaderInputStream}.
+ *
+ * @author Hector Blanco
+ */
+class Utf8ReaderInputStreamTest {
+	
+	@Test
+	@DisplayName("GIVEN a reader that gives a char at a time THEN reads the UTF-8 bytes, with the surrogate pairs split between reads")
+	void utf8Bytes() throws IOException {
+		// given
+		String content = "81 : (1,53.38,€45) 📦 (2,88.62,€98)\n";
+		Reader oneCharAtATime = new StringReader(content) {
+			@Override
+			public int read(char[] chars, int offset, int length) throws IOException {
+				return super.read(chars, offset, Math.min(1, length));
+			}
+		};
+		
+		// when
+		byte[] bytes;
+		try(InputStream input = new Utf8ReaderInputStream(oneCharAtATime)) {
+			bytes = IOUtils.toByteArray(input);
+		}
+		
+		// then
+		assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), bytes);
+	}
+	
+	
+	@Test
+	@DisplayName("GIVEN a reader still open THEN reads the chars it has without waiting for more")
+	void readsWithoutWaiting() throws IOException {
+		// given
+		PipedWriter writer = new PipedWriter();
+		try(InputStream input = new Utf8ReaderInputStream(new PipedReader(writer))) {
+			writer.write("8 : (1,15.3,€34)\n");
+			writer.flush();
+			
+			// when
+			byte[] bytes = new byte[1024];
+			int read = input.read(bytes, 0, bytes.length);
+			
+			// then
+			assertEquals("8 : (1,15.3,€34)\n", new String(bytes, 0, read, StandardCharsets.UTF_8));
+			writer.close();
+			assertEquals(-1, input.read(bytes, 0, bytes.length));
+		}
+	}
+	
+}